@@ -0,0 +1,170 @@
+package org.example.new_new_mvp.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.new_new_mvp.config.JacksonConfig;
+import org.example.new_new_mvp.dto.SupabaseUserDto;
+import org.example.new_new_mvp.model.User;
+import org.example.new_new_mvp.repository.SupabaseUserRepository;
+import org.example.new_new_mvp.security.JwtUtil;
+import org.example.new_new_mvp.service.SupabaseReadCache;
+import org.example.new_new_mvp.service.SupabaseSingleFlight;
+import org.example.new_new_mvp.service.SupabaseService;
+import org.example.new_new_mvp.service.WebhookService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Горячие пути сервиса на канонических ответах Supabase (SupabaseFixtures) из 1k / 10k / 100k строк:
+ * - selectUsers / selectProfiles: SupabaseService.select - разбор JSON-ответа PostgREST в DTO
+ * - streamUsers: SupabaseService.selectFlux - тот же ответ, разбор по строкам без буфера всего JSON
+ * - convertDtoToUser: SupabaseUserRepository.convertDtoToUser по всем строкам
+ * - webhookPayloads: сборка трёх payload-ов n8n по каждому профилю
+ * - jwtVerify: JwtUtil.verify без кэша на rows разных токенах
+ * Сеть не участвует: WebClient отдаёт фикстуру из ExchangeFunction.
+ * Результаты пишутся в build/reports/jmh/results.json (см. jmh в build.gradle).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+public class HotPathBenchmark {
+
+    private static final String SECRET = "mySecretKeyForJWTTokenGenerationThatIsLongEnoughFor256Bits";
+
+    @Param({"1000", "10000", "100000"})
+    private int rows;
+
+    private SupabaseService supabaseService;
+    private SupabaseUserRepository userRepository;
+    private Method convertDtoToUser;
+    private WebhookService webhookService;
+    private JwtUtil jwtUtil;
+
+    private List<SupabaseUserDto> userDtos;
+    private List<JsonNode> profiles;
+    private List<String> tokens;
+    private PrintStream originalOut;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        // convertDtoToUser пишет в stdout на каждую строку - глушим, чтобы не мерить консоль
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        String usersJson = SupabaseFixtures.usersJson(rows);
+        String profilesJson = SupabaseFixtures.profilesJson(rows);
+        ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+
+        ExchangeStrategies strategies = ExchangeStrategies.builder()
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(256 * 1024 * 1024))
+                .build();
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> Mono.just(ClientResponse.create(HttpStatus.OK, strategies)
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .body(request.url().getPath().endsWith("/profiles") ? profilesJson : usersJson)
+                        .build()))
+                .exchangeStrategies(strategies)
+                .build();
+
+        supabaseService = new SupabaseService();
+        ReflectionTestUtils.setField(supabaseService, "supabaseWebClient", webClient);
+        ReflectionTestUtils.setField(supabaseService, "objectMapper", objectMapper);
+        // Кэш выключен: меряем разбор ответа, а не попадания в кэш
+        ReflectionTestUtils.setField(supabaseService, "readCache", new SupabaseReadCache(new String[0], 60, 1));
+        ReflectionTestUtils.setField(supabaseService, "singleFlight", new SupabaseSingleFlight(true));
+
+        userRepository = new SupabaseUserRepository();
+        ReflectionTestUtils.setField(userRepository, "supabaseService", supabaseService);
+        convertDtoToUser = SupabaseUserRepository.class.getDeclaredMethod("convertDtoToUser", SupabaseUserDto.class);
+        convertDtoToUser.setAccessible(true);
+
+        webhookService = new WebhookService();
+        ReflectionTestUtils.setField(webhookService, "objectMapper", objectMapper);
+
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpiration", 86_400_000);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", 0L);
+        ReflectionTestUtils.setField(jwtUtil, "cacheTtlSeconds", 300L);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+
+        userDtos = supabaseService.select("users", SupabaseUserDto.class).block();
+        profiles = supabaseService.select("profiles", JsonNode.class).block();
+        // Подпись HS256 стоит микросекунды - на 100k токенов ограничиваемся 10k, цикл по кругу
+        tokens = new ArrayList<>();
+        for (int i = 0; i < Math.min(rows, 10_000); i++) {
+            tokens.add(jwtUtil.generateToken(userDtos.get(i).getEmail(), i % 2 == 0 ? "EMPLOYEE" : "COMPANY"));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public List<SupabaseUserDto> selectUsers() {
+        return supabaseService.select("users", SupabaseUserDto.class).block();
+    }
+
+    @Benchmark
+    public void streamUsers(Blackhole blackhole) {
+        supabaseService.selectFlux("users", SupabaseUserDto.class).doOnNext(blackhole::consume).blockLast();
+    }
+
+    @Benchmark
+    public List<JsonNode> selectProfiles() {
+        return supabaseService.select("profiles", JsonNode.class).block();
+    }
+
+    @Benchmark
+    public void convertDtoToUser(Blackhole blackhole) throws Exception {
+        for (SupabaseUserDto dto : userDtos) {
+            blackhole.consume((User) convertDtoToUser.invoke(userRepository, dto));
+        }
+    }
+
+    @Benchmark
+    public void webhookPayloads(Blackhole blackhole) {
+        for (int i = 0; i < profiles.size(); i++) {
+            JsonNode profile = profiles.get(i);
+            SupabaseUserDto user = userDtos.get(i);
+            UUID userId = UUID.fromString(profile.get("user_id").asText());
+            String profileData = profile.get("profile_data").toString();
+            blackhole.consume(webhookService.buildCompetencyAnalysisPayload(userId, user.getEmail(),
+                    user.getFullName(), profileData, "Company"));
+            blackhole.consume(webhookService.buildJobRoleAssignmentPayload(userId, user.getEmail(),
+                    user.getFullName(), user.getActivationCode(), userId, "Engineer", "Backend engineer",
+                    profileData, "Company"));
+            blackhole.consume(webhookService.buildAIProfileGenerationPayload(userId, user.getEmail(),
+                    user.getFullName(), profileData, "Company", user.getActivationCode(),
+                    user.getTelegramChatId(), user.getStatus()));
+        }
+    }
+
+    @Benchmark
+    public void jwtVerify(Blackhole blackhole) {
+        for (int i = 0; i < rows; i++) {
+            blackhole.consume(jwtUtil.verify(tokens.get(i % tokens.size())));
+        }
+    }
+}
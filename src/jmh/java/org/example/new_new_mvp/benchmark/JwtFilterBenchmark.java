@@ -0,0 +1,127 @@
+package org.example.new_new_mvp.benchmark;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.FilterChain;
+import org.example.new_new_mvp.security.JwtAuthenticationFilter;
+import org.example.new_new_mvp.security.JwtUtil;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость JwtAuthenticationFilter на один запрос с валидным Bearer-токеном.
+ * legacyFourParses - прежняя схема: validateToken + isTokenExpired + getEmailFromToken + getRoleFromToken,
+ * каждый вызов заново строит ключ и парсер и проверяет подпись.
+ * singleParse - JwtUtil.verify без кэша (первый запрос с токеном), cachedToken - повторный запрос.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtFilterBenchmark {
+
+    private static final String SECRET = "mySecretKeyForJWTTokenGenerationThatIsLongEnoughFor256Bits";
+
+    private JwtAuthenticationFilter uncachedFilter;
+    private JwtAuthenticationFilter cachedFilter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private FilterChain chain;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        JwtUtil cachedUtil = jwtUtil(10_000);
+        token = cachedUtil.generateToken("user@example.com", "EMPLOYEE");
+
+        uncachedFilter = filter(jwtUtil(0));
+        cachedFilter = filter(cachedUtil);
+
+        request = new MockHttpServletRequest("GET", "/api/auth/me");
+        request.addHeader("Authorization", "Bearer " + token);
+        response = new MockHttpServletResponse();
+        chain = (req, res) -> { };
+    }
+
+    @Benchmark
+    public Authentication legacyFourParses() {
+        String header = request.getHeader("Authorization");
+        String jwt = header.substring(7);
+        if (legacyValidate(jwt) && !legacyIsExpired(jwt)) {
+            String email = legacyParser().parseClaimsJws(jwt).getBody().getSubject();
+            String role = legacyParser().parseClaimsJws(jwt).getBody().get("role", String.class);
+            if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                        email, null, Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role))));
+            }
+        }
+        return takeAuthentication();
+    }
+
+    @Benchmark
+    public Authentication singleParse() throws Exception {
+        uncachedFilter.doFilter(request, response, chain);
+        return takeAuthentication();
+    }
+
+    @Benchmark
+    public Authentication cachedToken() throws Exception {
+        cachedFilter.doFilter(request, response, chain);
+        return takeAuthentication();
+    }
+
+    private static Authentication takeAuthentication() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+
+    private static JwtUtil jwtUtil(long cacheMaxSize) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpiration", 86_400_000);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", cacheMaxSize);
+        ReflectionTestUtils.setField(jwtUtil, "cacheTtlSeconds", 300L);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        return jwtUtil;
+    }
+
+    private static JwtAuthenticationFilter filter(JwtUtil jwtUtil) {
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+        return filter;
+    }
+
+    // Прежний JwtUtil: ключ и парсер на каждый вызов
+    private static io.jsonwebtoken.JwtParser legacyParser() {
+        SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes());
+        return Jwts.parserBuilder().setSigningKey(key).build();
+    }
+
+    private static boolean legacyValidate(String jwt) {
+        try {
+            legacyParser().parseClaimsJws(jwt);
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static boolean legacyIsExpired(String jwt) {
+        try {
+            return legacyParser().parseClaimsJws(jwt).getBody().getExpiration().before(new Date());
+        } catch (RuntimeException e) {
+            return true;
+        }
+    }
+}
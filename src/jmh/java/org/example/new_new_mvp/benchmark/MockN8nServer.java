@@ -0,0 +1,57 @@
+package org.example.new_new_mvp.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Локальная замена n8n для бенчмарков: принимает POST на /webhook/*, вычитывает тело
+ * и отвечает коротким JSON, как n8n-узел "Respond to Webhook".
+ */
+public class MockN8nServer implements AutoCloseable {
+
+    private static final byte[] RESPONSE = "{\"status\":\"accepted\"}".getBytes(StandardCharsets.UTF_8);
+
+    static {
+        // Без TCP_NODELAY заголовки и тело ответа уходят разными пакетами и ждут delayed ACK (~40 мс)
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    public MockN8nServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.createContext("/webhook", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public String url(String webhookId) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/webhook/" + webhookId;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, RESPONSE.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(RESPONSE);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
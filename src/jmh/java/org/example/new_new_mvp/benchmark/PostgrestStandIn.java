@@ -0,0 +1,166 @@
+package org.example.new_new_mvp.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Локальная замена PostgREST для бенчмарков: таблицы users и profiles, засеянные в памяти.
+ * Понимает только те фильтры, которые отправляют SupabaseUserRepository и SupabaseProfileRepository
+ * (company_id=eq.*, or=(status...), email=eq.*, user_id=eq.*), ответы сериализуются при старте.
+ * latency имитирует сетевую задержку до Supabase на каждый запрос.
+ */
+public class PostgrestStandIn implements AutoCloseable {
+
+    private static final String COMPANY_ROLE_FILTER = "(status.ilike.company,status.ilike.active)";
+
+    static {
+        // По умолчанию HttpServer держит лишь 200 idle keep-alive соединений и закрывает лишние,
+        // а пул WebClient переиспользует их - получаем "Connection prematurely closed"
+        System.setProperty("sun.net.httpserver.maxIdleConnections", "10000");
+        // Без TCP_NODELAY заголовки и тело ответа уходят разными пакетами и ждут delayed ACK (~40 мс)
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Duration latency;
+    private final List<UUID> companyIds = new ArrayList<>();
+    private final Map<String, byte[]> responses = new HashMap<>();
+    private final Map<String, byte[]> profileResponses = new HashMap<>();
+
+    public PostgrestStandIn(int users, int companies) throws IOException {
+        this(users, companies, Duration.ZERO);
+    }
+
+    public PostgrestStandIn(int users, int companies, Duration latency) throws IOException {
+        this.latency = latency;
+        // С задержкой каждый запрос занимает поток сервера на время sleep - пул не ограничиваем
+        this.executor = latency.isZero() ? Executors.newFixedThreadPool(8) : Executors.newCachedThreadPool();
+        ObjectMapper mapper = new ObjectMapper();
+        for (int i = 0; i < companies; i++) {
+            companyIds.add(UUID.nameUUIDFromBytes(("company-" + i).getBytes(StandardCharsets.UTF_8)));
+        }
+
+        List<Map<String, Object>> all = new ArrayList<>(users);
+        Map<UUID, List<Map<String, Object>>> byCompany = new HashMap<>();
+        Map<UUID, List<Map<String, Object>>> byCompanyAndRole = new HashMap<>();
+        for (int i = 0; i < users; i++) {
+            UUID companyId = companyIds.get(i % companies);
+            boolean companyUser = i < companies;
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", (long) i + 1);
+            row.put("email", "user" + i + "@example.com");
+            row.put("full_name", "User " + i);
+            row.put("status", companyUser ? "company" : "invited");
+            row.put("activation_code", UUID.randomUUID().toString());
+            row.put("company_id", companyId.toString());
+            row.put("created_at", "2025-10-23T19:11:57.627246+00:00");
+            all.add(row);
+            responses.put("email=eq." + row.get("email"), mapper.writeValueAsBytes(List.of(row)));
+            UUID userId = UUID.nameUUIDFromBytes(String.valueOf(i + 1).getBytes());
+            Map<String, Object> profile = new LinkedHashMap<>();
+            profile.put("user_id", userId.toString());
+            profile.put("profile_data", Map.of("currentPosition", "Engineer " + i));
+            profile.put("company_id", companyId.toString());
+            profile.put("last_updated", "2025-10-23T19:11:57.627246+00:00");
+            profileResponses.put("user_id=eq." + userId, mapper.writeValueAsBytes(List.of(profile)));
+            byCompany.computeIfAbsent(companyId, k -> new ArrayList<>()).add(row);
+            if (companyUser) {
+                byCompanyAndRole.computeIfAbsent(companyId, k -> new ArrayList<>()).add(row);
+            }
+        }
+
+        responses.put("", mapper.writeValueAsBytes(all));
+        for (UUID companyId : companyIds) {
+            responses.put("company_id=eq." + companyId,
+                    mapper.writeValueAsBytes(byCompany.getOrDefault(companyId, List.of())));
+            responses.put("company_id=eq." + companyId + "&or=" + COMPANY_ROLE_FILTER,
+                    mapper.writeValueAsBytes(byCompanyAndRole.getOrDefault(companyId, List.of())));
+        }
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 4096);
+        server.createContext("/rest/v1/users", exchange -> respond(exchange, responses));
+        server.createContext("/rest/v1/profiles", exchange -> respond(exchange, profileResponses));
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/rest/v1";
+    }
+
+    public List<UUID> companyIds() {
+        return companyIds;
+    }
+
+    public String email(int user) {
+        return "user" + user + "@example.com";
+    }
+
+    private void respond(HttpExchange exchange, Map<String, byte[]> table) throws IOException {
+        if (!latency.isZero()) {
+            try {
+                Thread.sleep(latency.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        String key = normalize(rawQuery);
+        byte[] body = table.getOrDefault(key, "[]".getBytes(StandardCharsets.UTF_8));
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Приводит query к каноническому виду: company_id первым, затем or;
+     * email / user_id возвращаются как есть (select=* и прочие параметры отбрасываются)
+     */
+    private static String normalize(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return "";
+        }
+        String companyPart = null;
+        String orPart = null;
+        for (String param : rawQuery.split("&")) {
+            String decoded = URLDecoder.decode(param, StandardCharsets.UTF_8);
+            if (decoded.startsWith("email=") || decoded.startsWith("user_id=")) {
+                return decoded;
+            }
+            if (decoded.startsWith("company_id=")) {
+                companyPart = decoded;
+            } else if (decoded.startsWith("or=")) {
+                orPart = decoded;
+            }
+        }
+        if (companyPart == null) {
+            return orPart != null ? orPart : "";
+        }
+        return orPart != null ? companyPart + "&" + orPart : companyPart;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
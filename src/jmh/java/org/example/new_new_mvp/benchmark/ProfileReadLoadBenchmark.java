@@ -0,0 +1,127 @@
+package org.example.new_new_mvp.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.new_new_mvp.config.JacksonConfig;
+import org.example.new_new_mvp.config.SupabaseConfig;
+import org.example.new_new_mvp.repository.SupabaseProfileRepository;
+import org.example.new_new_mvp.repository.SupabaseUserRepository;
+import org.example.new_new_mvp.service.SupabaseProfileService;
+import org.example.new_new_mvp.service.SupabaseReadCache;
+import org.example.new_new_mvp.service.SupabaseSingleFlight;
+import org.example.new_new_mvp.service.SupabaseService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Нагрузочный тест чтения профилей: 1000 одновременных GET /api/profiles/search
+ * (findByEmail + findByUserId, по 2 запроса к PostgREST с задержкой latencyMs).
+ * - blocking: тот же запрос с .block() на пуле из 200 потоков (максимум Tomcat по умолчанию)
+ * - reactive: SupabaseProfileService, все 1000 цепочек в полёте одновременно
+ * Результат - прочитанных профилей в секунду.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ProfileReadLoadBenchmark {
+
+    private static final int CONCURRENT_READS = 1000;
+    private static final int TOMCAT_MAX_THREADS = 200;
+
+    @Param({"50", "250"})
+    private int latencyMs;
+
+    private PostgrestStandIn standIn;
+    private ExecutorService tomcatThreads;
+    private SupabaseProfileService supabaseProfileService;
+    private List<String> emails;
+    private PrintStream originalOut;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        // convertDtoToUser и сервисы пишут в stdout на каждый запрос - глушим, чтобы не мерить консоль
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        standIn = new PostgrestStandIn(CONCURRENT_READS, 10, Duration.ofMillis(latencyMs));
+        emails = new ArrayList<>(CONCURRENT_READS);
+        for (int i = 0; i < CONCURRENT_READS; i++) {
+            emails.add(standIn.email(i));
+        }
+
+        // WebClient с тем же пулом соединений, что и в приложении
+        SupabaseConfig config = new SupabaseConfig();
+        ReflectionTestUtils.setField(config, "supabaseUrl", standIn.baseUrl().replace("/rest/v1", ""));
+        ReflectionTestUtils.setField(config, "supabaseAnonKey", "bench");
+        ReflectionTestUtils.setField(config, "maxConnections", 500);
+        ReflectionTestUtils.setField(config, "pendingAcquireMax", 10000);
+        ReflectionTestUtils.setField(config, "pendingAcquireTimeoutMs", 45000L);
+        WebClient webClient = config.supabaseWebClient();
+        ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+
+        SupabaseService supabaseService = new SupabaseService();
+        ReflectionTestUtils.setField(supabaseService, "supabaseWebClient", webClient);
+        ReflectionTestUtils.setField(supabaseService, "objectMapper", objectMapper);
+        // Кэш выключен: меряем запросы к PostgREST, а не попадания в кэш
+        ReflectionTestUtils.setField(supabaseService, "readCache", new SupabaseReadCache(new String[0], 60, 1));
+        ReflectionTestUtils.setField(supabaseService, "singleFlight", new SupabaseSingleFlight(true));
+
+        SupabaseUserRepository userRepository = new SupabaseUserRepository();
+        ReflectionTestUtils.setField(userRepository, "supabaseService", supabaseService);
+        ReflectionTestUtils.setField(userRepository, "supabaseWebClient", webClient);
+
+        SupabaseProfileRepository profileRepository = new SupabaseProfileRepository();
+        ReflectionTestUtils.setField(profileRepository, "supabaseService", supabaseService);
+        ReflectionTestUtils.setField(profileRepository, "objectMapper", objectMapper);
+
+        supabaseProfileService = new SupabaseProfileService();
+        ReflectionTestUtils.setField(supabaseProfileService, "profileRepository", profileRepository);
+        ReflectionTestUtils.setField(supabaseProfileService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(supabaseProfileService, "objectMapper", objectMapper);
+
+        tomcatThreads = Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        tomcatThreads.shutdownNow();
+        standIn.close();
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONCURRENT_READS)
+    public int blockingServletThreads() throws Exception {
+        List<Future<Object>> reads = new ArrayList<>(CONCURRENT_READS);
+        for (String email : emails) {
+            reads.add(tomcatThreads.submit(() -> supabaseProfileService.findProfileByEmail(email).block()));
+        }
+        int found = 0;
+        for (Future<Object> read : reads) {
+            if (read.get() != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONCURRENT_READS)
+    public long reactive() {
+        return Flux.fromIterable(emails)
+                .flatMap(supabaseProfileService::findProfileByEmail, CONCURRENT_READS)
+                .count()
+                .block();
+    }
+}
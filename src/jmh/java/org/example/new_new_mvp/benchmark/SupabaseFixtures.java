@@ -0,0 +1,117 @@
+package org.example.new_new_mvp.benchmark;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Канонические ответы PostgREST для бенчмарков: users и profiles на N строк в формате Supabase.
+ * Генерируются детерминированно (фиксированный seed) один раз в build/jmh-fixtures и дальше читаются
+ * с диска - прогоны разных версий меряют один и тот же JSON.
+ */
+public final class SupabaseFixtures {
+
+    private static final Path DIR = Paths.get(System.getProperty("jmh.fixtures.dir", "build/jmh-fixtures"));
+    private static final String[] STATUSES = {"invited", "active", "company", "employee"};
+    private static final String[] SKILLS = {"Java", "SQL", "Kotlin", "Spring", "PostgreSQL", "Docker", "React"};
+
+    private SupabaseFixtures() {
+    }
+
+    /**
+     * Строки таблицы users: bigint id, user_uuid, status, company_id, Skills (jsonb) и служебные колонки
+     */
+    public static byte[] users(int rows) {
+        return load("users-" + rows + ".json", generator -> {
+            Random random = new Random(rows);
+            for (int i = 1; i <= rows; i++) {
+                generator.writeStartObject();
+                generator.writeNumberField("id", i);
+                generator.writeStringField("user_uuid", UUID.nameUUIDFromBytes(String.valueOf(i).getBytes()).toString());
+                generator.writeStringField("created_at", "2025-10-23T19:11:57.627246+00:00");
+                generator.writeStringField("full_name", "User " + i);
+                generator.writeStringField("email", "user" + i + "@example.com");
+                generator.writeStringField("telegram_chat_id", String.valueOf(100000 + i));
+                generator.writeStringField("status", STATUSES[random.nextInt(STATUSES.length)]);
+                generator.writeStringField("activation_code", new UUID(random.nextLong(), random.nextLong()).toString());
+                generator.writeNullField("access_token");
+                generator.writeStringField("company_id", companyId(random.nextInt(100)).toString());
+                generator.writeArrayFieldStart("Skills");
+                for (int s = 0; s < 3; s++) {
+                    generator.writeString(SKILLS[random.nextInt(SKILLS.length)]);
+                }
+                generator.writeEndArray();
+                generator.writeStringField("last_updated", "2025-10-24T08:00:00+00:00");
+                generator.writeEndObject();
+            }
+        });
+    }
+
+    /**
+     * Строки таблицы profiles: user_id, company_id и profile_data (jsonb) размером ~0.5 КБ
+     */
+    public static byte[] profiles(int rows) {
+        return load("profiles-" + rows + ".json", generator -> {
+            Random random = new Random(rows * 31L);
+            for (int i = 1; i <= rows; i++) {
+                generator.writeStartObject();
+                generator.writeStringField("user_id", UUID.nameUUIDFromBytes(String.valueOf(i).getBytes()).toString());
+                generator.writeStringField("company_id", companyId(random.nextInt(100)).toString());
+                generator.writeObjectFieldStart("profile_data");
+                generator.writeStringField("currentPosition", "Engineer " + random.nextInt(10));
+                generator.writeStringField("currentSkills", SKILLS[random.nextInt(SKILLS.length)] + ", "
+                        + SKILLS[random.nextInt(SKILLS.length)]);
+                generator.writeStringField("summary", "Experienced engineer ".repeat(10 + random.nextInt(10)).trim());
+                generator.writeNumberField("yearsOfExperience", random.nextInt(20));
+                generator.writeEndObject();
+                generator.writeStringField("last_updated", "2025-10-24T08:00:00+00:00");
+                generator.writeEndObject();
+            }
+        });
+    }
+
+    public static String usersJson(int rows) {
+        return new String(users(rows), StandardCharsets.UTF_8);
+    }
+
+    public static String profilesJson(int rows) {
+        return new String(profiles(rows), StandardCharsets.UTF_8);
+    }
+
+    private static UUID companyId(int index) {
+        return UUID.nameUUIDFromBytes(("company-" + index).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private interface RowWriter {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    private static synchronized byte[] load(String name, RowWriter rows) {
+        Path file = DIR.resolve(name);
+        try {
+            if (!Files.exists(file)) {
+                Files.createDirectories(DIR);
+                Path tmp = DIR.resolve(name + ".tmp");
+                try (JsonGenerator generator = new ObjectMapper().getFactory()
+                        .createGenerator(tmp.toFile(), JsonEncoding.UTF8)) {
+                    generator.writeStartArray();
+                    rows.write(generator);
+                    generator.writeEndArray();
+                }
+                Files.move(tmp, file);
+            }
+            return Files.readAllBytes(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
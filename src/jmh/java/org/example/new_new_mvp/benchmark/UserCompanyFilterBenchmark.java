@@ -0,0 +1,97 @@
+package org.example.new_new_mvp.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.new_new_mvp.config.JacksonConfig;
+import org.example.new_new_mvp.dto.SupabaseUserDto;
+import org.example.new_new_mvp.model.User;
+import org.example.new_new_mvp.model.UserRole;
+import org.example.new_new_mvp.repository.SupabaseUserRepository;
+import org.example.new_new_mvp.service.SupabaseReadCache;
+import org.example.new_new_mvp.service.SupabaseSingleFlight;
+import org.example.new_new_mvp.service.SupabaseService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение двух путей получения пользователей компании на 100k строк:
+ * - scan: выгрузка всей таблицы users и фильтрация в JVM (прежняя реализация)
+ * - filter: company_id / status фильтры на стороне PostgREST
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class UserCompanyFilterBenchmark {
+
+    @Param({"100000"})
+    private int users;
+
+    @Param({"100"})
+    private int companies;
+
+    private PostgrestStandIn standIn;
+    private SupabaseService supabaseService;
+    private SupabaseUserRepository userRepository;
+    private UUID companyId;
+    private PrintStream originalOut;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        // Лог конвертации строк теперь на DEBUG (см. UserConversionLoggingBenchmark); stdout глушим на случай println в сервисах
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        standIn = new PostgrestStandIn(users, companies);
+        companyId = standIn.companyIds().get(companies / 2);
+
+        WebClient webClient = WebClient.builder()
+                .baseUrl(standIn.baseUrl())
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(256 * 1024 * 1024))
+                .build();
+        ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+
+        supabaseService = new SupabaseService();
+        ReflectionTestUtils.setField(supabaseService, "supabaseWebClient", webClient);
+        ReflectionTestUtils.setField(supabaseService, "objectMapper", objectMapper);
+        // Кэш выключен: меряем запросы к PostgREST, а не попадания в кэш
+        ReflectionTestUtils.setField(supabaseService, "readCache", new SupabaseReadCache(new String[0], 60, 1));
+        ReflectionTestUtils.setField(supabaseService, "singleFlight", new SupabaseSingleFlight(true));
+
+        userRepository = new SupabaseUserRepository();
+        ReflectionTestUtils.setField(userRepository, "supabaseService", supabaseService);
+        ReflectionTestUtils.setField(userRepository, "supabaseWebClient", webClient);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        standIn.close();
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public List<User> companyUsersScan() {
+        return supabaseService.select("users", SupabaseUserDto.class, Map.of())
+                .map(dtos -> dtos.stream()
+                        .<User>map(dto -> ReflectionTestUtils.invokeMethod(userRepository, "convertDtoToUser", dto))
+                        .filter(user -> user.getCompany() != null && companyId.equals(user.getCompany().getId()))
+                        .toList())
+                .block();
+    }
+
+    @Benchmark
+    public List<User> companyUsersFilter() {
+        return userRepository.findByCompanyId(companyId).block();
+    }
+
+    @Benchmark
+    public List<User> companyAdminsFilter() {
+        return userRepository.findByCompanyIdAndRole(companyId, UserRole.COMPANY).block();
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.new_new_mvp.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import org.example.new_new_mvp.dto.SupabaseUserDto;
+import org.example.new_new_mvp.model.User;
+import org.example.new_new_mvp.repository.SupabaseUserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость конвертации одной строки users (convertDtoToUser) при разных уровнях лога репозитория:
+ * - INFO: логирование выключено, ни конкатенации, ни форматирования
+ * - DEBUG: пишется каждая тысячная строка
+ * - TRACE: пишется каждая строка (через AsyncAppender, как в приложении; вывод - в пустой поток)
+ * Прежняя реализация печатала 5+ строк System.out на каждую конвертацию
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UserConversionLoggingBenchmark {
+
+    @Param({"INFO", "DEBUG", "TRACE"})
+    private String level;
+
+    private MethodHandle convert;
+    private SupabaseUserRepository repository;
+    private SupabaseUserDto dto;
+    private Logger logger;
+    private AsyncAppender async;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        repository = new SupabaseUserRepository();
+        convert = MethodHandles.privateLookupIn(SupabaseUserRepository.class, MethodHandles.lookup())
+                .findVirtual(SupabaseUserRepository.class, "convertDtoToUser",
+                        MethodType.methodType(User.class, SupabaseUserDto.class));
+
+        dto = new SupabaseUserDto();
+        dto.setId(42L);
+        dto.setUserUuid(UUID.randomUUID());
+        dto.setEmail("user42@example.com");
+        dto.setFullName("User 42");
+        dto.setStatus("employee");
+        dto.setCompanyId(UUID.randomUUID());
+
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d %-5level [%thread] %logger{36} - %msg %kvp%n");
+        encoder.start();
+        OutputStreamAppender<ILoggingEvent> sink = new OutputStreamAppender<>();
+        sink.setContext(context);
+        sink.setEncoder(encoder);
+        sink.setOutputStream(OutputStream.nullOutputStream());
+        sink.start();
+        async = new AsyncAppender();
+        async.setContext(context);
+        async.setQueueSize(8192);
+        async.setDiscardingThreshold(1024);
+        async.addAppender(sink);
+        async.start();
+
+        logger = context.getLogger(SupabaseUserRepository.class);
+        logger.setAdditive(false);
+        logger.addAppender(async);
+        logger.setLevel(ch.qos.logback.classic.Level.toLevel(level));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        logger.detachAppender(async);
+        async.stop();
+        logger.setLevel(null);
+        logger.setAdditive(true);
+    }
+
+    @Benchmark
+    public User convertRow() throws Throwable {
+        return (User) convert.invokeExact(repository, dto);
+    }
+}
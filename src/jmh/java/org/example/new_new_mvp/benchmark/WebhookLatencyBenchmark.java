@@ -0,0 +1,107 @@
+package org.example.new_new_mvp.benchmark;
+
+import org.example.new_new_mvp.config.WebhookConfig;
+import org.example.new_new_mvp.service.WebhookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Задержка отправки четырёх типов webhook'ов в локальный mock n8n (p50/p99 из режима SampleTime):
+ * анализ компетенций, анализ компетенций с файлами (base64), назначение роли, генерация AI-профиля.
+ * restTemplatePerCall - прежняя схема (new RestTemplate() на каждый вызов) для сравнения.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WebhookLatencyBenchmark {
+
+    private static final String PROFILE_DATA = "{\"currentPosition\":\"Engineer\",\"currentSkills\":\"Java, SQL\"}";
+
+    private MockN8nServer n8n;
+    private WebhookService webhookService;
+    private List<MultipartFile> files;
+    private String legacyPayload;
+    private UUID userId;
+    private UUID jobRoleId;
+    private PrintStream originalOut;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        // WebhookService печатает payload каждого запроса - глушим, чтобы не мерить консоль
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        n8n = new MockN8nServer();
+
+        WebhookConfig config = new WebhookConfig();
+        ReflectionTestUtils.setField(config, "maxConnectionsPerHost", 50);
+        ReflectionTestUtils.setField(config, "pendingAcquireMax", 1000);
+        ReflectionTestUtils.setField(config, "connectTimeoutMs", 5000);
+        ReflectionTestUtils.setField(config, "readTimeoutMs", 120000L);
+        ReflectionTestUtils.setField(config, "maxIdleTimeMs", 30000L);
+
+        webhookService = new WebhookService();
+        ReflectionTestUtils.setField(webhookService, "webhookWebClient", config.webhookWebClient());
+        ReflectionTestUtils.setField(webhookService, "objectMapper", new com.fasterxml.jackson.databind.ObjectMapper());
+        ReflectionTestUtils.setField(webhookService, "analyzeCompetenciesUrl", n8n.url("analyze"));
+        ReflectionTestUtils.setField(webhookService, "assignJobRoleUrl", n8n.url("assign"));
+        ReflectionTestUtils.setField(webhookService, "generateAiProfileUrl", n8n.url("generate"));
+        ReflectionTestUtils.setField(webhookService, "profileWebhookUrl", n8n.url("profile"));
+
+        byte[] resume = new byte[256 * 1024];
+        new java.util.Random(42).nextBytes(resume);
+        files = List.of(new MockMultipartFile("files", "resume.pdf", "application/pdf", resume));
+        legacyPayload = "{\"action\":\"analyze_competencies\",\"profileData\":" + PROFILE_DATA + "}";
+        userId = UUID.randomUUID();
+        jobRoleId = UUID.randomUUID();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        n8n.close();
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public String competencyAnalysis() {
+        return webhookService.sendCompetencyAnalysisWebhook(userId, "user@example.com", "User",
+                PROFILE_DATA, "Acme");
+    }
+
+    @Benchmark
+    public String competencyAnalysisWithFiles() {
+        return webhookService.sendCompetencyAnalysisWebhookWithFiles(userId, "user@example.com", "User",
+                PROFILE_DATA, "Acme", files);
+    }
+
+    @Benchmark
+    public String jobRoleAssignment() {
+        return webhookService.sendJobRoleAssignmentWebhook(userId, "user@example.com", "User", "ACT-1",
+                jobRoleId, "Backend Engineer", "Builds services", PROFILE_DATA, "Acme");
+    }
+
+    @Benchmark
+    public String aiProfileGeneration() {
+        return webhookService.sendAIProfileGenerationWebhook(userId, "user@example.com", "User",
+                PROFILE_DATA, "Acme", "ACT-1", "12345", "invited");
+    }
+
+    @Benchmark
+    public String restTemplatePerCall() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return new RestTemplate().postForObject(n8n.url("analyze"), new HttpEntity<>(legacyPayload, headers), String.class);
+    }
+}
@@ -0,0 +1,216 @@
+package org.example.new_new_mvp.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.new_new_mvp.config.WebhookConfig;
+import org.example.new_new_mvp.service.WebhookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пиковая память при отправке файла анализа компетенций в mock n8n (base64 в JSON).
+ * streaming - текущий sendCompetencyAnalysisWebhookWithFiles (JsonGenerator пишет base64 в тело запроса),
+ * legacyInMemory - прежняя схема: getBytes() + Base64 в String + String.format всего payload.
+ * Файл лежит на диске, как multipart-файл Spring после загрузки. Прирост кучи за одну отправку -
+ * aux-счётчик peakHeapMb (пик heap-пулов после System.gc() минус занятое до отправки),
+ * байты аллокаций - с -prof gc.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-XX:+UseG1GC", "-Xmx1g"})
+public class WebhookUploadHeapBenchmark {
+
+    private static final String PROFILE_DATA = "{\"currentPosition\":\"Engineer\",\"currentSkills\":\"Java, SQL\"}";
+
+    @Param({"50"})
+    public int fileSizeMb;
+
+    private MockN8nServer n8n;
+    private WebhookService webhookService;
+    private WebClient webClient;
+    private Path file;
+    private MultipartFile upload;
+    private UUID userId;
+    private PrintStream originalOut;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class HeapPeak {
+        public double peakHeapMb;
+
+        private long baseline;
+
+        @Setup(Level.Invocation)
+        public void reset() {
+            System.gc();
+            baseline = heapUsed();
+            ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+        }
+
+        @TearDown(Level.Invocation)
+        public void record() {
+            long peak = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    peak += pool.getPeakUsage().getUsed();
+                }
+            }
+            peakHeapMb = (peak - baseline) / (1024.0 * 1024.0);
+        }
+
+        private static long heapUsed() {
+            return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        // WebhookService печатает ход отправки - глушим, чтобы не мерить консоль
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        n8n = new MockN8nServer();
+
+        WebhookConfig config = new WebhookConfig();
+        ReflectionTestUtils.setField(config, "maxConnectionsPerHost", 50);
+        ReflectionTestUtils.setField(config, "pendingAcquireMax", 1000);
+        ReflectionTestUtils.setField(config, "connectTimeoutMs", 5000);
+        ReflectionTestUtils.setField(config, "readTimeoutMs", 120000L);
+        ReflectionTestUtils.setField(config, "maxIdleTimeMs", 30000L);
+        webClient = config.webhookWebClient();
+
+        webhookService = new WebhookService();
+        ReflectionTestUtils.setField(webhookService, "webhookWebClient", webClient);
+        ReflectionTestUtils.setField(webhookService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(webhookService, "analyzeCompetenciesUrl", n8n.url("analyze"));
+
+        file = Files.createTempFile("resume", ".pdf");
+        byte[] chunk = new byte[1024 * 1024];
+        Random random = new Random(42);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (int i = 0; i < fileSizeMb; i++) {
+                random.nextBytes(chunk);
+                out.write(chunk);
+            }
+        }
+        upload = new DiskMultipartFile(file, "resume.pdf", "application/pdf");
+        userId = UUID.randomUUID();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        n8n.close();
+        Files.deleteIfExists(file);
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public String streaming(HeapPeak heap) {
+        return webhookService.sendCompetencyAnalysisWebhookWithFiles(userId, "user@example.com", "User",
+                PROFILE_DATA, "Acme", List.of(upload));
+    }
+
+    @Benchmark
+    public String legacyInMemory(HeapPeak heap) throws IOException {
+        String base64Content = Base64.getEncoder().encodeToString(upload.getBytes());
+        String filesJson = String.format("""
+            [{
+                "originalFileName": "%s",
+                "size": %d,
+                "contentType": "%s",
+                "content": "%s"
+            }]
+            """, upload.getOriginalFilename(), upload.getSize(), upload.getContentType(), base64Content);
+        String payload = String.format("""
+            {
+                "action": "analyze_competencies",
+                "userId": "%s",
+                "userEmail": "%s",
+                "userName": "%s",
+                "profileData": %s,
+                "companyName": "%s",
+                "files": %s,
+                "timestamp": "%s"
+            }
+            """, userId, "user@example.com", "User", PROFILE_DATA, "Acme", filesJson, LocalDateTime.now());
+        return webClient.post()
+                .uri(n8n.url("analyze"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(payload)
+                .retrieve()
+                .bodyToMono(String.class)
+                .block();
+    }
+
+    /**
+     * Multipart-файл на диске - так Spring хранит загрузки больше file-size-threshold
+     */
+    private record DiskMultipartFile(Path path, String originalFilename, String contentType) implements MultipartFile {
+
+        @Override
+        public String getName() {
+            return "files";
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return originalFilename;
+        }
+
+        @Override
+        public String getContentType() {
+            return contentType;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return getSize() == 0;
+        }
+
+        @Override
+        public long getSize() {
+            try {
+                return Files.size(path);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public byte[] getBytes() throws IOException {
+            return Files.readAllBytes(path);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return Files.newInputStream(path);
+        }
+
+        @Override
+        public void transferTo(File dest) throws IOException {
+            Files.copy(path, dest.toPath());
+        }
+    }
+}
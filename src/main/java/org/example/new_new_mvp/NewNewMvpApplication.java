@@ -5,12 +5,14 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
 import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
 import org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(exclude = {
     HibernateJpaAutoConfiguration.class,
     DataSourceAutoConfiguration.class,
     JpaRepositoriesAutoConfiguration.class
 })
+@EnableScheduling
 public class NewNewMvpApplication {
 
     public static void main(String[] args) {
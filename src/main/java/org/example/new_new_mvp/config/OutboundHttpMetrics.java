@@ -0,0 +1,72 @@
+package org.example.new_new_mvp.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+
+import java.util.function.Function;
+
+/**
+ * Фильтры WebClient с тем, чего нет в наблюдении запроса: гистограмма размера ответа ({prefix}.response.size, байты)
+ * и счётчик ошибок ({prefix}.errors, тег error - HTTP статус >= 400 или класс исключения).
+ * Время и спаны пишут SupabaseClientObservationConvention / WebhookClientObservationConvention
+ */
+public class OutboundHttpMetrics {
+
+    private final MeterRegistry registry;
+
+    public OutboundHttpMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public ExchangeFilterFunction supabase() {
+        return filter("supabase", request -> Tags.of(
+                "table", SupabaseClientObservationConvention.table(request.url()),
+                "operation", SupabaseClientObservationConvention.operation(request)));
+    }
+
+    public ExchangeFilterFunction webhook() {
+        return filter("n8n.webhook", request -> Tags.of("endpoint", WebhookClientObservationConvention.endpoint(request)));
+    }
+
+    private ExchangeFilterFunction filter(String prefix, Function<ClientRequest, Tags> tagsOf) {
+        return (request, next) -> {
+            Tags tags = tagsOf.apply(request);
+            return next.exchange(request)
+                    .doOnError(error -> countError(prefix, tags, error.getClass().getSimpleName()))
+                    .map(response -> {
+                        if (response.statusCode().isError()) {
+                            countError(prefix, tags, String.valueOf(response.statusCode().value()));
+                        }
+                        // Тело считается по мере чтения: потоковые select'ы не буферизуются ради метрики
+                        long[] bytes = new long[1];
+                        return response.mutate()
+                                .body(body -> body
+                                        .doOnNext(buffer -> bytes[0] += buffer.readableByteCount())
+                                        .doOnComplete(() -> responseSize(prefix, tags).record(bytes[0])))
+                                .build();
+                    });
+        };
+    }
+
+    private DistributionSummary responseSize(String prefix, Tags tags) {
+        return DistributionSummary.builder(prefix + ".response.size")
+                .baseUnit("bytes")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(64.0)
+                .maximumExpectedValue(64.0 * 1024 * 1024)
+                .register(registry);
+    }
+
+    private void countError(String prefix, Tags tags, String error) {
+        Counter.builder(prefix + ".errors")
+                .tags(tags)
+                .tag("error", error)
+                .register(registry)
+                .increment();
+    }
+}
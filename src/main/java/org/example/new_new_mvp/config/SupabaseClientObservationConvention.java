@@ -0,0 +1,91 @@
+package org.example.new_new_mvp.config;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientRequestObservationContext;
+import org.springframework.web.reactive.function.client.DefaultClientRequestObservationConvention;
+
+import java.net.URI;
+
+/**
+ * Наблюдение за запросами к PostgREST: таймер supabase.requests и спан "supabase select users" с тегами
+ * table и operation (select, insert, update, delete, rpc). Тег uri и атрибут http.url - только путь:
+ * в query лежат фильтры с email'ами и кодами активации, им не место ни в метриках, ни в трейсах
+ */
+public class SupabaseClientObservationConvention extends DefaultClientRequestObservationConvention {
+
+    public static final String NAME = "supabase.requests";
+
+    private static final String REST_PREFIX = "/rest/v1/";
+
+    public SupabaseClientObservationConvention() {
+        super(NAME);
+    }
+
+    @Override
+    public String getContextualName(ClientRequestObservationContext context) {
+        ClientRequest request = context.getRequest();
+        return request != null ? "supabase " + operation(request) + " " + table(request.url()) : "supabase";
+    }
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(ClientRequestObservationContext context) {
+        ClientRequest request = context.getRequest();
+        return super.getLowCardinalityKeyValues(context).and(
+                KeyValue.of("table", request != null ? table(request.url()) : "none"),
+                KeyValue.of("operation", request != null ? operation(request) : "none"));
+    }
+
+    @Override
+    protected KeyValue uri(ClientRequestObservationContext context) {
+        ClientRequest request = context.getRequest();
+        return KeyValue.of("uri", request != null ? request.url().getPath() : "none");
+    }
+
+    @Override
+    protected KeyValue httpUrl(ClientRequestObservationContext context) {
+        ClientRequest request = context.getRequest();
+        return KeyValue.of("http.url", request != null ? withoutQuery(request.url()) : "none");
+    }
+
+    /**
+     * Таблица (или функция для rpc) из пути /rest/v1/{table}
+     */
+    static String table(URI url) {
+        String path = url.getPath();
+        int start = path.indexOf(REST_PREFIX);
+        String name = start >= 0 ? path.substring(start + REST_PREFIX.length()) : path.substring(path.lastIndexOf('/') + 1);
+        if (name.startsWith("rpc/")) {
+            name = name.substring("rpc/".length());
+        }
+        int slash = name.indexOf('/');
+        return name.isEmpty() ? "none" : slash > 0 ? name.substring(0, slash) : name;
+    }
+
+    // HEAD (count) - тоже чтение; upsert с on_conflict - POST, считается вставкой
+    static String operation(ClientRequest request) {
+        if (request.url().getPath().contains(REST_PREFIX + "rpc/")) {
+            return "rpc";
+        }
+        HttpMethod method = request.method();
+        if (HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method)) {
+            return "select";
+        }
+        if (HttpMethod.POST.equals(method)) {
+            return "insert";
+        }
+        if (HttpMethod.PATCH.equals(method) || HttpMethod.PUT.equals(method)) {
+            return "update";
+        }
+        if (HttpMethod.DELETE.equals(method)) {
+            return "delete";
+        }
+        return method.name().toLowerCase();
+    }
+
+    static String withoutQuery(URI url) {
+        return url.getScheme() + "://" + url.getAuthority() + url.getPath();
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.new_new_mvp.config;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientRequestObservationContext;
+import org.springframework.web.reactive.function.client.DefaultClientRequestObservationConvention;
+
+/**
+ * Задержка n8n webhook'ов: таймер n8n.webhook.requests с тегом endpoint - путь webhook'а
+ * (их немного, они заданы в настройках), по нему видно, какой workflow держит p99
+ */
+public class WebhookClientObservationConvention extends DefaultClientRequestObservationConvention {
+
+    public static final String NAME = "n8n.webhook.requests";
+
+    public WebhookClientObservationConvention() {
+        super(NAME);
+    }
+
+    @Override
+    public String getContextualName(ClientRequestObservationContext context) {
+        ClientRequest request = context.getRequest();
+        return request != null ? "n8n " + endpoint(request) : "n8n";
+    }
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(ClientRequestObservationContext context) {
+        ClientRequest request = context.getRequest();
+        return super.getLowCardinalityKeyValues(context)
+                .and(KeyValue.of("endpoint", request != null ? endpoint(request) : "none"));
+    }
+
+    // url webhook'а передаётся в .uri() целиком и иначе попал бы в тег uri как шаблон
+    @Override
+    protected KeyValue uri(ClientRequestObservationContext context) {
+        ClientRequest request = context.getRequest();
+        return KeyValue.of("uri", request != null ? endpoint(request) : "none");
+    }
+
+    @Override
+    protected KeyValue httpUrl(ClientRequestObservationContext context) {
+        ClientRequest request = context.getRequest();
+        return KeyValue.of("http.url", request != null
+                ? SupabaseClientObservationConvention.withoutQuery(request.url()) : "none");
+    }
+
+    static String endpoint(ClientRequest request) {
+        String path = request.url().getPath();
+        return path == null || path.isEmpty() ? "/" : path;
+    }
+}
@@ -0,0 +1,70 @@
+package org.example.new_new_mvp.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.observation.ObservationRegistry;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Общий HTTP клиент для n8n webhook'ов: keep-alive пул соединений (лимит на каждый хост),
+ * таймауты подключения и ответа, HTTP/2 через ALPN для https, HTTP/1.1 для остальных.
+ */
+@Configuration
+public class WebhookConfig {
+
+    // Reactor Netty держит отдельный пул на каждый удалённый адрес - лимит действует на хост
+    @Value("${webhook.http.max-connections-per-host:50}")
+    private int maxConnectionsPerHost;
+
+    @Value("${webhook.http.pending-acquire-max:1000}")
+    private int pendingAcquireMax;
+
+    @Value("${webhook.http.connect-timeout-ms:5000}")
+    private int connectTimeoutMs;
+
+    // n8n отвечает после выполнения workflow (анализ файлов, генерация профиля) - таймаут ответа большой
+    @Value("${webhook.http.read-timeout-ms:120000}")
+    private long readTimeoutMs;
+
+    @Value("${webhook.http.max-idle-time-ms:30000}")
+    private long maxIdleTimeMs;
+
+    @Autowired(required = false)
+    private ObservationRegistry observationRegistry = ObservationRegistry.NOOP;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+    @Bean
+    public WebClient webhookWebClient() {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("n8n-webhooks")
+                .maxConnections(maxConnectionsPerHost)
+                .pendingAcquireMaxCount(pendingAcquireMax)
+                .maxIdleTime(Duration.ofMillis(maxIdleTimeMs))
+                .build();
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .protocol(HttpProtocol.H2, HttpProtocol.HTTP11)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(readTimeoutMs));
+
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                // Задержка и ошибки по каждому webhook'у n8n; traceparent уходит в n8n вместе с запросом
+                .observationRegistry(observationRegistry)
+                .observationConvention(new WebhookClientObservationConvention())
+                .filter(new OutboundHttpMetrics(meterRegistry).webhook())
+                .build();
+    }
+}
@@ -7,10 +7,12 @@ import org.example.new_new_mvp.dto.LoginRequest;
 import org.example.new_new_mvp.dto.RegisterRequest;
 import org.example.new_new_mvp.model.User;
 import org.example.new_new_mvp.service.AuthService;
+import org.example.new_new_mvp.service.SupabaseAuthService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 import jakarta.validation.Valid;
 
@@ -22,6 +24,9 @@ public class AuthController {
     @Autowired
     private AuthService authService;
     
+    @Autowired
+    private SupabaseAuthService supabaseAuthService;
+    
     @PostMapping("/register")
     public ResponseEntity<AuthResponse> register(@Valid @RequestBody RegisterRequest request) {
         try {
@@ -51,17 +56,14 @@ public class AuthController {
     }
     
     @GetMapping("/me")
-    public ResponseEntity<User> getCurrentUser(Authentication authentication) {
-        try {
-            User user = authService.getCurrentUser(authentication.getName());
-            if (user != null) {
-                return ResponseEntity.ok(user);
-            } else {
-                return ResponseEntity.notFound().build();
-            }
-        } catch (Exception e) {
-            return ResponseEntity.notFound().build();
+    public Mono<ResponseEntity<User>> getCurrentUser(Authentication authentication) {
+        if (authentication == null) {
+            return Mono.just(ResponseEntity.notFound().build());
         }
+        return supabaseAuthService.getCurrentUser(authentication.getName())
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .onErrorResume(e -> Mono.just(ResponseEntity.notFound().build()));
     }
     
     /**
@@ -0,0 +1,39 @@
+package org.example.new_new_mvp.controller;
+
+import org.example.new_new_mvp.dto.CursorPage;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Заголовки постраничного ответа: тело остаётся массивом строк (как раньше), курсор продолжения -
+ * в X-Next-Cursor и Link rel="next". Нет заголовков - это последняя страница
+ */
+final class CursorPageResponses {
+
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private CursorPageResponses() {
+    }
+
+    /**
+     * URL текущего запроса - снимаем в потоке сервлета, до перехода в реактивную цепочку
+     */
+    static UriComponentsBuilder currentRequest() {
+        return ServletUriComponentsBuilder.fromCurrentRequest();
+    }
+
+    static HttpHeaders headers(CursorPage<?> page, UriComponentsBuilder request, int limit) {
+        HttpHeaders headers = new HttpHeaders();
+        if (page.isHasMore()) {
+            String next = request.cloneBuilder()
+                    .replaceQueryParam("after", page.getNextCursor())
+                    .replaceQueryParam("limit", limit)
+                    .build()
+                    .toUriString();
+            headers.set(NEXT_CURSOR_HEADER, page.getNextCursor());
+            headers.set(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return headers;
+    }
+}
@@ -7,10 +7,15 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/export")
@@ -105,4 +110,68 @@ public class ExportController {
             return ResponseEntity.badRequest().build();
         }
     }
+    
+    /**
+     * Потоковая выгрузка таблиц в ответ: format=ndjson|csv|sql, tables=users,companies (по умолчанию все,
+     * для csv - ровно одна), gzip=true - файл .gz. Память не зависит от размера таблиц, см. ExportService.streamExport
+     */
+    @GetMapping("/stream")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> exportStream(@RequestParam(defaultValue = "ndjson") String format,
+                                          @RequestParam(required = false) List<String> tables,
+                                          @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportService.ExportFormat exportFormat;
+        try {
+            exportFormat = ExportService.ExportFormat.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Unknown format: " + format));
+        }
+        List<String> exportTables = tables == null || tables.isEmpty()
+                ? new ArrayList<>(ExportService.STREAM_TABLES.keySet())
+                : tables;
+        for (String table : exportTables) {
+            if (!ExportService.STREAM_TABLES.containsKey(table)) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Unknown table: " + table));
+            }
+        }
+        if (exportFormat == ExportService.ExportFormat.CSV && exportTables.size() != 1) {
+            return ResponseEntity.badRequest().body(Map.of("error", "CSV export requires exactly one table"));
+        }
+        
+        String extension = switch (exportFormat) {
+            case NDJSON -> "ndjson";
+            case CSV -> "csv";
+            case SQL -> "sql";
+        };
+        MediaType contentType = switch (exportFormat) {
+            case NDJSON -> MediaType.parseMediaType("application/x-ndjson");
+            case CSV -> MediaType.parseMediaType("text/csv");
+            case SQL -> MediaType.TEXT_PLAIN;
+        };
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss"));
+        String filename = "evalyze_export_" + timestamp + "." + extension + (gzip ? ".gz" : "");
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(gzip ? MediaType.parseMediaType("application/gzip") : contentType);
+        headers.setContentDispositionFormData("attachment", filename);
+        
+        System.out.println("Streaming export: format=" + exportFormat + ", tables=" + exportTables + ", gzip=" + gzip);
+        StreamingResponseBody body = out -> {
+            try {
+                OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+                exportService.streamExport(exportTables, exportFormat, target);
+                if (target instanceof GZIPOutputStream gzipOut) {
+                    gzipOut.finish();
+                }
+            } catch (Exception e) {
+                // заголовки уже отправлены - клиент увидит оборванный файл
+                System.out.println("Error streaming export: " + e.getMessage());
+                e.printStackTrace();
+                throw e;
+            }
+        };
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(body);
+    }
 }
@@ -0,0 +1,174 @@
+package org.example.new_new_mvp.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Отдача файла с диска без чтения в память: ETag / If-None-Match (304), один диапазон Range (206, 416),
+ * точный Content-Length. Тело отдаёт Tomcat через sendfile (файл -> сокет в ядре), если коннектор его
+ * поддерживает, иначе FileChannel.transferTo кусками через буфер постоянного размера.
+ * Несколько диапазонов в одном Range игнорируются - отдаётся весь файл (RFC 9110 это допускает)
+ */
+final class FileDownloads {
+
+    // Атрибуты запроса Tomcat (org.apache.catalina.Globals.SENDFILE_*), end - не включительно
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Как у DefaultServlet Tomcat: мелкие файлы быстрее записать обычным путём
+    private static final long SENDFILE_MIN_BYTES = 48 * 1024;
+
+    private FileDownloads() {
+    }
+
+    /**
+     * Сильный ETag из sha256 содержимого (blob'ы ContentAddressedFileStore)
+     */
+    static String strongETag(String contentHash) {
+        return "\"" + contentHash + "\"";
+    }
+
+    /**
+     * Слабый ETag для файлов без хэша: размер и время изменения. Для If-Range не подходит - там только сильные
+     */
+    static String weakETag(Path file) throws IOException {
+        return "W/\"" + Long.toHexString(Files.size(file)) + "-"
+                + Long.toHexString(Files.getLastModifiedTime(file).toMillis()) + "\"";
+    }
+
+    static void send(HttpServletRequest request, HttpServletResponse response, Path file, String eTag,
+                     String fileName, String contentType) throws IOException {
+        long size = Files.size(file);
+
+        response.setHeader(HttpHeaders.ETAG, eTag);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+
+        if (noneMatch(request.getHeader(HttpHeaders.IF_NONE_MATCH), eTag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = size - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && ifRangeMatches(request.getHeader(HttpHeaders.IF_RANGE), eTag)) {
+            long[] bounds = parseRange(range, size);
+            if (bounds == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (bounds.length == 2) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            }
+        }
+        long length = end - start + 1;
+
+        response.setContentType(contentType);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(fileName, StandardCharsets.UTF_8).build().toString());
+        response.setContentLengthLong(length);
+        if ("HEAD".equals(request.getMethod()) || length == 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED)) && length >= SENDFILE_MIN_BYTES) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    throw new IOException("File truncated while sending: " + file.getFileName());
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    /**
+     * Один диапазон bytes=a-b, bytes=a- или bytes=-n: {start, end} включительно; пустой массив - заголовок
+     * не разобран, b < a или диапазонов несколько (отдаём весь файл); null - диапазон вне файла (416)
+     */
+    static long[] parseRange(String header, long size) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || size == 0) {
+                    return null;
+                }
+                return new long[]{Math.max(0, size - suffix), size - 1};
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+            // b < a - синтаксически неверный диапазон: по RFC 9110 заголовок игнорируется, а не 416
+            if (end < start) {
+                return new long[0];
+            }
+            if (start >= size) {
+                return null;
+            }
+            return new long[]{start, Math.min(end, size - 1)};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    // If-None-Match сравнивается слабо: W/"x" совпадает с "x"
+    private static boolean noneMatch(String header, String eTag) {
+        if (header == null) {
+            return false;
+        }
+        String opaque = opaque(eTag);
+        for (String candidate : header.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || opaque(value).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // If-Range - только сильное совпадение; дата вместо ETag не поддерживается, отдаём весь файл
+    private static boolean ifRangeMatches(String header, String eTag) {
+        return header == null || (!eTag.startsWith("W/") && header.trim().equals(eTag));
+    }
+
+    private static String opaque(String eTag) {
+        return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    }
+}
@@ -1,12 +1,17 @@
 package org.example.new_new_mvp.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.new_new_mvp.dto.FileUploadResponse;
 import org.example.new_new_mvp.model.FileUpload;
 import org.example.new_new_mvp.model.User;
+import org.example.new_new_mvp.model.WebhookJob;
+import org.example.new_new_mvp.model.WebhookType;
 import org.example.new_new_mvp.service.FileUploadService;
 import org.example.new_new_mvp.service.ProfileService;
+import org.example.new_new_mvp.service.WebhookOutboxService;
 import org.example.new_new_mvp.service.WebhookService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -32,6 +37,7 @@ public class FileUploadController {
     
     private final FileUploadService fileUploadService;
     private final WebhookService webhookService;
+    private final WebhookOutboxService webhookOutboxService;
     private final ProfileService profileService;
     private final org.example.new_new_mvp.repository.UserRepository userRepository;
     
@@ -70,50 +76,41 @@ public class FileUploadController {
                     .body(Map.of("error", "No files provided"));
             }
             
-            // ОТПРАВЛЯЕМ ФАЙЛЫ НАПРЯМУЮ В N8N
-            try {
-                String profileData = profileService.getProfileByUserId(user.getId())
-                    .map(profile -> profile.getProfileData() != null ? profile.getProfileData().toString() : "{}")
-                    .orElse("{}");
-                
-                // Отправляем webhook с ФАЙЛАМИ напрямую
-                webhookService.sendCompetencyAnalysisWebhookWithFiles(
-                    user.getId(),
-                    user.getEmail(),
-                    user.getFullName(),
-                    profileData,
-                    user.getCompany() != null ? user.getCompany().getName() : null,
-                    fileList  // Передаем сами файлы
-                );
-                log.info("Competency analysis webhook sent for user: {} with {} files", user.getEmail(), fileList.size());
-                
-                // Возвращаем успешный ответ с информацией о файлах
-                List<Map<String, Object>> responses = new java.util.ArrayList<>();
-                for (int i = 0; i < fileList.size(); i++) {
-                    Map<String, Object> fileResponse = new java.util.HashMap<>();
-                    fileResponse.put("id", java.util.UUID.randomUUID().toString());  // Генерируем фейковый ID
-                    fileResponse.put("originalFileName", fileList.get(i).getOriginalFilename());
-                    fileResponse.put("fileSize", fileList.get(i).getSize());
-                    fileResponse.put("uploadedAt", java.time.LocalDateTime.now().toString());
-                    responses.add(fileResponse);
-                }
-                
-                return ResponseEntity.ok(responses);
-                
-            } catch (Exception webhookException) {
-                log.error("Error sending competency analysis webhook: {}", webhookException.getMessage(), webhookException);
-                // Даже если webhook не отправился, возвращаем успех для фронтенда
-                List<Map<String, Object>> responses = new java.util.ArrayList<>();
-                for (MultipartFile file : fileList) {
-                    Map<String, Object> fileResponse = new java.util.HashMap<>();
-                    fileResponse.put("id", java.util.UUID.randomUUID().toString());
-                    fileResponse.put("originalFileName", file.getOriginalFilename());
-                    fileResponse.put("fileSize", file.getSize());
-                    responses.add(fileResponse);
-                }
-                return ResponseEntity.ok(responses);
+            // СТАВИМ ФАЙЛЫ В OUTBOX: в n8n их отправит WebhookDispatcher, пользователь не ждёт ответа n8n
+            String profileData = profileService.getProfileByUserId(user.getId())
+                .map(profile -> profile.getProfileData() != null ? profile.getProfileData().toString() : "{}")
+                .orElse("{}");
+            
+            List<Map<String, Object>> attachments = webhookOutboxService.spool(fileList);
+            String payload = webhookService.buildCompetencyAnalysisPayload(
+                user.getId(),
+                user.getEmail(),
+                user.getFullName(),
+                profileData,
+                user.getCompany() != null ? user.getCompany().getName() : null
+            );
+            String idempotencyKey = WebhookOutboxService.idempotencyKey(WebhookType.ANALYZE_COMPETENCIES,
+                user.getId(), attachments.stream().map(a -> a.get("sha256")).collect(Collectors.toList()));
+            WebhookJob job = webhookOutboxService.enqueue(WebhookType.ANALYZE_COMPETENCIES, user.getId(), payload, attachments, idempotencyKey)
+                .block();
+            log.info("Competency analysis webhook queued for user: {} with {} files, job {}", user.getEmail(), fileList.size(), job.getId());
+            
+            // Возвращаем информацию о файлах и id задания для опроса статуса
+            List<Map<String, Object>> responses = new java.util.ArrayList<>();
+            for (MultipartFile file : fileList) {
+                Map<String, Object> fileResponse = new java.util.HashMap<>();
+                fileResponse.put("id", java.util.UUID.randomUUID().toString());  // Генерируем фейковый ID
+                fileResponse.put("originalFileName", file.getOriginalFilename());
+                fileResponse.put("fileSize", file.getSize());
+                fileResponse.put("uploadedAt", java.time.LocalDateTime.now().toString());
+                fileResponse.put("jobId", job.getId().toString());
+                responses.add(fileResponse);
             }
             
+            return ResponseEntity.accepted()
+                .location(java.net.URI.create("/api/webhook-jobs/" + job.getId()))
+                .body(responses);
+            
         } catch (Exception e) {
             log.error("Error uploading files", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -183,8 +180,13 @@ public class FileUploadController {
         }
     }
     
+    /**
+     * Скачивание без загрузки файла в память, с Range и ETag (см. FileDownloads).
+     * При успехе ответ уже записан в response - возвращается null
+     */
     @GetMapping("/download/{fileId}")
-    public ResponseEntity<?> downloadFile(@PathVariable UUID fileId, Authentication authentication) {
+    public ResponseEntity<?> downloadFile(@PathVariable UUID fileId, Authentication authentication,
+                                          HttpServletRequest request, HttpServletResponse response) {
         try {
             String userEmail = authentication.getName();
             User user = userRepository.findByEmail(userEmail)
@@ -200,14 +202,18 @@ public class FileUploadController {
                 return ResponseEntity.notFound().build();
             }
             
-            byte[] fileContent = Files.readAllBytes(filePath);
-            
-            return ResponseEntity.ok()
-                .header("Content-Disposition", "attachment; filename=\"" + file.getOriginalFileName() + "\"")
-                .header("Content-Type", file.getMimeType())
-                .body(fileContent);
+            String eTag = file.getContentHash() != null
+                ? FileDownloads.strongETag(file.getContentHash())
+                : FileDownloads.weakETag(filePath);
+            FileDownloads.send(request, response, filePath, eTag, file.getOriginalFileName(), file.getMimeType());
+            return null;
             
         } catch (IOException e) {
+            if (response.isCommitted()) {
+                // Клиент оборвал загрузку (докачка продолжит с Range) - ответ уже не изменить
+                log.debug("Download of {} aborted: {}", fileId, e.getMessage());
+                return null;
+            }
             log.error("Error downloading file", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body("Error downloading file: " + e.getMessage());
@@ -261,28 +267,32 @@ public class FileUploadController {
     @GetMapping("/temp/{userId}/{fileName}")
     public ResponseEntity<?> downloadTempFile(
             @PathVariable String userId,
-            @PathVariable String fileName) {
+            @PathVariable String fileName,
+            HttpServletRequest request,
+            HttpServletResponse response) {
         try {
-            java.nio.file.Path filePath = java.nio.file.Paths.get("./uploads/temp/" + userId + "/" + fileName);
+            Path tempRoot = Paths.get("./uploads/temp").toAbsolutePath().normalize();
+            Path filePath = tempRoot.resolve(userId).resolve(fileName).normalize();
             
-            if (!java.nio.file.Files.exists(filePath)) {
+            // userId = ".." вывел бы за пределы uploads/temp
+            if (!filePath.startsWith(tempRoot) || !Files.isRegularFile(filePath)) {
                 return ResponseEntity.notFound().build();
             }
             
-            byte[] fileContent = java.nio.file.Files.readAllBytes(filePath);
-            
             // Определяем content type
-            String contentType = java.nio.file.Files.probeContentType(filePath);
+            String contentType = Files.probeContentType(filePath);
             if (contentType == null) {
                 contentType = "application/octet-stream";
             }
             
-            return ResponseEntity.ok()
-                .header("Content-Disposition", "attachment; filename=\"" + fileName + "\"")
-                .header("Content-Type", contentType)
-                .body(fileContent);
+            FileDownloads.send(request, response, filePath, FileDownloads.weakETag(filePath), fileName, contentType);
+            return null;
             
         } catch (Exception e) {
+            if (response.isCommitted()) {
+                log.debug("Download of temp file {} aborted: {}", fileName, e.getMessage());
+                return null;
+            }
             log.error("Error downloading temp file", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body("Error downloading file: " + e.getMessage());
@@ -1,5 +1,8 @@
 package org.example.new_new_mvp.controller;
 
+import org.example.new_new_mvp.service.SupabaseReadCache;
+import org.example.new_new_mvp.service.SupabaseSingleFlight;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,6 +20,12 @@ public class HealthController {
     @Value("${supabase.url}")
     private String supabaseUrl;
 
+    @Autowired
+    private SupabaseReadCache readCache;
+
+    @Autowired
+    private SupabaseSingleFlight singleFlight;
+
     @GetMapping
     public ResponseEntity<Map<String, Object>> health() {
         Map<String, Object> response = new HashMap<>();
@@ -38,5 +47,13 @@ public class HealthController {
         response.put("timestamp", LocalDateTime.now());
         return ResponseEntity.ok(response);
     }
-}
 
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> cache() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("tables", readCache.stats());
+        response.put("singleFlight", singleFlight.stats());
+        response.put("timestamp", LocalDateTime.now());
+        return ResponseEntity.ok(response);
+    }
+}
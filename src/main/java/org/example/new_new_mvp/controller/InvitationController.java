@@ -2,9 +2,11 @@ package org.example.new_new_mvp.controller;
 
 import org.example.new_new_mvp.dto.AcceptInvitationRequest;
 import org.example.new_new_mvp.dto.CreateInvitationRequest;
+import org.example.new_new_mvp.dto.CursorPage;
 import org.example.new_new_mvp.dto.InvitationDto;
 import org.example.new_new_mvp.service.InvitationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -21,6 +23,12 @@ public class InvitationController {
     @Autowired
     private InvitationService invitationService;
     
+    @Value("${app.pagination.default-limit:100}")
+    private int defaultPageSize;
+    
+    @Value("${app.pagination.max-limit:500}")
+    private int maxPageSize;
+    
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<InvitationDto> createInvitation(@Valid @RequestBody CreateInvitationRequest request) {
@@ -34,9 +42,14 @@ public class InvitationController {
     
     @GetMapping("/company/{companyId}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<InvitationDto>> getCompanyInvitations(@PathVariable UUID companyId) {
-        List<InvitationDto> invitations = invitationService.getCompanyInvitations(companyId);
-        return ResponseEntity.ok(invitations);
+    public ResponseEntity<List<InvitationDto>> getCompanyInvitations(@PathVariable UUID companyId,
+                                                                     @RequestParam(required = false) Integer limit,
+                                                                     @RequestParam(required = false) UUID after) {
+        int pageSize = CursorPage.clampLimit(limit, defaultPageSize, maxPageSize);
+        CursorPage<InvitationDto> page = invitationService.getCompanyInvitationsPage(companyId, after, pageSize);
+        return ResponseEntity.ok()
+                .headers(CursorPageResponses.headers(page, CursorPageResponses.currentRequest(), pageSize))
+                .body(page.getItems());
     }
     
     @GetMapping("/company/{companyId}/pending")
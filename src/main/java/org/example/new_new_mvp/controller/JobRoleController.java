@@ -2,10 +2,11 @@ package org.example.new_new_mvp.controller;
 
 import org.example.new_new_mvp.dto.JobRoleDto;
 import org.example.new_new_mvp.model.JobRole;
-import org.example.new_new_mvp.repository.JobRoleRepositoryAdapter;
+import org.example.new_new_mvp.repository.JobRoleRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 import java.util.UUID;
@@ -16,61 +17,60 @@ import java.util.stream.Collectors;
 @CrossOrigin(origins = "*")
 public class JobRoleController {
     
-    private final JobRoleRepositoryAdapter jobRoleRepository;
+    private final JobRoleRepository jobRoleRepository;
     
     @Autowired
-    public JobRoleController(JobRoleRepositoryAdapter jobRoleRepository) {
+    public JobRoleController(JobRoleRepository jobRoleRepository) {
         this.jobRoleRepository = jobRoleRepository;
     }
     
     @GetMapping
-    public ResponseEntity<List<JobRoleDto>> getAllJobRoles() {
-        try {
-            System.out.println("Getting all job roles...");
-            List<JobRole> jobRoles = jobRoleRepository.findAll();
-            System.out.println("Found " + jobRoles.size() + " job roles");
-            
-            List<JobRoleDto> dtos = jobRoles.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
-            
-            System.out.println("Converted to " + dtos.size() + " DTOs");
-            return ResponseEntity.ok(dtos);
-        } catch (org.springframework.web.reactive.function.client.WebClientResponseException.Forbidden e) {
-            System.err.println("403 Forbidden: " + e.getMessage());
-            System.err.println("Response body: " + e.getResponseBodyAsString());
-            return ResponseEntity.status(403).build();
-        } catch (Exception e) {
-            System.err.println("Error getting job roles: " + e.getMessage());
-            e.printStackTrace();
-            return ResponseEntity.internalServerError().build();
-        }
+    public Mono<ResponseEntity<List<JobRoleDto>>> getAllJobRoles() {
+        System.out.println("Getting all job roles...");
+        return jobRoleRepository.findAll()
+            .map(jobRoles -> {
+                System.out.println("Found " + jobRoles.size() + " job roles");
+                List<JobRoleDto> dtos = toDtos(jobRoles);
+                System.out.println("Converted to " + dtos.size() + " DTOs");
+                return ResponseEntity.ok(dtos);
+            })
+            .onErrorResume(org.springframework.web.reactive.function.client.WebClientResponseException.Forbidden.class, e -> {
+                System.err.println("403 Forbidden: " + e.getMessage());
+                System.err.println("Response body: " + e.getResponseBodyAsString());
+                return Mono.just(ResponseEntity.status(403).build());
+            })
+            .onErrorResume(e -> {
+                System.err.println("Error getting job roles: " + e.getMessage());
+                e.printStackTrace();
+                return Mono.just(ResponseEntity.internalServerError().build());
+            });
     }
     
     @GetMapping("/by-company/{companyId}")
-    public ResponseEntity<List<JobRoleDto>> getJobRolesByCompany(@PathVariable UUID companyId) {
-        List<JobRole> jobRoles = jobRoleRepository.findByCompanyId(companyId);
-        List<JobRoleDto> dtos = jobRoles.stream()
-            .map(this::convertToDto)
-            .collect(Collectors.toList());
-        return ResponseEntity.ok(dtos);
+    public Mono<ResponseEntity<List<JobRoleDto>>> getJobRolesByCompany(@PathVariable UUID companyId) {
+        return jobRoleRepository.findByCompanyId(companyId)
+            .map(jobRoles -> ResponseEntity.ok(toDtos(jobRoles)));
     }
     
     @GetMapping("/by-type/{roleType}")
-    public ResponseEntity<List<JobRoleDto>> getJobRolesByType(@PathVariable String roleType) {
-        List<JobRole> jobRoles = jobRoleRepository.findByRoleType(roleType);
-        List<JobRoleDto> dtos = jobRoles.stream()
-            .map(this::convertToDto)
-            .collect(Collectors.toList());
-        return ResponseEntity.ok(dtos);
+    public Mono<ResponseEntity<List<JobRoleDto>>> getJobRolesByType(@PathVariable String roleType) {
+        return jobRoleRepository.findByRoleType(roleType)
+            .map(jobRoles -> ResponseEntity.ok(toDtos(jobRoles)));
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<JobRoleDto> getJobRoleById(@PathVariable UUID id) {
+    public Mono<ResponseEntity<JobRoleDto>> getJobRoleById(@PathVariable UUID id) {
         return jobRoleRepository.findById(id)
+            .map(jobRole -> jobRole
+                .map(this::convertToDto)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build()));
+    }
+    
+    private List<JobRoleDto> toDtos(List<JobRole> jobRoles) {
+        return jobRoles.stream()
             .map(this::convertToDto)
-            .map(ResponseEntity::ok)
-            .orElse(ResponseEntity.notFound().build());
+            .collect(Collectors.toList());
     }
     
     private JobRoleDto convertToDto(JobRole role) {
@@ -1,14 +1,31 @@
 package org.example.new_new_mvp.controller;
 
+import org.example.new_new_mvp.dto.BulkJobRoleAssignmentRequest;
+import org.example.new_new_mvp.dto.BulkJobRoleAssignmentResult;
+import org.example.new_new_mvp.dto.CursorPage;
 import org.example.new_new_mvp.dto.ProfileDto;
 import org.example.new_new_mvp.dto.CreateProfileRequest;
 import org.example.new_new_mvp.model.ProfileStatus;
+import org.example.new_new_mvp.model.User;
+import org.example.new_new_mvp.repository.SupabaseUserRepository;
+import org.example.new_new_mvp.service.EmployeeImportService;
+import org.example.new_new_mvp.service.JobRoleAssignmentService;
 import org.example.new_new_mvp.service.ProfileService;
+import org.example.new_new_mvp.service.SupabaseProfileService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.UUID;
 
@@ -20,6 +37,24 @@ public class ProfileController {
     @Autowired
     private ProfileService profileService;
     
+    @Autowired
+    private SupabaseProfileService supabaseProfileService;
+    
+    @Autowired
+    private EmployeeImportService employeeImportService;
+    
+    @Autowired
+    private JobRoleAssignmentService jobRoleAssignmentService;
+    
+    @Autowired
+    private SupabaseUserRepository supabaseUserRepository;
+    
+    @Value("${app.pagination.default-limit:100}")
+    private int defaultPageSize;
+    
+    @Value("${app.pagination.max-limit:500}")
+    private int maxPageSize;
+    
     @PostMapping("/user/{userId}")
     @PreAuthorize("hasRole('EMPLOYEE') or hasRole('ADMIN')")
     public ResponseEntity<ProfileDto> createOrUpdateProfile(
@@ -34,24 +69,33 @@ public class ProfileController {
     }
     
     @GetMapping("/user/{userId}")
-    public ResponseEntity<ProfileDto> getProfileByUserId(@PathVariable UUID userId) {
-        return profileService.getProfileByUserId(userId)
-                .map(profile -> ResponseEntity.ok(profile))
-                .orElse(ResponseEntity.notFound().build());
+    public Mono<ResponseEntity<ProfileDto>> getProfileByUserId(@PathVariable UUID userId) {
+        return supabaseProfileService.getProfileByUserId(userId)
+                .map(profile -> profile.map(ResponseEntity::ok)
+                        .orElse(ResponseEntity.notFound().build()));
     }
     
+    /**
+     * Профили компании постранично: ?limit=&after=, курсор следующей страницы - в заголовке X-Next-Cursor
+     */
     @GetMapping("/company/{companyId}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<ProfileDto>> getCompanyProfiles(@PathVariable UUID companyId) {
-        List<ProfileDto> profiles = profileService.getCompanyProfiles(companyId);
-        return ResponseEntity.ok(profiles);
+    public Mono<ResponseEntity<List<ProfileDto>>> getCompanyProfiles(@PathVariable UUID companyId,
+                                                                     @RequestParam(required = false) Integer limit,
+                                                                     @RequestParam(required = false) UUID after) {
+        int pageSize = CursorPage.clampLimit(limit, defaultPageSize, maxPageSize);
+        UriComponentsBuilder request = CursorPageResponses.currentRequest();
+        return supabaseProfileService.getCompanyProfilesPage(companyId, after, pageSize)
+                .map(page -> ResponseEntity.ok()
+                        .headers(CursorPageResponses.headers(page, request, pageSize))
+                        .body(page.getItems()));
     }
     
     @GetMapping("/status/{status}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<ProfileDto>> getProfilesByStatus(@PathVariable ProfileStatus status) {
-        List<ProfileDto> profiles = profileService.getProfilesByStatus(status);
-        return ResponseEntity.ok(profiles);
+    public Mono<ResponseEntity<List<ProfileDto>>> getProfilesByStatus(@PathVariable ProfileStatus status) {
+        return supabaseProfileService.getProfilesByStatus(status)
+                .map(ResponseEntity::ok);
     }
     
     @PutMapping("/user/{userId}/status/{status}")
@@ -74,29 +118,29 @@ public class ProfileController {
     }
     
     @GetMapping("/search")
-    public ResponseEntity<?> searchProfileByEmail(@RequestParam String email) {
-        try {
-            System.out.println("Search request for email: " + email);
-            var profile = profileService.findProfileByEmail(email);
-            if (profile != null) {
-                System.out.println("Profile found, returning to client");
-                return ResponseEntity.ok().body(profile);
-            } else {
-                System.out.println("Profile not found");
-                return ResponseEntity.notFound().build();
-            }
-        } catch (Exception e) {
-            System.out.println("Error searching profile: " + e.getMessage());
-            e.printStackTrace();
-            
-            // Return proper JSON error response
-            java.util.Map<String, Object> errorResponse = new java.util.HashMap<>();
-            errorResponse.put("error", "Error searching profile");
-            errorResponse.put("message", e.getMessage());
-            errorResponse.put("status", "error");
-            
-            return ResponseEntity.badRequest().body(errorResponse);
-        }
+    public Mono<ResponseEntity<Object>> searchProfileByEmail(@RequestParam String email) {
+        System.out.println("Search request for email: " + email);
+        return supabaseProfileService.findProfileByEmail(email)
+                .map(profile -> {
+                    System.out.println("Profile found, returning to client");
+                    return ResponseEntity.ok().body(profile);
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    System.out.println("Profile not found");
+                    return ResponseEntity.notFound().build();
+                }))
+                .onErrorResume(e -> {
+                    System.out.println("Error searching profile: " + e.getMessage());
+                    e.printStackTrace();
+                    
+                    // Return proper JSON error response
+                    java.util.Map<String, Object> errorResponse = new java.util.HashMap<>();
+                    errorResponse.put("error", "Error searching profile");
+                    errorResponse.put("message", e.getMessage());
+                    errorResponse.put("status", "error");
+                    
+                    return Mono.just(ResponseEntity.badRequest().body(errorResponse));
+                });
     }
     
     @PostMapping("/create")
@@ -121,19 +165,47 @@ public class ProfileController {
         }
     }
     
-    @GetMapping("/all")
-    public ResponseEntity<List<?>> getAllProfiles() {
+    /**
+     * Массовый импорт сотрудников: тело - CSV с заголовком (Content-Type: text/csv или ?format=csv)
+     * или NDJSON, по объекту CreateProfileRequest на строку. Ответ - счётчики и результат каждой строки.
+     * Доступ - COMPANY и ADMIN, правило в SecurityConfig
+     */
+    @PostMapping("/import")
+    public Mono<ResponseEntity<Object>> importEmployees(InputStream body,
+                                                        @RequestParam(required = false) String format,
+                                                        @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType) {
         try {
-            System.out.println("Getting all profiles");
-            List<?> profiles = profileService.getAllProfiles();
-            System.out.println("Found " + profiles.size() + " profiles");
-            return ResponseEntity.ok(profiles);
-        } catch (Exception e) {
-            System.out.println("Error getting all profiles: " + e.getMessage());
-            return ResponseEntity.badRequest().build();
+            return employeeImportService.importEmployees(body, EmployeeImportService.detectFormat(format, contentType))
+                    .map(result -> ResponseEntity.ok().<Object>body(result));
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Error importing employees: " + e.getMessage());
+            java.util.Map<String, Object> errorResponse = new java.util.HashMap<>();
+            errorResponse.put("error", "Error importing employees");
+            errorResponse.put("message", e.getMessage());
+            errorResponse.put("status", "error");
+            return Mono.just(ResponseEntity.badRequest().body(errorResponse));
         }
     }
     
+    @GetMapping("/all")
+    public Mono<ResponseEntity<List<?>>> getAllProfiles(@RequestParam(required = false) Integer limit,
+                                                        @RequestParam(required = false) UUID after) {
+        System.out.println("Getting all profiles");
+        int pageSize = CursorPage.clampLimit(limit, defaultPageSize, maxPageSize);
+        UriComponentsBuilder request = CursorPageResponses.currentRequest();
+        return supabaseProfileService.getAllProfilesPage(after, pageSize)
+                .<ResponseEntity<List<?>>>map(page -> {
+                    System.out.println("Found " + page.getItems().size() + " profiles");
+                    return ResponseEntity.ok()
+                            .headers(CursorPageResponses.headers(page, request, pageSize))
+                            .body(page.getItems());
+                })
+                .onErrorResume(e -> {
+                    System.out.println("Error getting all profiles: " + e.getMessage());
+                    return Mono.just(ResponseEntity.badRequest().build());
+                });
+    }
+    
     @PostMapping("/generate-ai/{profileId}")
     public ResponseEntity<?> generateAIProfile(@PathVariable UUID profileId, @RequestBody(required = false) java.util.Map<String, String> body) {
         try {
@@ -141,8 +213,9 @@ public class ProfileController {
             String activationCode = body != null ? body.get("activationCode") : null;
             String email = body != null ? body.get("email") : null;
             var result = profileService.generateAIProfile(profileId, activationCode, email);
-            System.out.println("AI profile generation initiated successfully");
-            return ResponseEntity.ok().body(result);
+            System.out.println("AI profile generation queued");
+            // Webhook отправляется в фоне, статус - GET /api/webhook-jobs/{jobId}
+            return ResponseEntity.accepted().body(result);
         } catch (Exception e) {
             System.out.println("Error generating AI profile: " + e.getMessage());
             e.printStackTrace();
@@ -196,6 +269,41 @@ public class ProfileController {
         }
     }
 
+    /**
+     * Массовое назначение ролей: {"assignments": [{"userId": ..., "jobRoleId": ...}, ...]}.
+     * Ответ - счётчики и исход по каждому пользователю. Доступ - COMPANY и ADMIN (SecurityConfig),
+     * COMPANY назначает роли только сотрудникам своей компании
+     */
+    @PostMapping("/assign-roles")
+    public Mono<ResponseEntity<Object>> assignJobRoles(@RequestBody BulkJobRoleAssignmentRequest request,
+                                                       Authentication authentication) {
+        return currentUser(authentication)
+                .flatMap(requester -> jobRoleAssignmentService.assignAll(request.getAssignments(), requester))
+                .map(result -> ResponseEntity.ok().<Object>body(result))
+                .onErrorResume(IllegalArgumentException.class, e -> {
+                    java.util.Map<String, Object> errorResponse = new java.util.HashMap<>();
+                    errorResponse.put("error", "Error assigning job roles");
+                    errorResponse.put("message", e.getMessage());
+                    errorResponse.put("status", "error");
+                    return Mono.just(ResponseEntity.badRequest().body(errorResponse));
+                });
+    }
+    
+    /**
+     * То же с прогрессом: NDJSON, строка на пользователя по мере обработки пачек (processed/total в строке)
+     */
+    @PostMapping(value = "/assign-roles/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BulkJobRoleAssignmentResult.Outcome> assignJobRolesStream(@RequestBody BulkJobRoleAssignmentRequest request,
+                                                                          Authentication authentication) {
+        return currentUser(authentication)
+                .flatMapMany(requester -> jobRoleAssignmentService.assign(request.getAssignments(), requester));
+    }
+    
+    private Mono<User> currentUser(Authentication authentication) {
+        return supabaseUserRepository.findByEmail(authentication.getName())
+                .map(user -> user.orElseThrow(() -> new IllegalArgumentException("User not found: " + authentication.getName())));
+    }
+    
     @PostMapping("/assign-role")
     public ResponseEntity<?> assignJobRoleFlexible(@RequestBody java.util.Map<String, String> body) {
         try {
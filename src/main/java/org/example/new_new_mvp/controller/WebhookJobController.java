@@ -0,0 +1,72 @@
+package org.example.new_new_mvp.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.new_new_mvp.model.WebhookJob;
+import org.example.new_new_mvp.repository.SupabaseUserRepository;
+import org.example.new_new_mvp.service.WebhookOutboxService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Статус webhook-задания из outbox - для опроса фронтендом после ответа 202.
+ * В ответе n8n анализ резюме/профиля, поэтому задание видит только поставивший его пользователь и ADMIN;
+ * остальным - 404, как будто задания нет
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/webhook-jobs")
+public class WebhookJobController {
+
+    @Autowired
+    private WebhookOutboxService webhookOutboxService;
+
+    @Autowired
+    private SupabaseUserRepository supabaseUserRepository;
+
+    @GetMapping("/{jobId}")
+    public Mono<ResponseEntity<?>> getJob(@PathVariable UUID jobId, Authentication authentication) {
+        boolean admin = authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+        return webhookOutboxService.findJob(jobId)
+                .flatMap(job -> job.isEmpty() || admin
+                        ? Mono.just(job)
+                        : supabaseUserRepository.findByEmail(authentication.getName())
+                                .map(requester -> job.filter(found -> requester
+                                        .map(user -> user.getId().equals(found.getOwnerId()))
+                                        .orElse(false))))
+                .<ResponseEntity<?>>map(job -> job
+                        .<ResponseEntity<?>>map(found -> ResponseEntity.ok(toResponse(found)))
+                        .orElseGet(() -> ResponseEntity.notFound().build()))
+                .onErrorResume(e -> {
+                    log.warn("Error getting webhook job {}: {}", jobId, e.getMessage());
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                            .body(Map.of("error", "Error getting webhook job: " + e.getMessage())));
+                });
+    }
+
+    // Без payload и путей к файлам: в них персональные данные пользователя
+    private Map<String, Object> toResponse(WebhookJob job) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("jobId", job.getId());
+        response.put("type", job.getWebhookType());
+        response.put("status", job.getStatus());
+        response.put("attempts", job.getAttempts());
+        response.put("nextAttemptAt", job.getNextAttemptAt());
+        response.put("lastError", job.getLastError());
+        response.put("response", job.getResponse());
+        response.put("createdAt", job.getCreatedAt());
+        response.put("updatedAt", job.getUpdatedAt());
+        return response;
+    }
+}
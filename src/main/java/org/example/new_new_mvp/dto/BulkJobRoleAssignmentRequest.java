@@ -0,0 +1,27 @@
+package org.example.new_new_mvp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Массовое назначение ролей: пары пользователь -> роль (реорганизация, сотни пользователей за раз)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkJobRoleAssignmentRequest {
+
+    private List<Assignment> assignments;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Assignment {
+        private UUID userId;
+        private UUID jobRoleId;
+    }
+}
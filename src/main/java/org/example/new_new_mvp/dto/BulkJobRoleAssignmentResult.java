@@ -0,0 +1,44 @@
+package org.example.new_new_mvp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Итог массового назначения ролей и исход по каждому пользователю
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkJobRoleAssignmentResult {
+
+    private int total;
+    private int assigned;
+    private int failed;
+    private long durationMs;
+    private List<Outcome> outcomes;
+
+    public enum OutcomeStatus {
+        ASSIGNED,
+        FAILED
+    }
+
+    /**
+     * Исход одного назначения. В потоковом ответе processed/total - прогресс на момент строки
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Outcome {
+        private UUID userId;
+        private UUID jobRoleId;
+        private OutcomeStatus status;
+        private String message;
+        private UUID webhookJobId; // задание outbox; null - webhook не поставлен
+        private int processed;
+        private int total;
+    }
+}
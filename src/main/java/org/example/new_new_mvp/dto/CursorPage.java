@@ -0,0 +1,49 @@
+package org.example.new_new_mvp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Страница keyset-пагинации: строки по возрастанию ключа и курсор следующей страницы.
+ * nextCursor - ключ последней строки, передаётся обратно как after; null - страниц больше нет
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> items;
+    private String nextCursor;
+
+    public boolean isHasMore() {
+        return nextCursor != null;
+    }
+
+    public <R> CursorPage<R> map(Function<T, R> mapper) {
+        return new CursorPage<>(items.stream().map(mapper).toList(), nextCursor);
+    }
+
+    /**
+     * Собрать страницу из limit + 1 прочитанных строк: лишняя строка только говорит, что есть продолжение
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, ?> keyOf) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new CursorPage<>(List.copyOf(items), String.valueOf(keyOf.apply(items.get(limit - 1))));
+    }
+
+    /**
+     * Ограничить запрошенный limit: не задан - defaultLimit, больше maxLimit - maxLimit
+     */
+    public static int clampLimit(Integer requested, int defaultLimit, int maxLimit) {
+        if (requested == null || requested <= 0) {
+            return defaultLimit;
+        }
+        return Math.min(requested, maxLimit);
+    }
+}
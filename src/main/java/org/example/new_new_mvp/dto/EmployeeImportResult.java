@@ -0,0 +1,41 @@
+package org.example.new_new_mvp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Итог массового импорта сотрудников: счётчики и результат каждой строки файла в исходном порядке
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeeImportResult {
+
+    private int total;
+    private int created;
+    private int updated;
+    private int failed;
+    private long durationMs;
+    private List<Row> rows;
+
+    public enum RowStatus {
+        CREATED, // новый пользователь и профиль
+        UPDATED, // пользователь уже был - профиль перезаписан
+        FAILED
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Row {
+        private int row; // номер записи в файле, с 1 (строка заголовка CSV не считается)
+        private String email;
+        private RowStatus status;
+        private UUID userId;
+        private String message;
+    }
+}
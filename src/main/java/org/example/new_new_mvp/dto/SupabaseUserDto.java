@@ -7,13 +7,16 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
 import java.time.OffsetDateTime;
+import java.util.UUID;
 
 /**
  * DTO для маппинга с существующей таблицей users в Supabase
  * Структура таблицы:
  * - id (bigint, auto-increment)
  * - email, full_name
- * - status (text) - храним role и company_id как JSON
+ * - status (text) - статус пользователя, из него выводится role
+ * - company_id (uuid, nullable) - ссылка на companies, см. supabase_users_company_id.sql
+ * - user_uuid (uuid, generated) - User.id приложения, см. supabase_users_uuid.sql
  * - access_token, refresh_token, token_expires_at
  * - telegram_chat_id, activation_code
  * - tracked_folders, temp_selected_folders, temp_full_folder_list (jsonb)
@@ -28,14 +31,20 @@ public class SupabaseUserDto {
     
     private Long id; // bigint в Supabase
     
+    @JsonProperty("user_uuid")
+    private UUID userUuid; // generated: UUID.nameUUIDFromBytes(id), индексируется idx_users_user_uuid
+    
     private String email;
     
     @JsonProperty("full_name")
     private String fullName;
     
-    // Храним role и company_id как JSON строку
+    // Текстовый статус ('invited', 'active', 'company', 'employee'), из него выводится role
     private String status;
     
+    @JsonProperty("company_id")
+    private UUID companyId; // uuid, индексируется idx_users_company_id
+    
     private String password;
     
     @JsonProperty("access_token")
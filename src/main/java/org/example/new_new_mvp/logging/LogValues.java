@@ -0,0 +1,48 @@
+package org.example.new_new_mvp.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Значения для параметризованных логов: обрезка длинных payload'ов (JSON с base64 файлов) и выборка
+ * событий горячих путей. truncate() возвращает обёртку - строка режется в toString(), то есть только
+ * когда уровень включён и событие действительно форматируется
+ */
+public final class LogValues {
+
+    private LogValues() {
+    }
+
+    public static Object truncate(Object value, int maxChars) {
+        return new Truncated(value, maxChars);
+    }
+
+    /**
+     * Пропускает каждое every-е событие (первое - всегда): при DEBUG конвертация 50k строк
+     * даёт десятки записей в лог, а не сотни тысяч
+     */
+    public static final class Sampler {
+
+        private final long every;
+        private final AtomicLong events = new AtomicLong();
+
+        public Sampler(long every) {
+            this.every = Math.max(1, every);
+        }
+
+        public boolean sample() {
+            return events.getAndIncrement() % every == 0;
+        }
+    }
+
+    private record Truncated(Object value, int maxChars) {
+
+        @Override
+        public String toString() {
+            String text = String.valueOf(value);
+            if (text.length() <= maxChars) {
+                return text;
+            }
+            return text.substring(0, maxChars) + "...(" + text.length() + " chars)";
+        }
+    }
+}
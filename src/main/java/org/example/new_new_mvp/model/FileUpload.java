@@ -46,6 +46,10 @@ public class FileUpload {
     @Column
     private String tags;
     
+    // sha256 содержимого - ключ blob'а в ContentAddressedFileStore; null у файлов, загруженных до него
+    @Column(length = 64)
+    private String contentHash;
+    
     public FileUpload(User user, String originalFileName, String storedFileName, 
                      String filePath, Long fileSize, String mimeType) {
         this.user = user;
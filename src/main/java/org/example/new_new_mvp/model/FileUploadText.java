@@ -0,0 +1,39 @@
+package org.example.new_new_mvp.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Текст, извлечённый из PDF/DOCX файла (TextExtractor). Отдельная таблица, а не колонка file_uploads,
+ * чтобы списки файлов не тянули текст; строка удаляется вместе с FileUpload (ON DELETE CASCADE)
+ */
+@Entity
+@Table(name = "file_upload_texts")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileUploadText {
+    
+    // Совпадает с id FileUpload
+    @Id
+    @Column(name = "file_upload_id")
+    private UUID fileUploadId;
+    
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String text;
+    
+    // Страниц PDF или абзацев DOCX
+    @Column(nullable = false)
+    private Integer units;
+    
+    // Текст обрезан по app.analysis.extract.max-chars
+    @Column(nullable = false)
+    private Boolean truncated;
+    
+    @Column(nullable = false)
+    private LocalDateTime extractedAt;
+}
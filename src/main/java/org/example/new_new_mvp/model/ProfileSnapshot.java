@@ -1,5 +1,8 @@
 package org.example.new_new_mvp.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -13,6 +16,7 @@ import java.util.UUID;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class ProfileSnapshot {
     
     @Id
@@ -20,6 +24,7 @@ public class ProfileSnapshot {
     private UUID id;
     
     @Column(name = "user_id")
+    @JsonProperty("user_id")
     private UUID userId;
     
     // @ManyToOne(fetch = FetchType.LAZY)
@@ -27,8 +32,30 @@ public class ProfileSnapshot {
     // private User user;
     
     @Column(name = "snapshot_date")
+    @JsonProperty("snapshot_date")
     private OffsetDateTime snapshotDate;
     
     @Column(name = "profile_data", columnDefinition = "TEXT")
-    private Object profileData;
+    @JsonProperty("profile_data")
+    private Object profileData; // только у FULL; у DELTA - null
+    
+    // Хранение историей (supabase_profile_snapshots_delta.sql); у старых строк kind = null - это FULL
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind")
+    private SnapshotKind kind;
+    
+    @Column(name = "content_hash")
+    @JsonProperty("content_hash")
+    private String contentHash; // sha256 канонического profile_data - повтор без изменений не пишется
+    
+    @Column(name = "base_id")
+    @JsonProperty("base_id")
+    private UUID baseId; // ключевой кадр, от которого считан patch
+    
+    @Column(name = "seq")
+    private Integer seq; // номер в цепочке от ключевого кадра (у FULL - 0)
+    
+    // jsonb только в Supabase
+    @Transient
+    private JsonNode patch;
 }
\ No newline at end of file
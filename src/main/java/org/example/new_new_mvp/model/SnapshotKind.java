@@ -0,0 +1,9 @@
+package org.example.new_new_mvp.model;
+
+/**
+ * FULL - ключевой кадр, profile_data целиком; DELTA - JSON Patch от ключевого кадра base_id
+ */
+public enum SnapshotKind {
+    FULL,
+    DELTA
+}
@@ -0,0 +1,59 @@
+package org.example.new_new_mvp.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Задание на отправку webhook'а в n8n (таблица webhook_outbox)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class WebhookJob {
+
+    private UUID id;
+
+    @JsonProperty("idempotency_key")
+    private String idempotencyKey;
+
+    @JsonProperty("webhook_type")
+    private WebhookType webhookType;
+
+    // Пользователь, поставивший задание: статус и ответ n8n видит только он (и ADMIN)
+    @JsonProperty("owner_id")
+    private UUID ownerId;
+
+    private String payload; // JSON без содержимого файлов
+
+    private List<Map<String, Object>> attachments; // JSONB: файлы на диске, добавляются в payload при отправке
+
+    private WebhookJobStatus status;
+
+    private Integer attempts;
+
+    @JsonProperty("next_attempt_at")
+    private OffsetDateTime nextAttemptAt;
+
+    @JsonProperty("locked_until")
+    private OffsetDateTime lockedUntil;
+
+    @JsonProperty("last_error")
+    private String lastError;
+
+    private String response;
+
+    @JsonProperty("created_at")
+    private OffsetDateTime createdAt;
+
+    @JsonProperty("updated_at")
+    private OffsetDateTime updatedAt;
+}
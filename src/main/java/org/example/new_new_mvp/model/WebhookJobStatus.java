@@ -0,0 +1,8 @@
+package org.example.new_new_mvp.model;
+
+public enum WebhookJobStatus {
+    PENDING,
+    IN_PROGRESS,
+    SENT,
+    DEAD
+}
@@ -0,0 +1,7 @@
+package org.example.new_new_mvp.model;
+
+public enum WebhookType {
+    ANALYZE_COMPETENCIES,
+    ASSIGN_JOB_ROLE,
+    GENERATE_AI_PROFILE
+}
@@ -22,4 +22,9 @@ public interface FileUploadRepository extends JpaRepository<FileUpload, UUID> {
     List<FileUpload> findByUserAndMimeTypeContaining(@Param("user") User user, @Param("mimeType") String mimeType);
     
     void deleteByUser(User user);
+    
+    // Строки FileUpload - ссылки на blob: когда их не остаётся, blob удаляется
+    long countByContentHash(String contentHash);
+    
+    boolean existsByFileSizeAndContentHashIsNotNull(Long fileSize);
 }
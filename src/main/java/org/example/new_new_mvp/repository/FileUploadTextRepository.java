@@ -0,0 +1,11 @@
+package org.example.new_new_mvp.repository;
+
+import org.example.new_new_mvp.model.FileUploadText;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface FileUploadTextRepository extends JpaRepository<FileUploadText, UUID> {
+}
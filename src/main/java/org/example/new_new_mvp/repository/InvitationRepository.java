@@ -1,5 +1,6 @@
 package org.example.new_new_mvp.repository;
 
+import org.example.new_new_mvp.dto.CursorPage;
 import org.example.new_new_mvp.model.Invitation;
 import org.example.new_new_mvp.model.InvitationStatus;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -39,6 +40,10 @@ public class InvitationRepository {
         return supabaseRepository.findByCompanyId(companyId).block();
     }
 
+    public CursorPage<Invitation> findPageByCompanyId(UUID companyId, UUID after, int limit) {
+        return supabaseRepository.findPageByCompanyId(companyId, after, limit).block();
+    }
+
     public List<Invitation> findByCompanyIdAndStatus(UUID companyId, InvitationStatus status) {
         return supabaseRepository.findByCompanyIdAndStatus(companyId, status).block();
     }
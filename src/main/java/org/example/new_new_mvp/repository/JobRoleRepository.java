@@ -6,10 +6,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Repository
 public class JobRoleRepository {
@@ -27,6 +30,18 @@ public class JobRoleRepository {
                 .map(roles -> roles.isEmpty() ? Optional.empty() : Optional.of(roles.get(0)));
     }
 
+    /**
+     * Роли по набору ID одним запросом id=in.(...); ненайденных ID в результате нет
+     */
+    public Mono<Map<UUID, JobRole>> findAllByIds(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        Map<String, String> filters = Map.of("id", SupabaseUserRepository.inFilter(new LinkedHashSet<>(ids)));
+        return supabaseService.select("job_roles", JobRole.class, filters)
+                .map(roles -> roles.stream().collect(Collectors.toMap(JobRole::getId, role -> role)));
+    }
+
     public Mono<List<JobRole>> findByCompanyId(UUID companyId) {
         Map<String, String> filters = Map.of("company_id", "eq." + companyId.toString());
         return supabaseService.select("job_roles", JobRole.class, filters);
@@ -62,8 +77,6 @@ public class JobRoleRepository {
     }
 
     public Mono<Long> count() {
-        return supabaseService.select("job_roles", JobRole.class)
-                .map(List::size)
-                .cast(Long.class);
+        return supabaseService.count("job_roles");
     }
 }
@@ -6,6 +6,7 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -24,6 +25,10 @@ public class ProfileSnapshotRepository {
         return supabaseRepository.findById(id).block();
     }
 
+    public Optional<ProfileSnapshot> findLatestByUserId(UUID userId) {
+        return supabaseRepository.findLatestByUserId(userId).block();
+    }
+
     public List<ProfileSnapshot> findLatestSnapshotsByUserId(UUID userId) {
         return supabaseRepository.findLatestSnapshotsByUserId(userId).block();
     }
@@ -36,6 +41,10 @@ public class ProfileSnapshotRepository {
         return supabaseRepository.findSnapshotsBetweenDates(startDate, endDate).block();
     }
 
+    public List<ProfileSnapshot> findByUserIdBetweenDates(UUID userId, OffsetDateTime startDate, OffsetDateTime endDate) {
+        return supabaseRepository.findByUserIdBetweenDates(userId, startDate, endDate).block();
+    }
+
     public ProfileSnapshot save(ProfileSnapshot snapshot) {
         return supabaseRepository.save(snapshot).block();
     }
@@ -48,6 +57,10 @@ public class ProfileSnapshotRepository {
         supabaseRepository.deleteById(id).block();
     }
 
+    public void deleteByIds(Collection<UUID> ids) {
+        supabaseRepository.deleteByIds(ids).block();
+    }
+
     public long count() {
         return supabaseRepository.count().block();
     }
@@ -1,10 +1,12 @@
 package org.example.new_new_mvp.repository;
 
+import org.example.new_new_mvp.dto.CursorPage;
 import org.example.new_new_mvp.model.CompanyContent;
 import org.example.new_new_mvp.model.ContentType;
 import org.example.new_new_mvp.service.SupabaseService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
@@ -23,7 +25,14 @@ public class SupabaseCompanyContentRepository {
      * Получить весь контент
      */
     public Mono<List<CompanyContent>> findAll() {
-        return supabaseService.select("company_content", CompanyContent.class);
+        return streamAll().collectList();
+    }
+
+    /**
+     * Весь контент компаний потоком
+     */
+    public Flux<CompanyContent> streamAll() {
+        return supabaseService.selectFlux("company_content", CompanyContent.class);
     }
 
     /**
@@ -43,6 +52,15 @@ public class SupabaseCompanyContentRepository {
         return supabaseService.select("company_content", CompanyContent.class, filters);
     }
 
+    /**
+     * Страница контента компании по id (keyset)
+     */
+    public Mono<CursorPage<CompanyContent>> findPageByCompanyId(UUID companyId, UUID after, int limit) {
+        return supabaseService.selectKeyset("company_content", CompanyContent.class,
+                Map.of("company_id", "eq." + companyId), "id", CompanyContent::getId,
+                after != null ? after.toString() : null, limit);
+    }
+
     /**
      * Найти контент по типу
      */
@@ -103,9 +121,7 @@ public class SupabaseCompanyContentRepository {
      * Подсчитать весь контент
      */
     public Mono<Long> count() {
-        return supabaseService.select("company_content", CompanyContent.class)
-                .map(List::size)
-                .cast(Long.class);
+        return supabaseService.count("company_content");
     }
 
     /**
@@ -113,9 +129,7 @@ public class SupabaseCompanyContentRepository {
      */
     public Mono<Long> countByCompanyId(UUID companyId) {
         Map<String, String> filters = Map.of("company_id", "eq." + companyId.toString());
-        return supabaseService.select("company_content", CompanyContent.class, filters)
-                .map(List::size)
-                .cast(Long.class);
+        return supabaseService.count("company_content", filters);
     }
 }
 
@@ -108,9 +108,7 @@ public class SupabaseCompanyRepository {
      * Подсчитать все компании
      */
     public Mono<Long> count() {
-        return supabaseService.select("companies", Company.class)
-                .map(List::size)
-                .map(Long::valueOf);
+        return supabaseService.count("companies");
     }
 }
 
@@ -1,10 +1,12 @@
 package org.example.new_new_mvp.repository;
 
+import org.example.new_new_mvp.dto.CursorPage;
 import org.example.new_new_mvp.model.Invitation;
 import org.example.new_new_mvp.model.InvitationStatus;
 import org.example.new_new_mvp.service.SupabaseService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
@@ -22,7 +24,14 @@ public class SupabaseInvitationRepository {
      * Получить все приглашения
      */
     public Mono<List<Invitation>> findAll() {
-        return supabaseService.select("invitations", Invitation.class);
+        return streamAll().collectList();
+    }
+
+    /**
+     * Все приглашения потоком
+     */
+    public Flux<Invitation> streamAll() {
+        return supabaseService.selectFlux("invitations", Invitation.class);
     }
 
     /**
@@ -68,6 +77,14 @@ public class SupabaseInvitationRepository {
         return supabaseService.select("invitations", Invitation.class, filters);
     }
 
+    /**
+     * Страница приглашений компании по id (keyset)
+     */
+    public Mono<CursorPage<Invitation>> findPageByCompanyId(UUID companyId, UUID after, int limit) {
+        return supabaseService.selectKeyset("invitations", Invitation.class, Map.of("company_id", "eq." + companyId),
+                "id", Invitation::getId, after != null ? after.toString() : null, limit);
+    }
+
     /**
      * Найти приглашения по ID компании и статусу
      */
@@ -84,9 +101,7 @@ public class SupabaseInvitationRepository {
      */
     public Mono<Long> countByCompanyId(UUID companyId) {
         Map<String, String> filters = Map.of("company_id", "eq." + companyId.toString());
-        return supabaseService.select("invitations", Invitation.class, filters)
-                .map(List::size)
-                .cast(Long.class);
+        return supabaseService.count("invitations", filters);
     }
 
     /**
@@ -94,9 +109,7 @@ public class SupabaseInvitationRepository {
      */
     public Mono<Long> countByStatus(InvitationStatus status) {
         Map<String, String> filters = Map.of("status", "eq." + status.name());
-        return supabaseService.select("invitations", Invitation.class, filters)
-                .map(List::size)
-                .cast(Long.class);
+        return supabaseService.count("invitations", filters);
     }
 
     /**
@@ -149,8 +162,6 @@ public class SupabaseInvitationRepository {
      * Подсчитать все приглашения
      */
     public Mono<Long> count() {
-        return supabaseService.select("invitations", Invitation.class)
-                .map(List::size)
-                .map(Long::valueOf);
+        return supabaseService.count("invitations");
     }
 }
@@ -2,13 +2,17 @@ package org.example.new_new_mvp.repository;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.example.new_new_mvp.dto.ProfileInsertDto;
+import org.example.new_new_mvp.dto.CursorPage;
 import org.example.new_new_mvp.model.Profile;
 import org.example.new_new_mvp.model.ProfileStatus;
 import org.example.new_new_mvp.service.SupabaseService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -18,6 +22,8 @@ import java.util.stream.Collectors;
 @Repository
 public class SupabaseProfileRepository {
 
+    private static final int USER_ID_BATCH_SIZE = 100;
+
     @Autowired
     private SupabaseService supabaseService;
     
@@ -28,7 +34,30 @@ public class SupabaseProfileRepository {
      * Получить все профили
      */
     public Mono<List<Profile>> findAll() {
-        return supabaseService.select("profiles", Profile.class);
+        return streamAll().collectList();
+    }
+
+    /**
+     * Все профили по мере разбора ответа, без промежуточного JSON целиком
+     */
+    public Flux<Profile> streamAll() {
+        return supabaseService.selectFlux("profiles", Profile.class);
+    }
+
+    /**
+     * Страница профилей по user_id (keyset): after - user_id последнего профиля предыдущей страницы
+     */
+    public Mono<CursorPage<Profile>> findPage(UUID after, int limit) {
+        return supabaseService.selectKeyset("profiles", Profile.class, Map.of(),
+                "user_id", Profile::getUserId, after != null ? after.toString() : null, limit);
+    }
+
+    /**
+     * Страница профилей компании: фильтр profiles.company_id на стороне PostgREST
+     */
+    public Mono<CursorPage<Profile>> findPageByCompanyId(UUID companyId, UUID after, int limit) {
+        return supabaseService.selectKeyset("profiles", Profile.class, Map.of("company_id", "eq." + companyId),
+                "user_id", Profile::getUserId, after != null ? after.toString() : null, limit);
     }
 
     /**
@@ -181,6 +210,43 @@ public class SupabaseProfileRepository {
                 });
     }
 
+    /**
+     * Профили набора пользователей: один запрос user_id=in.(...) на каждые 100 ID
+     */
+    public Mono<Map<UUID, Profile>> findAllByUserIds(Collection<UUID> userIds) {
+        if (userIds.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        return Flux.fromIterable(new LinkedHashSet<>(userIds))
+                .buffer(USER_ID_BATCH_SIZE)
+                .concatMap(batch -> supabaseService.select("profiles", Profile.class,
+                        Map.of("user_id", SupabaseUserRepository.inFilter(batch))))
+                .flatMapIterable(profiles -> profiles)
+                .collectMap(Profile::getUserId);
+    }
+
+    /**
+     * Записать пачку профилей одним upsert по user_id (PK): новые вставляются, существующие перезаписываются.
+     * Без предварительного findByUserId на каждую строку, как в save
+     */
+    public Mono<List<Profile>> upsertAll(List<Profile> profiles) {
+        List<ProfileInsertDto> rows = profiles.stream()
+                .map(profile -> new ProfileInsertDto(profile.getUserId(),
+                        profile.getProfileData() != null ? objectMapper.valueToTree(profile.getProfileData()) : null,
+                        profile.getCompanyId(), profile.getLastUpdated()))
+                .toList();
+        return supabaseService.upsertAll("profiles", rows, "user_id", ProfileInsertDto.class)
+                .map(savedDto -> {
+                    Profile savedProfile = new Profile();
+                    savedProfile.setUserId(savedDto.getUserId());
+                    savedProfile.setProfileData(savedDto.getProfileData());
+                    savedProfile.setCompanyId(savedDto.getCompanyId());
+                    savedProfile.setLastUpdated(savedDto.getLastUpdated());
+                    return savedProfile;
+                })
+                .collectList();
+    }
+
     /**
      * Удалить профиль по ID пользователя
      */
@@ -193,9 +259,7 @@ public class SupabaseProfileRepository {
      * Подсчитать все профили
      */
     public Mono<Long> count() {
-        return supabaseService.select("profiles", Profile.class)
-                .map(List::size)
-                .cast(Long.class);
+        return supabaseService.count("profiles");
     }
 }
 
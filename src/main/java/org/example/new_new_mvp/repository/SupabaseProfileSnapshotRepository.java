@@ -1,13 +1,16 @@
 package org.example.new_new_mvp.repository;
 
+import org.example.new_new_mvp.dto.CursorPage;
 import org.example.new_new_mvp.model.ProfileSnapshot;
 import org.example.new_new_mvp.service.SupabaseService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -24,7 +27,14 @@ public class SupabaseProfileSnapshotRepository {
      * Получить все снимки профилей
      */
     public Mono<List<ProfileSnapshot>> findAll() {
-        return supabaseService.select("profile_snapshots", ProfileSnapshot.class);
+        return streamAll().collectList();
+    }
+
+    /**
+     * Снимки профилей потоком - таблица растёт быстрее остальных
+     */
+    public Flux<ProfileSnapshot> streamAll() {
+        return supabaseService.selectFlux("profile_snapshots", ProfileSnapshot.class);
     }
 
     /**
@@ -40,21 +50,65 @@ public class SupabaseProfileSnapshotRepository {
      * Найти последние снимки по ID пользователя
      */
     public Mono<List<ProfileSnapshot>> findLatestSnapshotsByUserId(UUID userId) {
-        Map<String, String> filters = Map.of("user_id", "eq." + userId.toString());
+        // Сортирует PostgREST по idx_snapshots_user_id_date
+        Map<String, String> filters = Map.of(
+            "user_id", "eq." + userId.toString(),
+            "order", "snapshot_date.desc"
+        );
+        return supabaseService.select("profile_snapshots", ProfileSnapshot.class, filters);
+    }
+
+    /**
+     * Последний снимок пользователя - для дедупликации и выбора ключевого кадра
+     */
+    public Mono<Optional<ProfileSnapshot>> findLatestByUserId(UUID userId) {
+        Map<String, String> filters = Map.of(
+            "user_id", "eq." + userId.toString(),
+            "order", "snapshot_date.desc",
+            "limit", "1"
+        );
         return supabaseService.select("profile_snapshots", ProfileSnapshot.class, filters)
-                .map(snapshots -> snapshots.stream()
-                        .sorted((s1, s2) -> s2.getSnapshotDate().compareTo(s1.getSnapshotDate()))
-                        .collect(Collectors.toList()));
+                .map(snapshots -> snapshots.isEmpty() ? Optional.empty() : Optional.of(snapshots.get(0)));
     }
 
     /**
-     * Найти снимки между датами
+     * Снимки старше before без profile_data и patch - план компакции по всем пользователям
+     */
+    public Flux<ProfileSnapshot> streamCompactionCandidates(OffsetDateTime before) {
+        return streamSnapshotsBetweenDates(Map.of("select", "id,user_id,snapshot_date,kind,base_id"), null, before);
+    }
+
+    /**
+     * Страница снимков пользователя по id (keyset)
+     */
+    public Mono<CursorPage<ProfileSnapshot>> findPageByUserId(UUID userId, UUID after, int limit) {
+        return supabaseService.selectKeyset("profile_snapshots", ProfileSnapshot.class,
+                Map.of("user_id", "eq." + userId), "id", ProfileSnapshot::getId,
+                after != null ? after.toString() : null, limit);
+    }
+
+    /**
+     * Найти снимки между датами: snapshot_date в [startDate, endDate), фильтр на стороне PostgREST (idx_snapshots_date)
      */
     public Mono<List<ProfileSnapshot>> findSnapshotsBetweenDates(OffsetDateTime startDate, OffsetDateTime endDate) {
-        return supabaseService.select("profile_snapshots", ProfileSnapshot.class)
-                .map(snapshots -> snapshots.stream()
-                        .filter(s -> s.getSnapshotDate().isAfter(startDate) && s.getSnapshotDate().isBefore(endDate))
-                        .collect(Collectors.toList()));
+        return streamSnapshotsBetweenDates(Map.of(), startDate, endDate).collectList();
+    }
+
+    /**
+     * Снимки пользователя за период [startDate, endDate) по возрастанию даты
+     */
+    public Mono<List<ProfileSnapshot>> findByUserIdBetweenDates(UUID userId, OffsetDateTime startDate,
+                                                                OffsetDateTime endDate) {
+        return streamSnapshotsBetweenDates(Map.of("user_id", "eq." + userId), startDate, endDate).collectList();
+    }
+
+    /**
+     * Окно снимков потоком - для отчётов по длинным периодам. Любая из границ может быть null
+     */
+    public Flux<ProfileSnapshot> streamSnapshotsBetweenDates(Map<String, String> filters, OffsetDateTime startDate,
+                                                             OffsetDateTime endDate) {
+        return supabaseService.selectRange("profile_snapshots", ProfileSnapshot.class, filters,
+                "snapshot_date", startDate, endDate);
     }
 
     /**
@@ -82,6 +136,17 @@ public class SupabaseProfileSnapshotRepository {
         return supabaseService.delete("profile_snapshots", filters);
     }
 
+    /**
+     * Удалить снимки пачками по 100 id (id=in.(...))
+     */
+    public Mono<Void> deleteByIds(Collection<UUID> ids) {
+        return Flux.fromIterable(ids)
+                .buffer(100)
+                .concatMap(batch -> supabaseService.delete("profile_snapshots", Map.of("id",
+                        batch.stream().map(UUID::toString).collect(Collectors.joining(",", "in.(", ")")))))
+                .then();
+    }
+
     /**
      * Найти снимки по ID пользователя с сортировкой по дате
      */
@@ -93,9 +158,7 @@ public class SupabaseProfileSnapshotRepository {
      * Подсчитать все снимки
      */
     public Mono<Long> count() {
-        return supabaseService.select("profile_snapshots", ProfileSnapshot.class)
-                .map(List::size)
-                .cast(Long.class);
+        return supabaseService.count("profile_snapshots");
     }
 }
 
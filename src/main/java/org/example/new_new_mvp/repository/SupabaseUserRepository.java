@@ -1,6 +1,9 @@
 package org.example.new_new_mvp.repository;
 
+import lombok.extern.slf4j.Slf4j;
 import org.example.new_new_mvp.dto.SupabaseUserDto;
+import org.example.new_new_mvp.logging.LogValues;
+import org.example.new_new_mvp.model.Company;
 import org.example.new_new_mvp.model.User;
 import org.example.new_new_mvp.model.UserRole;
 import org.example.new_new_mvp.service.SupabaseService;
@@ -8,16 +11,28 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Repository
 public class SupabaseUserRepository {
 
+    // 100 UUID - около 3.7 КБ в query string, с запасом до лимитов URL у прокси
+    private static final int USER_ID_BATCH_SIZE = 100;
+
+    // convertDtoToUser вызывается на каждую строку выборки: на DEBUG пишется каждая тысячная, на TRACE - все
+    private static final LogValues.Sampler CONVERSION_LOG = new LogValues.Sampler(1000);
+
     @Autowired
     private SupabaseService supabaseService;
 
@@ -30,9 +45,6 @@ public class SupabaseUserRepository {
      * Парсит status поле, чтобы извлечь role и company_id
      */
     private User convertDtoToUser(SupabaseUserDto dto) {
-        System.out.println("=== convertDtoToUser START ===");
-        System.out.println("DTO: id=" + dto.getId() + ", email=" + dto.getEmail() + ", status=" + dto.getStatus());
-        
         User user = new User();
         user.setEmail(dto.getEmail());
         user.setFullName(dto.getFullName());
@@ -53,24 +65,37 @@ public class SupabaseUserRepository {
             } else {
                 user.setRole(UserRole.EMPLOYEE);
             }
-            System.out.println("Set role based on status '" + dto.getStatus() + "': " + user.getRole());
         } else {
-            System.out.println("WARNING: status is null or empty, defaulting to EMPLOYEE");
+            // Пустой status - роль по умолчанию EMPLOYEE (видно в логе конвертации как status=null)
             user.setRole(UserRole.EMPLOYEE);
         }
         
-        // company_id нужно получать отдельно, если требуется
-        // Пока оставляем null, так как в схеме users нет прямого поля company_id
+        // company_id хранится в отдельной колонке users.company_id (uuid)
+        // Загружаем только ссылку - имя компании при необходимости получают через CompanyRepository
+        if (dto.getCompanyId() != null) {
+            Company company = new Company();
+            company.setId(dto.getCompanyId());
+            user.setCompany(company);
+        }
         
-        // Устанавливаем id как UUID (конвертируем из Long)
-        if (dto.getId() != null) {
+        // Устанавливаем id как UUID: берём хранимый users.user_uuid, для старых выборок без колонки
+        // вычисляем тот же UUID из Long id
+        if (dto.getUserUuid() != null) {
+            user.setId(dto.getUserUuid());
+        } else if (dto.getId() != null) {
             // Для совместимости создаем UUID из Long id
             UUID userId = UUID.nameUUIDFromBytes(String.valueOf(dto.getId()).getBytes());
-            System.out.println("Converted ID: " + dto.getId() + " -> " + userId);
             user.setId(userId);
         }
-        
-        System.out.println("=== convertDtoToUser END ===");
+
+        if (log.isDebugEnabled() && (log.isTraceEnabled() || CONVERSION_LOG.sample())) {
+            log.atDebug()
+                    .addKeyValue("id", dto.getId())
+                    .addKeyValue("userId", user.getId())
+                    .addKeyValue("status", dto.getStatus())
+                    .addKeyValue("role", user.getRole())
+                    .log("Converted users row");
+        }
         return user;
     }
 
@@ -88,60 +113,64 @@ public class SupabaseUserRepository {
      * Проверить существование пользователя по email
      */
     public Mono<Boolean> existsByEmail(String email) {
-        System.out.println("SupabaseUserRepository.existsByEmail(" + email + ")");
+        log.debug("existsByEmail({})", email);
         Map<String, String> filters = Map.of("email", "eq." + email);
         // Используем SupabaseUserDto вместо User, чтобы избежать ошибки парсинга UUID
         return supabaseService.select("users", SupabaseUserDto.class, filters)
                 .map(dtos -> {
                     boolean exists = !dtos.isEmpty();
-                    System.out.println("User exists: " + exists);
+                    log.debug("User exists: {}", exists);
                     return exists;
                 })
-                .doOnError(error -> System.out.println("Error checking existsByEmail: " + error.getMessage()));
+                .doOnError(error -> log.warn("Error checking existsByEmail: {}", error.getMessage()));
     }
     
     /**
      * Найти пользователя по activation_code
      */
     public Mono<Optional<User>> findByActivationCode(String activationCode) {
-        System.out.println("SupabaseUserRepository.findByActivationCode(" + activationCode + ")");
+        log.debug("findByActivationCode({})", activationCode);
         Map<String, String> filters = Map.of("activation_code", "eq." + activationCode);
         return supabaseService.select("users", SupabaseUserDto.class, filters)
                 .<Optional<User>>map(dtos -> {
                     if (dtos.isEmpty()) {
-                        System.out.println("No user found with activation_code: " + activationCode);
+                        log.debug("No user found with activation_code: {}", activationCode);
                         return Optional.empty();
                     }
-                    System.out.println("User found with activation_code: " + activationCode);
+                    log.debug("User found with activation_code: {}", activationCode);
                     return Optional.of(convertDtoToUser(dtos.get(0)));
                 })
-                .doOnError(error -> System.out.println("Error finding by activation_code: " + error.getMessage()));
+                .doOnError(error -> log.warn("Error finding by activation_code: {}", error.getMessage()));
     }
     
     /**
      * Проверить существование пользователя по activation_code
      */
     public Mono<Boolean> existsByActivationCode(String activationCode) {
-        System.out.println("SupabaseUserRepository.existsByActivationCode(" + activationCode + ")");
+        log.debug("existsByActivationCode({})", activationCode);
         Map<String, String> filters = Map.of("activation_code", "eq." + activationCode);
         return supabaseService.select("users", SupabaseUserDto.class, filters)
                 .map(dtos -> {
                     boolean exists = !dtos.isEmpty();
-                    System.out.println("User with activation_code exists: " + exists);
+                    log.debug("User with activation_code exists: {}", exists);
                     return exists;
                 })
-                .doOnError(error -> System.out.println("Error checking existsByActivationCode: " + error.getMessage()));
+                .doOnError(error -> log.warn("Error checking existsByActivationCode: {}", error.getMessage()));
     }
 
     /**
      * Найти пользователей по роли
+     * Роль выводится из status, поэтому фильтр по роли транслируется в фильтр по status на стороне PostgREST
      */
     public Mono<List<User>> findByRole(UserRole role) {
-        // role хранится в status JSON, нужно получить всех и фильтровать локально
-        return supabaseService.select("users", SupabaseUserDto.class, Map.of())
+        Map<String, String> filters = roleFilter(role);
+        if (filters == null) {
+            // Роль не может быть выведена из status - таких пользователей в таблице нет
+            return Mono.just(List.of());
+        }
+        return supabaseService.select("users", SupabaseUserDto.class, filters)
                 .map(dtos -> dtos.stream()
                         .map(this::convertDtoToUser)
-                        .filter(user -> user.getRole() == role)
                         .toList());
     }
 
@@ -149,11 +178,10 @@ public class SupabaseUserRepository {
      * Найти пользователей по ID компании
      */
     public Mono<List<User>> findByCompanyId(UUID companyId) {
-        // company_id хранится в status JSON, нужно получить всех и фильтровать локально
-        return supabaseService.select("users", SupabaseUserDto.class, Map.of())
+        Map<String, String> filters = Map.of("company_id", "eq." + companyId);
+        return supabaseService.select("users", SupabaseUserDto.class, filters)
                 .map(dtos -> dtos.stream()
                         .map(this::convertDtoToUser)
-                        .filter(user -> user.getCompany() != null && user.getCompany().getId().equals(companyId))
                         .toList());
     }
 
@@ -161,28 +189,72 @@ public class SupabaseUserRepository {
      * Найти пользователей по ID компании и роли
      */
     public Mono<List<User>> findByCompanyIdAndRole(UUID companyId, UserRole role) {
-        // Получаем всех и фильтруем локально
-        return supabaseService.select("users", SupabaseUserDto.class, Map.of())
+        Map<String, String> roleFilters = roleFilter(role);
+        if (roleFilters == null) {
+            return Mono.just(List.of());
+        }
+        Map<String, String> filters = new java.util.HashMap<>(roleFilters);
+        filters.put("company_id", "eq." + companyId);
+        return supabaseService.select("users", SupabaseUserDto.class, filters)
                 .map(dtos -> dtos.stream()
                         .map(this::convertDtoToUser)
-                        .filter(user -> user.getRole() == role && 
-                                       user.getCompany() != null && 
-                                       user.getCompany().getId().equals(companyId))
                         .toList());
     }
 
+    /**
+     * Найти пользователей по набору ID одним запросом на каждые USER_ID_BATCH_SIZE идентификаторов
+     * (user_uuid=in.(...), колонка из supabase_users_uuid.sql).
+     * Возвращает identity map id -> User; ненайденные ID в неё не попадают.
+     */
+    public Mono<Map<UUID, User>> findAllByIds(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        return Flux.fromIterable(new LinkedHashSet<>(ids))
+                .buffer(USER_ID_BATCH_SIZE)
+                .flatMap(batch -> supabaseService.select("users", SupabaseUserDto.class,
+                        Map.of("user_uuid", inFilter(batch))))
+                .flatMapIterable(dtos -> dtos)
+                .map(this::convertDtoToUser)
+                .collectMap(User::getId);
+    }
+
+    static String inFilter(Collection<UUID> ids) {
+        return ids.stream()
+                .map(UUID::toString)
+                .collect(Collectors.joining(",", "in.(", ")"));
+    }
+
+    /**
+     * PostgREST фильтр по status, эквивалентный определению роли в convertDtoToUser:
+     * 'company'/'active' (без учета регистра) -> COMPANY, все остальное (включая null) -> EMPLOYEE.
+     * ilike без шаблонов работает как регистронезависимое сравнение.
+     * Возвращает null, если роль не выводится из status (ADMIN).
+     */
+    static Map<String, String> roleFilter(UserRole role) {
+        return switch (role) {
+            case COMPANY -> Map.of("or", "(status.ilike.company,status.ilike.active)");
+            case EMPLOYEE -> Map.of("or", "(status.is.null,and(status.not.ilike.company,status.not.ilike.active))");
+            default -> null;
+        };
+    }
+
     /**
      * Подсчитать количество пользователей в компании
      */
     public Mono<Long> countByCompanyId(UUID companyId) {
-        return findByCompanyId(companyId).map(list -> (long) list.size());
+        return supabaseService.count("users", Map.of("company_id", "eq." + companyId));
     }
 
     /**
      * Подсчитать количество пользователей по роли
      */
     public Mono<Long> countByRole(UserRole role) {
-        return findByRole(role).map(list -> (long) list.size());
+        Map<String, String> filters = roleFilter(role);
+        if (filters == null) {
+            return Mono.just(0L);
+        }
+        return supabaseService.count("users", filters);
     }
 
     /**
@@ -194,10 +266,10 @@ public class SupabaseUserRepository {
         return existsByEmail(user.getEmail())
             .flatMap(exists -> {
                 if (exists) {
-                    System.out.println("User exists, updating: " + user.getEmail());
+                    log.debug("User exists, updating: {}", user.getEmail());
                     return updateUser(user);
                 } else {
-                    System.out.println("User does not exist, inserting: " + user.getEmail());
+                    log.debug("User does not exist, inserting: {}", user.getEmail());
                     return insertUser(user);
                 }
             });
@@ -207,6 +279,99 @@ public class SupabaseUserRepository {
      * Вставить нового пользователя
      */
     private Mono<User> insertUser(User user) {
+        Map<String, Object> userMap = toInsertRow(user);
+        
+        // PostgREST expects an array of objects, not a single object
+        java.util.List<Map<String, Object>> userArray = java.util.Collections.singletonList(userMap);
+        
+        // Только имена колонок: в строке пароль и код активации
+        log.debug("Inserting user {} into Supabase, columns {}", user.getEmail(), userMap.keySet());
+        
+        // Use raw insert with WebClient directly
+        // PostgREST returns an array, so we need to extract the first element
+        return supabaseWebClient.post()
+                .uri("/users")
+                .header("Prefer", "return=representation") // Tell PostgREST to return the inserted row
+                .bodyValue(userArray) // Send as array
+                .retrieve()
+                .onStatus(
+                    status -> status.is4xxClientError() || status.is5xxServerError(),
+                    response -> response.bodyToMono(String.class)
+                        .map(errorBody -> {
+                            log.warn("Supabase insert users failed: status={}, body={}",
+                                    response.statusCode(), LogValues.truncate(errorBody, 2000));
+                            return new RuntimeException("Supabase error: " + errorBody);
+                        })
+                )
+                .bodyToFlux(SupabaseUserDto.class) // Response is an array of SupabaseUserDto
+                .next() // Get first element
+                .map(this::convertDtoToUser) // Convert to User model
+                .doOnNext(savedUser -> log.info("User saved: {} (id={}, role={})",
+                        savedUser.getEmail(), savedUser.getId(), savedUser.getRole()))
+                .doOnError(error -> log.error("Error inserting user {}", user.getEmail(), error))
+                .doFinally(signal -> supabaseService.invalidate("users"));
+    }
+
+    /**
+     * Вставить пользователей одним POST массивом (массовый импорт сотрудников).
+     * Ответ - вставленные строки с user_uuid (по нему пишутся профили)
+     */
+    public Mono<List<User>> insertAll(List<User> users) {
+        List<Map<String, Object>> rows = users.stream().map(this::toInsertRow).toList();
+        return supabaseService.insertAll("users", rows, SupabaseUserDto.class)
+                .map(this::convertDtoToUser)
+                .collectList();
+    }
+
+    /**
+     * Найти пользователей по email: один запрос email=in.(...) на каждые USER_ID_BATCH_SIZE адресов.
+     * Ключ результата - email как в базе; ненайденных адресов в нём нет
+     */
+    public Mono<Map<String, User>> findAllByEmails(Collection<String> emails) {
+        if (emails.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        return Flux.fromIterable(new LinkedHashSet<>(emails))
+                .buffer(USER_ID_BATCH_SIZE)
+                .flatMap(batch -> supabaseService.select("users", SupabaseUserDto.class,
+                        Map.of("email", quotedInFilter(batch))))
+                .flatMapIterable(dtos -> dtos)
+                .map(this::convertDtoToUser)
+                .collectMap(User::getEmail);
+    }
+
+    /**
+     * Привязать к компании пользователей без компании - один PATCH на пачку
+     * (user_uuid=in.(...)&company_id=is.null: чужая компания не перезаписывается)
+     */
+    public Mono<Void> assignCompanyIfMissing(Collection<UUID> userIds, UUID companyId) {
+        if (userIds.isEmpty()) {
+            return Mono.empty();
+        }
+        return Flux.fromIterable(userIds)
+                .buffer(USER_ID_BATCH_SIZE)
+                .concatMap(batch -> {
+                    Map<String, String> filters = new java.util.LinkedHashMap<>();
+                    filters.put("user_uuid", inFilter(batch));
+                    filters.put("company_id", "is.null");
+                    Map<String, Object> patch = new java.util.HashMap<>();
+                    patch.put("company_id", companyId.toString());
+                    return supabaseService.update("users", patch, filters);
+                })
+                .then();
+    }
+
+    // Строки в in.(...) берутся в кавычки: в email допустимы запятые и скобки
+    static String quotedInFilter(Collection<String> values) {
+        return values.stream()
+                .map(value -> "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"")
+                .collect(Collectors.joining(",", "in.(", ")"));
+    }
+
+    /**
+     * Строка users для INSERT - только существующие колонки
+     */
+    private Map<String, Object> toInsertRow(User user) {
         // Convert User to Map for Supabase API
         // Используем ТОЛЬКО существующие колонки!
         Map<String, Object> userMap = new java.util.HashMap<>();
@@ -244,6 +409,10 @@ public class SupabaseUserRepository {
             userMap.put("telegram_chat_id", user.getTelegramChatId());
         }
         
+        if (user.getCompany() != null && user.getCompany().getId() != null) {
+            userMap.put("company_id", user.getCompany().getId().toString());
+        }
+        
         // Инициализируем все boolean поля (если они NOT NULL с default false)
         // Если в БД есть DEFAULT, можно не отправлять, но для надежности инициализируем
         // userMap.put("Текст извечен", false);
@@ -251,66 +420,13 @@ public class SupabaseUserRepository {
         // userMap.put("Таблицы извлечены", false)
         
         // OAuth token removed - using email auth instead
-        
-        // PostgREST expects an array of objects, not a single object
-        java.util.List<Map<String, Object>> userArray = java.util.Collections.singletonList(userMap);
-        
-        System.out.println("=== SUPABASE INSERT DEBUG ===");
-        System.out.println("Inserting user into Supabase: " + userMap);
-        System.out.println("Request body (as array): " + userArray);
-        
-        // Use raw insert with WebClient directly
-        // PostgREST returns an array, so we need to extract the first element
-        return supabaseWebClient.post()
-                .uri("/users")
-                .header("Prefer", "return=representation") // Tell PostgREST to return the inserted row
-                .bodyValue(userArray) // Send as array
-                .retrieve()
-                .onStatus(
-                    status -> status.is4xxClientError() || status.is5xxServerError(),
-                    response -> response.bodyToMono(String.class)
-                        .map(errorBody -> {
-                            System.out.println("=== SUPABASE ERROR RESPONSE ===");
-                            System.out.println("Status: " + response.statusCode());
-                            System.out.println("Headers: " + response.headers().asHttpHeaders());
-                            System.out.println("Body: " + errorBody);
-                            System.out.println("================================");
-                            return new RuntimeException("Supabase error: " + errorBody);
-                        })
-                )
-                .bodyToFlux(SupabaseUserDto.class) // Response is an array of SupabaseUserDto
-                .doOnNext(dto -> System.out.println("Received SupabaseUserDto: id=" + dto.getId() + ", email=" + dto.getEmail()))
-                .next() // Get first element
-                .map(dto -> {
-                    System.out.println("Converting SupabaseUserDto to User...");
-                    User convertedUser = convertDtoToUser(dto);
-                    System.out.println("Conversion successful");
-                    return convertedUser;
-                }) // Convert to User model
-                .doOnNext(savedUser -> {
-                    System.out.println("=== SUCCESS ===");
-                    System.out.println("User saved successfully: " + savedUser.getEmail());
-                    System.out.println("User ID: " + savedUser.getId());
-                    System.out.println("User Role: " + savedUser.getRole());
-                    System.out.println("===============");
-                })
-                .doOnError(error -> {
-                    System.out.println("=== ERROR ===");
-                    System.out.println("Error type: " + error.getClass().getName());
-                    System.out.println("Error message: " + error.getMessage());
-                    System.out.println("Full stack trace:");
-                    error.printStackTrace();
-                    System.out.println("=============");
-                });
+        return userMap;
     }
 
     /**
      * Обновить существующего пользователя
      */
     private Mono<User> updateUser(User user) {
-        System.out.println("=== UPDATING USER ===");
-        System.out.println("Email: " + user.getEmail());
-        
         // Формируем данные для обновления
         Map<String, Object> updateMap = new java.util.HashMap<>();
         
@@ -333,8 +449,11 @@ public class SupabaseUserRepository {
             // Конвертируем OffsetDateTime в ISO-8601 строку
             updateMap.put("last_updated", user.getLastUpdated().toString());
         }
+        if (user.getCompany() != null && user.getCompany().getId() != null) {
+            updateMap.put("company_id", user.getCompany().getId().toString());
+        }
         
-        System.out.println("Update data: " + updateMap);
+        log.debug("Updating user {}, columns {}", user.getEmail(), updateMap.keySet());
         
         // Обновляем по email
         Map<String, String> filters = Map.of("email", "eq." + user.getEmail());
@@ -352,32 +471,55 @@ public class SupabaseUserRepository {
                     status -> status.is4xxClientError() || status.is5xxServerError(),
                     response -> response.bodyToMono(String.class)
                         .map(errorBody -> {
-                            System.out.println("=== UPDATE ERROR ===");
-                            System.out.println("Status: " + response.statusCode());
-                            System.out.println("Error: " + errorBody);
+                            log.warn("Supabase update users failed: status={}, body={}",
+                                    response.statusCode(), LogValues.truncate(errorBody, 2000));
                             return new RuntimeException("Supabase update error: " + errorBody);
                         })
                 )
                 .bodyToFlux(SupabaseUserDto.class)
                 .next()
                 .map(this::convertDtoToUser)
-                .doOnNext(updatedUser -> {
-                    System.out.println("User updated successfully: " + updatedUser.getEmail());
-                    System.out.println("====================");
-                })
-                .doOnError(error -> {
-                    System.out.println("=== UPDATE ERROR ===");
-                    System.out.println("Error: " + error.getMessage());
-                    error.printStackTrace();
-                    System.out.println("====================");
-                });
+                .doOnNext(updatedUser -> log.debug("User updated: {}", updatedUser.getEmail()))
+                .doOnError(error -> log.error("Error updating user {}", user.getEmail(), error))
+                .doFinally(signal -> supabaseService.invalidate("users"));
     }
     
+    /**
+     * Назначить users."Role" набору пользователей: один PATCH user_uuid=in.(...) на каждые USER_ID_BATCH_SIZE ID.
+     * В ответе только user_uuid обновлённых строк (select=user_uuid)
+     */
+    public Mono<Set<UUID>> updateRoleByIds(Collection<UUID> userIds, UUID roleId) {
+        if (userIds.isEmpty()) {
+            return Mono.just(Set.of());
+        }
+        Map<String, Object> body = new java.util.HashMap<>();
+        body.put("Role", roleId != null ? roleId.toString() : null);
+        return Flux.fromIterable(new LinkedHashSet<>(userIds))
+                .buffer(USER_ID_BATCH_SIZE)
+                .concatMap(batch -> supabaseWebClient.patch()
+                        .uri(uriBuilder -> uriBuilder.path("/users")
+                                .queryParam("user_uuid", inFilter(batch))
+                                .queryParam("select", "user_uuid")
+                                .build())
+                        .header("Prefer", "return=representation")
+                        .bodyValue(body)
+                        .retrieve()
+                        .onStatus(
+                            status -> status.is4xxClientError() || status.is5xxServerError(),
+                            response -> response.bodyToMono(String.class)
+                                .map(errorBody -> new RuntimeException("Supabase update Role error: " + errorBody))
+                        )
+                        .bodyToFlux(SupabaseUserDto.class))
+                .map(SupabaseUserDto::getUserUuid)
+                .collect(Collectors.toSet())
+                .doFinally(signal -> supabaseService.invalidate("users"));
+    }
+
     /**
      * Обновить поле "Role" по email
      */
     public Mono<Boolean> updateUserRoleByEmail(String email, UUID roleId) {
-        System.out.println("Updating users.\"Role\" for email=" + email + " to roleId=" + roleId);
+        log.debug("Updating users.\"Role\" for email={} to roleId={}", email, roleId);
         Map<String, String> filters = Map.of("email", "eq." + email);
         Map<String, Object> body = new java.util.HashMap<>();
         body.put("Role", roleId != null ? roleId.toString() : null);
@@ -399,16 +541,17 @@ public class SupabaseUserRepository {
                 .bodyToFlux(SupabaseUserDto.class)
                 .hasElements()
                 .map(updated -> {
-                    System.out.println("Role update result: " + updated);
+                    log.debug("Role update result: {}", updated);
                     return updated;
-                });
+                })
+                .doFinally(signal -> supabaseService.invalidate("users"));
     }
     
     /**
      * Обновить поле "Role" по activation_code
      */
     public Mono<Boolean> updateUserRoleByActivationCode(String activationCode, UUID roleId) {
-        System.out.println("Updating users.\"Role\" for activation_code=" + activationCode + " to roleId=" + roleId);
+        log.debug("Updating users.\"Role\" for activation_code={} to roleId={}", activationCode, roleId);
         Map<String, String> filters = Map.of("activation_code", "eq." + activationCode);
         Map<String, Object> body = new java.util.HashMap<>();
         body.put("Role", roleId != null ? roleId.toString() : null);
@@ -430,26 +573,27 @@ public class SupabaseUserRepository {
                 .bodyToFlux(SupabaseUserDto.class)
                 .hasElements()
                 .map(updated -> {
-                    System.out.println("Role update (by activation_code) result: " + updated);
+                    log.debug("Role update (by activation_code) result: {}", updated);
                     return updated;
-                });
+                })
+                .doFinally(signal -> supabaseService.invalidate("users"));
     }
     
     /**
-     * Найти пользователя по ID
+     * Найти пользователя по ID - один запрос user_uuid=eq.<uuid> по уникальному индексу
+     * (колонка из supabase_users_uuid.sql)
      */
     public Mono<Optional<User>> findById(UUID id) {
-        // В Supabase id это bigint, нужно искать по email или получить всех
-        // Пока возвращаем пустой Optional как заглушку
-        return Mono.just(Optional.empty());
+        Map<String, String> filters = Map.of("user_uuid", "eq." + id);
+        return supabaseService.select("users", SupabaseUserDto.class, filters)
+                .map(dtos -> dtos.isEmpty() ? Optional.empty() : Optional.of(convertDtoToUser(dtos.get(0))));
     }
 
     /**
      * Удалить пользователя
      */
     public Mono<Void> deleteById(UUID id) {
-        // Аналогично, ID в Supabase это bigint, а не UUID
-        return Mono.empty();
+        return supabaseService.delete("users", Map.of("user_uuid", "eq." + id));
     }
 
     /**
@@ -462,10 +606,18 @@ public class SupabaseUserRepository {
                         .toList());
     }
 
+    /**
+     * Все пользователи по мере разбора ответа - для полных проходов по таблице (мимо кэша чтения)
+     */
+    public Flux<User> streamAll() {
+        return supabaseService.selectFlux("users", SupabaseUserDto.class)
+                .map(this::convertDtoToUser);
+    }
+
     /**
      * Подсчитать всех пользователей
      */
     public Mono<Long> count() {
-        return findAll().map(list -> (long) list.size());
+        return supabaseService.count("users");
     }
 }
@@ -0,0 +1,158 @@
+package org.example.new_new_mvp.repository;
+
+import org.example.new_new_mvp.model.WebhookJob;
+import org.example.new_new_mvp.model.WebhookJobStatus;
+import org.example.new_new_mvp.service.SupabaseService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Repository;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Таблица webhook_outbox (см. supabase_webhook_outbox.sql).
+ * Переходы статусов - условные PATCH: attempts служит версией строки,
+ * поэтому одно задание не заберут два диспетчера одновременно.
+ */
+@Repository
+public class SupabaseWebhookOutboxRepository {
+
+    private static final String TABLE = "webhook_outbox";
+
+    // Ключ "<тип>:<sha256>" - около 85 символов в query string; 50 ключей укладываются в ~4.5 КБ
+    private static final int KEY_BATCH_SIZE = 50;
+
+    @Autowired
+    private SupabaseService supabaseService;
+
+    @Autowired
+    @Qualifier("supabaseWebClient")
+    private WebClient supabaseWebClient;
+
+    public Mono<WebhookJob> insert(WebhookJob job) {
+        return supabaseService.insert(TABLE, job, WebhookJob.class);
+    }
+
+    /**
+     * Вставить задания одним POST (массовые операции: одно задание на пользователя)
+     */
+    public Mono<List<WebhookJob>> insertAll(List<WebhookJob> jobs) {
+        return supabaseService.insertAll(TABLE, jobs, WebhookJob.class).collectList();
+    }
+
+    public Mono<Optional<WebhookJob>> findById(UUID id) {
+        Map<String, String> filters = Map.of("id", "eq." + id);
+        return supabaseService.select(TABLE, WebhookJob.class, filters)
+                .map(jobs -> jobs.isEmpty() ? Optional.empty() : Optional.of(jobs.get(0)));
+    }
+
+    /**
+     * Незавершённое задание с тем же ключом идемпотентности (PENDING / IN_PROGRESS)
+     */
+    public Mono<Optional<WebhookJob>> findActiveByIdempotencyKey(String idempotencyKey) {
+        Map<String, String> filters = Map.of(
+            "idempotency_key", "eq." + idempotencyKey,
+            "status", "in.(" + WebhookJobStatus.PENDING + "," + WebhookJobStatus.IN_PROGRESS + ")"
+        );
+        return supabaseService.select(TABLE, WebhookJob.class, filters)
+                .map(jobs -> jobs.isEmpty() ? Optional.empty() : Optional.of(jobs.get(0)));
+    }
+
+    /**
+     * Незавершённые задания по набору ключей - один запрос idempotency_key=in.(...) на пачку ключей
+     */
+    public Mono<Map<String, WebhookJob>> findActiveByIdempotencyKeys(Collection<String> idempotencyKeys) {
+        if (idempotencyKeys.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        return Flux.fromIterable(idempotencyKeys)
+                .buffer(KEY_BATCH_SIZE)
+                .concatMap(batch -> supabaseService.select(TABLE, WebhookJob.class, Map.of(
+                        "idempotency_key", SupabaseUserRepository.quotedInFilter(batch),
+                        "status", "in.(" + WebhookJobStatus.PENDING + "," + WebhookJobStatus.IN_PROGRESS + ")")))
+                .flatMapIterable(jobs -> jobs)
+                .collectMap(WebhookJob::getIdempotencyKey);
+    }
+
+    /**
+     * Задания к отправке: PENDING с наступившим next_attempt_at и IN_PROGRESS с истёкшей
+     * блокировкой (диспетчер упал посреди отправки)
+     */
+    public Mono<List<WebhookJob>> findDue(OffsetDateTime now, int limit) {
+        String ts = now.withOffsetSameInstant(ZoneOffset.UTC).toString();
+        Map<String, String> filters = Map.of(
+            "or", "(and(status.eq." + WebhookJobStatus.PENDING + ",next_attempt_at.lte." + ts + "),"
+                + "and(status.eq." + WebhookJobStatus.IN_PROGRESS + ",locked_until.lt." + ts + "))",
+            "order", "next_attempt_at.asc",
+            "limit", String.valueOf(limit)
+        );
+        return supabaseService.select(TABLE, WebhookJob.class, filters);
+    }
+
+    /**
+     * Забрать задание в работу. Пустой результат - задание уже забрал кто-то другой
+     */
+    public Mono<WebhookJob> claim(WebhookJob job, OffsetDateTime lockedUntil) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("status", WebhookJobStatus.IN_PROGRESS);
+        body.put("attempts", job.getAttempts() + 1);
+        body.put("locked_until", lockedUntil);
+        body.put("updated_at", OffsetDateTime.now());
+        return patch(job, body);
+    }
+
+    public Mono<WebhookJob> markSent(WebhookJob job, String response) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("status", WebhookJobStatus.SENT);
+        body.put("locked_until", null);
+        body.put("last_error", null);
+        body.put("response", response);
+        body.put("updated_at", OffsetDateTime.now());
+        return patch(job, body);
+    }
+
+    /**
+     * Неудачная попытка: nextAttemptAt == null - задание уходит в DEAD
+     */
+    public Mono<WebhookJob> markFailed(WebhookJob job, String error, OffsetDateTime nextAttemptAt) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("status", nextAttemptAt != null ? WebhookJobStatus.PENDING : WebhookJobStatus.DEAD);
+        if (nextAttemptAt != null) {
+            body.put("next_attempt_at", nextAttemptAt);
+        }
+        body.put("locked_until", null);
+        body.put("last_error", error);
+        body.put("updated_at", OffsetDateTime.now());
+        return patch(job, body);
+    }
+
+    // PATCH только если строка не менялась с момента чтения (тот же статус и число попыток)
+    private Mono<WebhookJob> patch(WebhookJob job, Map<String, Object> body) {
+        return supabaseWebClient.patch()
+                .uri(uriBuilder -> uriBuilder.path("/" + TABLE)
+                        .queryParam("id", "eq." + job.getId())
+                        .queryParam("status", "eq." + job.getStatus())
+                        .queryParam("attempts", "eq." + job.getAttempts())
+                        .build())
+                .header("Prefer", "return=representation")
+                .bodyValue(body)
+                .retrieve()
+                .onStatus(
+                    status -> status.is4xxClientError() || status.is5xxServerError(),
+                    response -> response.bodyToMono(String.class)
+                        .map(errorBody -> new RuntimeException("Supabase webhook_outbox update error: " + errorBody))
+                )
+                .bodyToFlux(WebhookJob.class)
+                .next();
+    }
+}
@@ -5,7 +5,9 @@ import org.example.new_new_mvp.model.UserRole;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -68,6 +70,10 @@ public class UserRepository {
         return supabaseRepository.findById(id).block();
     }
 
+    public Map<UUID, User> findAllByIds(Collection<UUID> ids) {
+        return supabaseRepository.findAllByIds(ids).block();
+    }
+
     public void deleteById(UUID id) {
         supabaseRepository.deleteById(id).block();
     }
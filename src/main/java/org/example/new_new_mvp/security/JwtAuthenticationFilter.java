@@ -30,9 +30,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
             String token = authorizationHeader.substring(7);
             
-            if (jwtUtil.validateToken(token) && !jwtUtil.isTokenExpired(token)) {
-                String email = jwtUtil.getEmailFromToken(token);
-                String role = jwtUtil.getRoleFromToken(token);
+            // Один разбор токена вместо четырёх: подпись, срок, email и role сразу (с кэшем проверенных токенов)
+            JwtUtil.VerifiedToken verified = jwtUtil.verify(token).orElse(null);
+            
+            if (verified != null) {
+                String email = verified.email();
+                String role = verified.role();
                 
                 if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                     UsernamePasswordAuthenticationToken authentication = 
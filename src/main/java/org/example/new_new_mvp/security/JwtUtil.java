@@ -1,26 +1,93 @@
 package org.example.new_new_mvp.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtUtil {
-    
+
     @Value("${jwt.secret}")
     private String jwtSecret;
-    
+
     @Value("${jwt.expiration}")
     private int jwtExpiration;
-    
+
+    // Кэш проверенных токенов: ключ - sha256 токена, запись живёт не дольше exp токена и ttl; 0 - без кэша
+    @Value("${jwt.cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    @Value("${jwt.cache.ttl-seconds:300}")
+    private long cacheTtlSeconds;
+
+    // Ключ и парсер неизменяемы и потокобезопасны - создаём один раз
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+    private Cache<String, VerifiedToken> verifiedTokens;
+
+    /**
+     * Данные проверенного токена: подпись и срок действия уже проверены
+     */
+    public record VerifiedToken(String email, String role, Date expiration) {
+
+        public boolean isExpired() {
+            return expiration != null && expiration.before(new Date());
+        }
+    }
+
+    @PostConstruct
+    private void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        if (cacheMaxSize <= 0) {
+            return;
+        }
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+                        long ttl = TimeUnit.SECONDS.toNanos(cacheTtlSeconds);
+                        if (token.expiration() == null) {
+                            return ttl;
+                        }
+                        long untilExpiry = TimeUnit.MILLISECONDS.toNanos(token.expiration().getTime() - System.currentTimeMillis());
+                        return Math.max(0, Math.min(ttl, untilExpiry));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        return signingKey;
     }
-    
+
     public String generateToken(String email, String role) {
         return Jwts.builder()
                 .setSubject(email)
@@ -30,43 +97,53 @@ public class JwtUtil {
                 .signWith(getSigningKey(), SignatureAlgorithm.HS256)
                 .compact();
     }
-    
+
+    /**
+     * Проверить токен и извлечь email/role за один разбор. Пусто - подпись неверна, токен битый или истёк.
+     * Повторные запросы с тем же токеном берут результат из кэша без проверки подписи
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+        String key = verifiedTokens != null ? tokenHash(token) : null;
+        VerifiedToken cached = key != null ? verifiedTokens.getIfPresent(key) : null;
+        if (cached != null) {
+            return cached.isExpired() ? Optional.empty() : Optional.of(cached);
+        }
+        try {
+            Claims claims = jwtParser.parseClaimsJws(token).getBody();
+            VerifiedToken verified = new VerifiedToken(claims.getSubject(), claims.get("role", String.class),
+                    claims.getExpiration());
+            if (key != null) {
+                verifiedTokens.put(key, verified);
+            }
+            return Optional.of(verified);
+        } catch (JwtException | IllegalArgumentException e) {
+            // истёкший токен parseClaimsJws отклоняет сам (ExpiredJwtException)
+            return Optional.empty();
+        }
+    }
+
     public String getEmailFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
+        return jwtParser.parseClaimsJws(token)
                 .getBody()
                 .getSubject();
     }
-    
+
     public String getRoleFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
+        return jwtParser.parseClaimsJws(token)
                 .getBody()
                 .get("role", String.class);
     }
-    
+
     public boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
-        }
+        return verify(token).isPresent();
     }
-    
+
     public boolean isTokenExpired(String token) {
         try {
-            Date expiration = Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
+            Date expiration = jwtParser.parseClaimsJws(token)
                     .getBody()
                     .getExpiration();
             return expiration.before(new Date());
@@ -74,4 +151,14 @@ public class JwtUtil {
             return true;
         }
     }
+
+    // В кэше не держим сами токены
+    private static String tokenHash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
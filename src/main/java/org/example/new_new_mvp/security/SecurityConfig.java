@@ -65,6 +65,11 @@ public class SecurityConfig {
                 .requestMatchers("/api/profiles/generate-ai/**").permitAll()
                 .requestMatchers("/api/profiles/assign-role/**").permitAll() // Allow assigning job role from UI
                 .requestMatchers("/api/job-roles/**").permitAll() // Allow job roles access
+                .requestMatchers("/api/profiles/import").hasAnyRole("COMPANY", "ADMIN") // Bulk employee import
+                .requestMatchers("/api/profiles/assign-roles", "/api/profiles/assign-roles/stream")
+                    .hasAnyRole("COMPANY", "ADMIN") // Bulk job role assignment
+                .requestMatchers("/actuator/health/**").permitAll() // Probes
+                .requestMatchers("/actuator/**").hasRole("ADMIN") // Metrics: scrape with an ADMIN token
                 .requestMatchers("/").permitAll()
                 .requestMatchers("/company").permitAll()
                 .requestMatchers("/profile").permitAll()
@@ -0,0 +1,166 @@
+package org.example.new_new_mvp.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Хранилище загруженных файлов по содержимому: blobs/ab/cd/abcd...(sha256). Одинаковый файл,
+ * загруженный повторно или разными сотрудниками, лежит на диске один раз, строки FileUpload
+ * ссылаются на него через content_hash - их число и есть счётчик ссылок.
+ * Хэш считается в том же проходе, что и копирование во временный файл (tmp/ на том же разделе),
+ * готовый blob появляется атомарным переносом. Регистрация строки и удаление последней ссылки
+ * выполняются под блокировкой хэша, чтобы сборка мусора не удалила blob, на который только что сослались
+ */
+@Slf4j
+@Component
+public class ContentAddressedFileStore {
+
+    private static final int LOCK_STRIPES = 64;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path blobRoot;
+    private final Path tmpRoot;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public ContentAddressedFileStore(@Value("${app.upload.path:./uploads}") String uploadPath) {
+        this.blobRoot = Paths.get(uploadPath, "blobs");
+        this.tmpRoot = Paths.get(uploadPath, "tmp");
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Blob на диске: existing - содержимое уже было в хранилище и повторно не записывалось
+     */
+    public record Blob(String hash, Path path, long size, boolean existing) {
+    }
+
+    @FunctionalInterface
+    public interface Registration<T> {
+        T register(Blob blob) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface ReferenceRemoval {
+        long removeAndCount() throws IOException;
+    }
+
+    /**
+     * Сохранить содержимое и под блокировкой его хэша вызвать register (запись строки FileUpload).
+     * probeFirst - сначала только посчитать хэш: если такой blob уже есть, файл не копируется вовсе.
+     * Стоит делать, когда повтор вероятен (в базе есть файл того же размера), иначе это лишнее чтение
+     */
+    public <T> T store(InputStreamSource content, boolean probeFirst, Registration<T> register) throws IOException {
+        if (probeFirst) {
+            long[] size = new long[1];
+            String hash = digest(content, null, size);
+            synchronized (lockFor(hash)) {
+                Path existing = pathOf(hash);
+                if (Files.exists(existing)) {
+                    return register.register(new Blob(hash, existing, size[0], true));
+                }
+            }
+        }
+
+        Files.createDirectories(tmpRoot);
+        Path tmp = Files.createTempFile(tmpRoot, "upload-", ".part");
+        try {
+            long[] size = new long[1];
+            String hash;
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                hash = digest(content, out, size);
+            }
+            synchronized (lockFor(hash)) {
+                Path target = pathOf(hash);
+                boolean existing = Files.exists(target);
+                if (!existing) {
+                    Files.createDirectories(target.getParent());
+                    try {
+                        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (FileAlreadyExistsException e) {
+                        existing = true;
+                    }
+                }
+                try {
+                    return register.register(new Blob(hash, target, size[0], existing));
+                } catch (IOException | RuntimeException e) {
+                    // Только что записанный blob без строки - ни на что не ссылается
+                    if (!existing) {
+                        Files.deleteIfExists(target);
+                    }
+                    throw e;
+                }
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Удалить ссылку: unlink под блокировкой хэша удаляет строку и возвращает число оставшихся ссылок;
+     * если их нет, blob удаляется с диска
+     */
+    public boolean release(String hash, ReferenceRemoval unlink) throws IOException {
+        synchronized (lockFor(hash)) {
+            long remaining = unlink.removeAndCount();
+            if (remaining > 0) {
+                return false;
+            }
+            boolean deleted = Files.deleteIfExists(pathOf(hash));
+            if (deleted) {
+                log.info("Blob {} has no references left, deleted", hash);
+            }
+            return deleted;
+        }
+    }
+
+    /**
+     * Путь blob'а: два уровня каталогов по первым байтам хэша - не больше 256 записей на уровень
+     */
+    public Path pathOf(String hash) {
+        return blobRoot.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private String digest(InputStreamSource content, OutputStream copyTo, long[] size) throws IOException {
+        MessageDigest sha256 = sha256();
+        try (InputStream in = new DigestInputStream(content.getInputStream(), sha256)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (copyTo != null) {
+                    copyTo.write(buffer, 0, read);
+                }
+                size[0] += read;
+            }
+        }
+        return HexFormat.of().formatHex(sha256.digest());
+    }
+
+    private Object lockFor(String hash) {
+        return locks[Math.floorMod(hash.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,411 @@
+package org.example.new_new_mvp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.example.new_new_mvp.dto.CreateProfileRequest;
+import org.example.new_new_mvp.dto.EmployeeImportResult;
+import org.example.new_new_mvp.dto.EmployeeImportResult.RowStatus;
+import org.example.new_new_mvp.model.Company;
+import org.example.new_new_mvp.model.Profile;
+import org.example.new_new_mvp.model.User;
+import org.example.new_new_mvp.model.UserRole;
+import org.example.new_new_mvp.repository.SupabaseProfileRepository;
+import org.example.new_new_mvp.repository.SupabaseUserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.*;
+
+/**
+ * Массовый импорт сотрудников из CSV или NDJSON (поля как у CreateProfileRequest).
+ * createEmployeeProfile делает около 6 последовательных запросов на сотрудника; здесь строки идут пачками
+ * по app.import.batch-size, и на пачку уходит: поиск существующих email=in.(...), одна вставка users массивом,
+ * один PATCH company_id для найденных без компании и один upsert profiles.
+ * Ошибка пачки не прерывает импорт - её строки получают FAILED с текстом ошибки
+ */
+@Slf4j
+@Service
+public class EmployeeImportService {
+
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    // Нормализованный заголовок CSV (без регистра, пробелов, '_' и '-') -> поле CreateProfileRequest
+    private static final Map<String, String> CSV_COLUMNS = Map.ofEntries(
+            Map.entry("employeeemail", "employeeEmail"),
+            Map.entry("email", "employeeEmail"),
+            Map.entry("employeename", "employeeName"),
+            Map.entry("name", "employeeName"),
+            Map.entry("fullname", "employeeName"),
+            Map.entry("currentposition", "currentPosition"),
+            Map.entry("currentskills", "currentSkills"),
+            Map.entry("currentresponsibilities", "currentResponsibilities"),
+            Map.entry("desiredposition", "desiredPosition"),
+            Map.entry("desiredskills", "desiredSkills"),
+            Map.entry("careergoals", "careerGoals"));
+
+    @Autowired
+    private ProfileService profileService;
+
+    @Autowired
+    private SupabaseUserRepository userRepository;
+
+    @Autowired
+    private SupabaseProfileRepository profileRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.import.max-rows:20000}")
+    private int maxRows;
+
+    /**
+     * Запись файла: запрос на сотрудника или ошибка разбора строки
+     */
+    record ImportRow(int row, CreateProfileRequest request, String error) {
+    }
+
+    /**
+     * Формат по ?format=, иначе по Content-Type: *csv* - CSV, всё остальное - NDJSON
+     */
+    public static Format detectFormat(String format, String contentType) {
+        if (format != null && !format.isBlank()) {
+            return Format.valueOf(format.trim().toUpperCase(Locale.ROOT));
+        }
+        return contentType != null && contentType.toLowerCase(Locale.ROOT).contains("csv") ? Format.CSV : Format.NDJSON;
+    }
+
+    /**
+     * Разобрать файл и импортировать сотрудников в компанию текущего пользователя.
+     * Тело запроса и SecurityContext читаются в вызывающем потоке, запросы к Supabase - в возвращаемом Mono
+     */
+    public Mono<EmployeeImportResult> importEmployees(InputStream body, Format format) throws IOException {
+        long started = System.nanoTime();
+        Reader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        List<ImportRow> rows = format == Format.CSV ? parseCsv(reader) : parseNdjson(reader);
+        if (rows.size() > maxRows) {
+            throw new IllegalArgumentException("Too many rows: " + rows.size() + ", limit is " + maxRows);
+        }
+        Company company = profileService.resolveEmployerCompany();
+        log.info("Employee import: {} row(s) into company {}", rows.size(), company.getName());
+
+        ImportRun run = new ImportRun(rows, company.getId());
+        List<Integer> valid = run.validate();
+        return Flux.fromIterable(valid)
+                .buffer(batchSize)
+                .concatMap(batch -> importBatch(run, batch))
+                .then(Mono.fromSupplier(() -> run.summary(System.nanoTime() - started)))
+                .doOnNext(result -> log.info("Employee import finished: {} created, {} updated, {} failed in {} ms",
+                        result.getCreated(), result.getUpdated(), result.getFailed(), result.getDurationMs()));
+    }
+
+    private Mono<Void> importBatch(ImportRun run, List<Integer> batch) {
+        Map<String, Integer> indexByEmail = new LinkedHashMap<>();
+        batch.forEach(index -> indexByEmail.put(run.email(index), index));
+
+        return userRepository.findAllByEmails(indexByEmail.keySet())
+                .flatMap(existing -> {
+                    List<User> newUsers = indexByEmail.entrySet().stream()
+                            .filter(entry -> !existing.containsKey(entry.getKey()))
+                            .map(entry -> newEmployee(run.request(entry.getValue()), run.companyId))
+                            .toList();
+                    List<UUID> withoutCompany = existing.values().stream()
+                            .filter(user -> user.getCompany() == null && user.getId() != null)
+                            .map(User::getId)
+                            .toList();
+                    return userRepository.assignCompanyIfMissing(withoutCompany, run.companyId)
+                            .then(insertUsers(run, newUsers, indexByEmail))
+                            .flatMap(inserted -> writeProfiles(run, indexByEmail, existing, inserted));
+                })
+                .onErrorResume(error -> {
+                    log.warn("Employee import batch failed: {}", error.getMessage());
+                    batch.forEach(index -> run.failIfPending(index, error.getMessage()));
+                    return Mono.empty();
+                });
+    }
+
+    // Пачка вставляется одним INSERT; если его отклонили (email успели создать параллельно и т.п.) -
+    // повтор по одному через save, чтобы одна строка не роняла всю пачку
+    private Mono<Map<String, User>> insertUsers(ImportRun run, List<User> users, Map<String, Integer> indexByEmail) {
+        if (users.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        return userRepository.insertAll(users)
+                .map(inserted -> {
+                    Map<String, User> byEmail = new HashMap<>();
+                    inserted.forEach(user -> byEmail.put(user.getEmail(), user));
+                    return byEmail;
+                })
+                .onErrorResume(error -> {
+                    log.warn("Bulk user insert failed, retrying row by row: {}", error.getMessage());
+                    return Flux.fromIterable(users)
+                            .concatMap(user -> userRepository.save(user)
+                                    .onErrorResume(rowError -> {
+                                        run.failIfPending(indexByEmail.get(user.getEmail()), rowError.getMessage());
+                                        return Mono.empty();
+                                    }))
+                            .collectMap(User::getEmail);
+                });
+    }
+
+    private Mono<Void> writeProfiles(ImportRun run, Map<String, Integer> indexByEmail, Map<String, User> existing,
+                                     Map<String, User> inserted) {
+        OffsetDateTime now = OffsetDateTime.now();
+        List<Profile> profiles = new ArrayList<>(indexByEmail.size());
+        Map<Integer, User> owners = new LinkedHashMap<>();
+        indexByEmail.forEach((email, index) -> {
+            User user = inserted.containsKey(email) ? inserted.get(email) : existing.get(email);
+            if (user == null || user.getId() == null) {
+                run.failIfPending(index, "User was not created");
+                return;
+            }
+            // Сотрудник другой компании: профиль не трогаем, чужой импорт не должен его перезаписать
+            if (!inserted.containsKey(email) && user.getCompany() != null
+                    && !run.companyId.equals(user.getCompany().getId())) {
+                run.failIfPending(index, "User belongs to another company");
+                return;
+            }
+            Profile profile = new Profile();
+            profile.setUserId(user.getId());
+            profile.setProfileData(profileData(run.request(index)));
+            profile.setCompanyId(run.companyId);
+            profile.setLastUpdated(now);
+            profiles.add(profile);
+            owners.put(index, user);
+        });
+        return profileRepository.upsertAll(profiles)
+                .doOnNext(saved -> owners.forEach((index, user) -> run.complete(index,
+                        inserted.containsKey(user.getEmail()) ? RowStatus.CREATED : RowStatus.UPDATED, user.getId())))
+                .then();
+    }
+
+    private static User newEmployee(CreateProfileRequest request, UUID companyId) {
+        Company company = new Company();
+        company.setId(companyId);
+        User user = new User();
+        user.setEmail(request.getEmployeeEmail());
+        user.setFullName(request.getEmployeeName());
+        user.setRole(UserRole.EMPLOYEE);
+        user.setCompany(company);
+        user.setActivationCode(UUID.randomUUID().toString());
+        user.setCreatedAt(OffsetDateTime.now());
+        user.setStatus("invited");
+        return user;
+    }
+
+    // Та же структура profile_data, что у createEmployeeProfile
+    private ObjectNode profileData(CreateProfileRequest request) {
+        ObjectNode data = objectMapper.createObjectNode();
+        data.put("currentPosition", Objects.toString(request.getCurrentPosition(), ""));
+        data.put("currentSkills", Objects.toString(request.getCurrentSkills(), ""));
+        data.put("currentResponsibilities", Objects.toString(request.getCurrentResponsibilities(), ""));
+        data.put("desiredPosition", Objects.toString(request.getDesiredPosition(), ""));
+        data.put("desiredSkills", Objects.toString(request.getDesiredSkills(), ""));
+        data.put("careerGoals", Objects.toString(request.getCareerGoals(), ""));
+        return data;
+    }
+
+    /**
+     * NDJSON: один JSON-объект на строку, пустые строки пропускаются
+     */
+    List<ImportRow> parseNdjson(Reader reader) throws IOException {
+        BufferedReader lines = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        List<ImportRow> rows = new ArrayList<>();
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            int row = rows.size() + 1;
+            try {
+                rows.add(new ImportRow(row, objectMapper.readValue(line, CreateProfileRequest.class), null));
+            } catch (JsonProcessingException e) {
+                rows.add(new ImportRow(row, null, "Invalid JSON: " + e.getOriginalMessage()));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * CSV с заголовком; неизвестные колонки игнорируются, нужна колонка email (employeeEmail)
+     */
+    List<ImportRow> parseCsv(Reader reader) throws IOException {
+        BufferedReader input = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        List<String> header = readCsvRecord(input);
+        if (header == null) {
+            return List.of();
+        }
+        String[] fields = new String[header.size()];
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).replace("\uFEFF", "").toLowerCase(Locale.ROOT).replaceAll("[\\s_-]", "");
+            fields[i] = CSV_COLUMNS.get(name);
+        }
+        if (!Arrays.asList(fields).contains("employeeEmail")) {
+            throw new IllegalArgumentException("CSV header must contain an email column");
+        }
+
+        List<ImportRow> rows = new ArrayList<>();
+        List<String> record;
+        while ((record = readCsvRecord(input)) != null) {
+            if (record.stream().allMatch(String::isBlank)) {
+                continue;
+            }
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < Math.min(fields.length, record.size()); i++) {
+                if (fields[i] != null) {
+                    values.put(fields[i], record.get(i).strip());
+                }
+            }
+            rows.add(new ImportRow(rows.size() + 1, objectMapper.convertValue(values, CreateProfileRequest.class), null));
+        }
+        return rows;
+    }
+
+    /**
+     * Одна запись CSV (RFC 4180): в кавычках допустимы запятые, переводы строк и "" как кавычка.
+     * null - конец входа
+     */
+    static List<String> readCsvRecord(BufferedReader reader) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean read = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            read = true;
+            if (quoted) {
+                if (c != '"') {
+                    field.append((char) c);
+                    continue;
+                }
+                reader.mark(1);
+                if (reader.read() == '"') {
+                    field.append('"');
+                } else {
+                    quoted = false;
+                    reader.reset();
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        if (!read) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Состояние одного импорта: разобранные строки и результат по каждой.
+     * Пачки обрабатываются последовательно (concatMap), поэтому results без синхронизации
+     */
+    private static final class ImportRun {
+
+        private final List<ImportRow> rows;
+        private final EmployeeImportResult.Row[] results;
+        private final UUID companyId;
+
+        ImportRun(List<ImportRow> rows, UUID companyId) {
+            this.rows = rows;
+            this.results = new EmployeeImportResult.Row[rows.size()];
+            this.companyId = companyId;
+        }
+
+        /**
+         * Ошибки разбора, пустой/некорректный email и повторы email внутри файла сразу получают FAILED.
+         * @return индексы строк, которые идут в Supabase
+         */
+        List<Integer> validate() {
+            Map<String, Integer> firstRowByEmail = new HashMap<>();
+            List<Integer> valid = new ArrayList<>();
+            for (int i = 0; i < rows.size(); i++) {
+                ImportRow row = rows.get(i);
+                if (row.error() != null) {
+                    fail(i, row.error());
+                    continue;
+                }
+                String email = row.request().getEmployeeEmail() != null ? row.request().getEmployeeEmail().strip() : "";
+                row.request().setEmployeeEmail(email);
+                if (email.isEmpty() || !email.contains("@")) {
+                    fail(i, "Invalid email");
+                    continue;
+                }
+                Integer first = firstRowByEmail.putIfAbsent(email.toLowerCase(Locale.ROOT), row.row());
+                if (first != null) {
+                    fail(i, "Duplicate email, first seen in row " + first);
+                    continue;
+                }
+                valid.add(i);
+            }
+            return valid;
+        }
+
+        CreateProfileRequest request(int index) {
+            return rows.get(index).request();
+        }
+
+        String email(int index) {
+            return request(index).getEmployeeEmail();
+        }
+
+        void complete(int index, RowStatus status, UUID userId) {
+            results[index] = new EmployeeImportResult.Row(rows.get(index).row(), email(index), status, userId, null);
+        }
+
+        void failIfPending(Integer index, String message) {
+            if (index != null && results[index] == null) {
+                fail(index, message);
+            }
+        }
+
+        private void fail(int index, String message) {
+            CreateProfileRequest request = request(index);
+            results[index] = new EmployeeImportResult.Row(rows.get(index).row(),
+                    request != null ? request.getEmployeeEmail() : null, RowStatus.FAILED, null, message);
+        }
+
+        EmployeeImportResult summary(long elapsedNanos) {
+            int created = 0;
+            int updated = 0;
+            int failed = 0;
+            for (int i = 0; i < results.length; i++) {
+                failIfPending(i, "Not processed");
+            }
+            for (EmployeeImportResult.Row result : results) {
+                switch (result.getStatus()) {
+                    case CREATED -> created++;
+                    case UPDATED -> updated++;
+                    case FAILED -> failed++;
+                }
+            }
+            return new EmployeeImportResult(results.length, created, updated, failed, elapsedNanos / 1_000_000,
+                    Arrays.asList(results));
+        }
+    }
+}
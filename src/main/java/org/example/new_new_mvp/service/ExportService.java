@@ -1,10 +1,19 @@
 package org.example.new_new_mvp.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.example.new_new_mvp.model.*;
 import org.example.new_new_mvp.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -13,6 +22,55 @@ import java.util.stream.Collectors;
 @Service
 public class ExportService {
     
+    /**
+     * Таблицы потоковой выгрузки и колонка для keyset-пагинации (уникальная, сортируемая)
+     */
+    public static final Map<String, String> STREAM_TABLES;
+    static {
+        Map<String, String> tables = new LinkedHashMap<>();
+        tables.put("companies", "id");
+        tables.put("users", "id");
+        tables.put("profiles", "user_id");
+        tables.put("profile_snapshots", "id");
+        tables.put("invitations", "id");
+        tables.put("company_content", "id");
+        tables.put("job_roles", "id");
+        STREAM_TABLES = Collections.unmodifiableMap(tables);
+    }
+    
+    // Что выгружается из каждой таблицы - те же поля, что в exportSQL/convert*ToMap. Новая колонка в выгрузку сама
+    // не попадает: в users лежат password, activation_code (вход по коду), токены и telegram_chat_id.
+    // users.user_uuid - GENERATED ALWAYS, явное значение в INSERT Postgres отклоняет; role хранится в status
+    private static final Map<String, List<String>> EXPORT_COLUMNS = Map.of(
+        "companies", List.of("id", "name", "created_at"),
+        "users", List.of("id", "email", "full_name", "status", "company_id"),
+        "profiles", List.of("user_id", "profile_data", "company_id", "status", "last_updated"),
+        "profile_snapshots", List.of("id", "user_id", "snapshot_date", "profile_data", "kind", "content_hash",
+            "base_id", "seq", "patch"),
+        "invitations", List.of("id", "company_id", "email", "invitation_code", "status", "expires_at"),
+        "company_content", List.of("id", "company_id", "content_type", "title", "data"),
+        "job_roles", List.of("id", "company_id", "role_type", "title", "description", "requirements",
+            "created_at", "updated_at")
+    );
+    
+    // Сколько разобранных строк держать впереди записи в out
+    private static final int STREAM_PREFETCH = 64;
+    
+    public enum ExportFormat {
+        NDJSON,
+        CSV,
+        SQL
+    }
+    
+    @Autowired
+    private SupabaseService supabaseService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${app.export.page-size:500}")
+    private int exportPageSize;
+    
     @Autowired
     private CompanyRepository companyRepository;
     
@@ -354,6 +412,158 @@ public class ExportService {
         return sql.toString();
     }
     
+    /**
+     * Потоковая выгрузка: каждая таблица читается страницами по exportPageSize строк (keyset по STREAM_TABLES),
+     * строки пишутся в out по мере разбора ответа - в памяти не больше STREAM_PREFETCH строк, независимо от размера таблиц.
+     * NDJSON - строка {"table": ..., "data": {...}} на запись, CSV - одна таблица с заголовком,
+     * SQL - DELETE + INSERT на каждую строку, всё в одной транзакции: внешний ключ profile_snapshots.base_id
+     * отложенный (DEFERRABLE INITIALLY DEFERRED), и дельта может идти раньше своего кадра - порядок по id случайный.
+     * Оборванная выгрузка остаётся без COMMIT и при восстановлении откатывается целиком
+     */
+    public void streamExport(List<String> tables, ExportFormat format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == ExportFormat.SQL) {
+            writer.write("-- Evalyze Database SQL Export\n");
+            writer.write("-- Generated: " + LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) + "\n\n");
+            writer.write("BEGIN;\n\n");
+        }
+        for (String table : tables) {
+            String keyColumn = STREAM_TABLES.get(table);
+            if (keyColumn == null) {
+                throw new IllegalArgumentException("Unknown export table: " + table);
+            }
+            if (format == ExportFormat.SQL) {
+                writer.write("-- " + table + "\n");
+                writer.write("DELETE FROM " + quoteIdentifier(table) + ";\n");
+            }
+            List<String> columns = null;
+            String afterKey = null;
+            long rowCount = 0;
+            while (true) {
+                // строки страницы пишутся по мере разбора ответа, сама страница целиком не собирается
+                JsonNode last = null;
+                int pageRows = 0;
+                for (JsonNode row : supabaseService.selectPage(table, keyColumn, afterKey, exportPageSize)
+                        .toIterable(STREAM_PREFETCH)) {
+                    if (columns == null) {
+                        columns = exportColumns(table, row);
+                        if (format == ExportFormat.CSV) {
+                            writeCsvLine(writer, columns);
+                        }
+                    }
+                    switch (format) {
+                        case NDJSON -> writeNdjsonRow(writer, table, row, columns);
+                        case CSV -> writeCsvRow(writer, row, columns);
+                        case SQL -> writeSqlRow(writer, table, row, columns);
+                    }
+                    last = row;
+                    pageRows++;
+                }
+                if (last == null) {
+                    break;
+                }
+                rowCount += pageRows;
+                afterKey = last.get(keyColumn).asText();
+                // страница ушла клиенту - следующая читается только после этого
+                writer.flush();
+                if (pageRows < exportPageSize) {
+                    break;
+                }
+            }
+            if (format == ExportFormat.SQL) {
+                writer.write("-- Total " + table + ": " + rowCount + "\n\n");
+            }
+            System.out.println("Streamed " + rowCount + " rows from " + table + " as " + format);
+        }
+        if (format == ExportFormat.SQL) {
+            writer.write("COMMIT;\n");
+        }
+        writer.flush();
+    }
+    
+    // Колонки из EXPORT_COLUMNS, которые есть в строке (у старых баз части колонок может не быть)
+    private List<String> exportColumns(String table, JsonNode row) {
+        List<String> columns = new ArrayList<>();
+        for (String column : EXPORT_COLUMNS.get(table)) {
+            if (row.has(column)) {
+                columns.add(column);
+            }
+        }
+        return columns;
+    }
+    
+    private void writeNdjsonRow(Writer writer, String table, JsonNode row, List<String> columns) throws IOException {
+        Map<String, JsonNode> data = new LinkedHashMap<>();
+        for (String column : columns) {
+            data.put(column, row.get(column));
+        }
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("table", table);
+        line.put("data", data);
+        writer.write(objectMapper.writeValueAsString(line));
+        writer.write('\n');
+    }
+    
+    private void writeCsvRow(Writer writer, JsonNode row, List<String> columns) throws IOException {
+        List<String> values = new ArrayList<>(columns.size());
+        for (String column : columns) {
+            JsonNode value = row.get(column);
+            if (value == null || value.isNull()) {
+                values.add("");
+            } else {
+                values.add(value.isContainerNode() ? value.toString() : value.asText());
+            }
+        }
+        writeCsvLine(writer, values);
+    }
+    
+    // RFC 4180: поле в кавычках, если в нём запятая, кавычка или перевод строки
+    private void writeCsvLine(Writer writer, List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) writer.write(',');
+            String value = values.get(i);
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write("\r\n");
+    }
+    
+    private void writeSqlRow(Writer writer, String table, JsonNode row, List<String> columns) throws IOException {
+        writer.write("INSERT INTO ");
+        writer.write(quoteIdentifier(table));
+        writer.write(" (");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) writer.write(", ");
+            writer.write(quoteIdentifier(columns.get(i)));
+        }
+        writer.write(") VALUES (");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) writer.write(", ");
+            JsonNode value = row.get(columns.get(i));
+            if (value == null || value.isNull()) {
+                writer.write("NULL");
+            } else if (value.isNumber() || value.isBoolean()) {
+                writer.write(value.asText());
+            } else {
+                // jsonb и текст - строковым литералом, Postgres приведёт к типу колонки
+                writer.write('\'');
+                writer.write((value.isContainerNode() ? value.toString() : value.asText()).replace("'", "''"));
+                writer.write('\'');
+            }
+        }
+        writer.write(");\n");
+    }
+    
+    // В users есть колонки с пробелами и кириллицей ("Текст извечен")
+    private String quoteIdentifier(String name) {
+        return "\"" + name.replace("\"", "\"\"") + "\"";
+    }
+    
     private String escapeSql(String value) {
         if (value == null) return "";
         return value.replace("'", "''").replace("\n", "\\n").replace("\r", "\\r");
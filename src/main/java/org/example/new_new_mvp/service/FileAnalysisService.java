@@ -1,99 +1,225 @@
 package org.example.new_new_mvp.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.new_new_mvp.model.FileUpload;
+import org.example.new_new_mvp.model.FileUploadText;
 import org.example.new_new_mvp.model.User;
 import org.example.new_new_mvp.repository.FileUploadRepository;
+import org.example.new_new_mvp.repository.FileUploadTextRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Анализ загруженных файлов: строки FileUpload читаются одним запросом, файлы разбираются параллельно
+ * на ограниченном пуле (app.analysis.parallelism потоков, очередь app.analysis.queue-capacity; при полной
+ * очереди задачу выполняет вызывающий поток). С диска читается только нужное начало файла.
+ * Результат кэшируется по content_hash: содержимое blob'а не меняется, повторный анализ не трогает диск.
+ * Текст PDF/DOCX извлекается при первом анализе (TextExtractor) и сохраняется в file_upload_texts
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class FileAnalysisService {
     
+    // Сколько символов текстового файла попадает в анализ
+    static final int TEXT_PREVIEW_CHARS = 200;
+    
     private final FileUploadRepository fileUploadRepository;
     
+    private final FileUploadTextRepository fileUploadTextRepository;
+    
+    private final TextExtractor textExtractor;
+    
+    @Value("${app.analysis.parallelism:4}")
+    private int parallelism;
+    
+    @Value("${app.analysis.queue-capacity:100}")
+    private int queueCapacity;
+    
+    @Value("${app.analysis.cache-size:10000}")
+    private long cacheSize;
+    
+    private ThreadPoolExecutor analysisExecutor;
+    
+    private Cache<String, String> analysisCache;
+    
+    @PostConstruct
+    void init() {
+        AtomicInteger threads = new AtomicInteger();
+        analysisExecutor = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> {
+                    Thread thread = new Thread(task, "file-analysis-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        analysisExecutor.allowCoreThreadTimeOut(true);
+        analysisCache = Caffeine.newBuilder().maximumSize(cacheSize).build();
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        analysisExecutor.shutdownNow();
+    }
+    
     public String analyzeFiles(User user, List<UUID> fileIds) {
         log.info("Analyzing {} files for user: {}", fileIds.size(), user.getEmail());
         
+        // Один запрос на все строки; порядок - как в запросе, чужие файлы пропускаются
+        Map<UUID, FileUpload> rows = new HashMap<>();
+        fileUploadRepository.findAllById(fileIds).forEach(file -> rows.put(file.getId(), file));
+        List<FileUpload> files = new ArrayList<>();
+        for (UUID fileId : fileIds) {
+            FileUpload file = rows.get(fileId);
+            if (file != null && file.getUser().getId().equals(user.getId())) {
+                files.add(file);
+            }
+        }
+        
+        // Уже извлечённые тексты PDF/DOCX - тоже одним запросом
+        Map<UUID, FileUploadText> texts = new HashMap<>();
+        List<UUID> extractable = files.stream()
+            .filter(file -> textExtractor.supports(file.getMimeType()))
+            .map(FileUpload::getId)
+            .toList();
+        if (!extractable.isEmpty()) {
+            fileUploadTextRepository.findAllById(extractable).forEach(text -> texts.put(text.getFileUploadId(), text));
+        }
+        
+        List<CompletableFuture<String>> sections = files.stream()
+            .map(file -> CompletableFuture.supplyAsync(() -> fileSection(file, texts.get(file.getId())), analysisExecutor))
+            .toList();
+        
         StringBuilder analysisResult = new StringBuilder();
         analysisResult.append("=== АНАЛИЗ ФАЙЛОВ ===\n\n");
         analysisResult.append("Пользователь: ").append(user.getFullName()).append("\n");
         analysisResult.append("Email: ").append(user.getEmail()).append("\n");
         analysisResult.append("Дата анализа: ").append(java.time.LocalDateTime.now()).append("\n\n");
         
-        for (UUID fileId : fileIds) {
-            try {
-                FileUpload file = fileUploadRepository.findById(fileId).orElse(null);
-                if (file == null || !file.getUser().getId().equals(user.getId())) {
-                    continue;
-                }
-                
-                analysisResult.append("--- Файл: ").append(file.getOriginalFileName()).append(" ---\n");
-                analysisResult.append("Тип: ").append(file.getMimeType()).append("\n");
-                analysisResult.append("Размер: ").append(formatFileSize(file.getFileSize())).append("\n");
-                
-                if (file.getDescription() != null && !file.getDescription().isEmpty()) {
-                    analysisResult.append("Описание: ").append(file.getDescription()).append("\n");
-                }
-                
-                if (file.getTags() != null && !file.getTags().isEmpty()) {
-                    analysisResult.append("Теги: ").append(file.getTags()).append("\n");
-                }
-                
-                // Анализируем содержимое файла
-                String contentAnalysis = analyzeFileContent(file);
-                analysisResult.append("Анализ содержимого:\n").append(contentAnalysis).append("\n\n");
-                
-            } catch (Exception e) {
-                log.error("Error analyzing file: {}", fileId, e);
-                analysisResult.append("Ошибка анализа файла: ").append(e.getMessage()).append("\n\n");
-            }
+        for (CompletableFuture<String> section : sections) {
+            analysisResult.append(section.join());
         }
         
         // Генерируем общие рекомендации
         analysisResult.append("=== РЕКОМЕНДАЦИИ ===\n");
-        analysisResult.append(generateRecommendations(user, fileIds));
+        analysisResult.append(generateRecommendations(files));
         
         return analysisResult.toString();
     }
     
-    private String analyzeFileContent(FileUpload file) {
+    private String fileSection(FileUpload file, FileUploadText storedText) {
+        StringBuilder section = new StringBuilder();
         try {
-            Path filePath = Paths.get(file.getFilePath());
+            section.append("--- Файл: ").append(file.getOriginalFileName()).append(" ---\n");
+            section.append("Тип: ").append(file.getMimeType()).append("\n");
+            section.append("Размер: ").append(formatFileSize(file.getFileSize())).append("\n");
             
-            if (!Files.exists(filePath)) {
-                return "Файл не найден на диске";
+            if (file.getDescription() != null && !file.getDescription().isEmpty()) {
+                section.append("Описание: ").append(file.getDescription()).append("\n");
             }
             
-            String mimeType = file.getMimeType();
-            
-            if (mimeType.startsWith("image/")) {
-                return analyzeImageFile(file);
-            } else if (mimeType.equals("application/pdf")) {
-                return analyzePdfFile(file);
-            } else if (mimeType.startsWith("text/")) {
-                return analyzeTextFile(file);
-            } else if (mimeType.contains("word") || mimeType.contains("document")) {
-                return analyzeWordFile(file);
-            } else {
-                return "Тип файла не поддерживается для анализа";
+            if (file.getTags() != null && !file.getTags().isEmpty()) {
+                section.append("Теги: ").append(file.getTags()).append("\n");
             }
             
+            // Анализируем содержимое файла
+            String contentAnalysis = analyzeFileContent(file, storedText);
+            section.append("Анализ содержимого:\n").append(contentAnalysis).append("\n\n");
+            
+        } catch (Exception e) {
+            log.error("Error analyzing file: {}", file.getId(), e);
+            section.append("Ошибка анализа файла: ").append(e.getMessage()).append("\n\n");
+        }
+        return section.toString();
+    }
+    
+    private String analyzeFileContent(FileUpload file, FileUploadText storedText) {
+        try {
+            if (file.getContentHash() == null) {
+                return describeContent(file, storedText);
+            }
+            // Ошибки и неполные результаты не кэшируются: исключение из функции Caffeine не сохраняет
+            return analysisCache.get(cacheKey(file), key -> {
+                try {
+                    return describeContent(file, storedText);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (PartialAnalysis e) {
+            return e.analysis;
+        } catch (NoSuchFileException e) {
+            return "Файл не найден на диске";
+        } catch (UncheckedIOException e) {
+            if (e.getCause() instanceof NoSuchFileException) {
+                return "Файл не найден на диске";
+            }
+            log.error("Error analyzing file content: {}", file.getOriginalFileName(), e);
+            return "Ошибка при анализе файла: " + e.getCause().getMessage();
         } catch (Exception e) {
             log.error("Error analyzing file content: {}", file.getOriginalFileName(), e);
             return "Ошибка при анализе файла: " + e.getMessage();
         }
     }
     
+    // Имя файла входит в текст анализа, поэтому и в ключ: тот же blob под другим именем - другая запись
+    private static String cacheKey(FileUpload file) {
+        return file.getContentHash() + '\0' + file.getMimeType() + '\0' + file.getOriginalFileName();
+    }
+    
+    private String describeContent(FileUpload file, FileUploadText storedText) throws IOException {
+        Path filePath = Paths.get(file.getFilePath());
+        
+        if (!Files.exists(filePath)) {
+            throw new NoSuchFileException(filePath.toString());
+        }
+        
+        String mimeType = file.getMimeType();
+        
+        if (mimeType.startsWith("image/")) {
+            return analyzeImageFile(file);
+        } else if (mimeType.equals("application/pdf")) {
+            return analyzePdfFile(file, storedText);
+        } else if (mimeType.startsWith("text/")) {
+            return analyzeTextFile(file);
+        } else if (mimeType.contains("word") || mimeType.contains("document")) {
+            return analyzeWordFile(file, storedText);
+        } else {
+            return "Тип файла не поддерживается для анализа";
+        }
+    }
+    
     private String analyzeImageFile(FileUpload file) {
         return String.format("""
             Изображение: %s
@@ -108,22 +234,22 @@ public class FileAnalysisService {
         );
     }
     
-    private String analyzePdfFile(FileUpload file) {
+    private String analyzePdfFile(FileUpload file, FileUploadText storedText) throws IOException {
         return String.format("""
             PDF документ: %s
             - Размер: %s
+            %s
             - Рекомендация: PDF может содержать резюме, сертификаты или портфолио.
-            - Примечание: Для извлечения текста из PDF требуется специальная обработка.
             """, 
             file.getOriginalFileName(),
-            formatFileSize(file.getFileSize())
+            formatFileSize(file.getFileSize()),
+            describeText(extractedText(file, storedText), "Страниц прочитано")
         );
     }
     
     private String analyzeTextFile(FileUpload file) {
         try {
-            Path filePath = Paths.get(file.getFilePath());
-            String content = Files.readString(filePath);
+            String preview = readPrefix(Paths.get(file.getFilePath()), TEXT_PREVIEW_CHARS);
             
             return String.format("""
                 Текстовый файл: %s
@@ -133,44 +259,80 @@ public class FileAnalysisService {
                 """, 
                 file.getOriginalFileName(),
                 formatFileSize(file.getFileSize()),
-                content.length() > 200 ? content.substring(0, 200) + "..." : content
+                preview
             );
         } catch (IOException e) {
             return "Ошибка чтения текстового файла: " + e.getMessage();
         }
     }
     
-    private String analyzeWordFile(FileUpload file) {
+    /**
+     * Первые maxChars символов UTF-8 файла ("..." если файл длиннее): читается не больше maxChars * 4 байт,
+     * сколько бы ни весил файл. Битые последовательности заменяются, а не обрывают анализ
+     */
+    static String readPrefix(Path path, int maxChars) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(maxChars * 4);
+        boolean endOfFile;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (bytes.hasRemaining() && channel.read(bytes) > 0) {
+                // дочитываем до заполнения буфера или конца файла
+            }
+            endOfFile = channel.position() >= channel.size();
+        }
+        bytes.flip();
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars = CharBuffer.allocate(maxChars + 1);
+        decoder.decode(bytes, chars, endOfFile);
+        chars.flip();
+        if (chars.length() > maxChars || !endOfFile) {
+            return chars.subSequence(0, Math.min(maxChars, chars.length())) + "...";
+        }
+        return chars.toString();
+    }
+    
+    private String analyzeWordFile(FileUpload file, FileUploadText storedText) throws IOException {
+        if (textExtractor.supports(file.getMimeType())) {
+            return String.format("""
+                Документ Word: %s
+                - Размер: %s
+                %s
+                - Рекомендация: Word документ может содержать резюме, портфолио или проекты.
+                """, 
+                file.getOriginalFileName(),
+                formatFileSize(file.getFileSize()),
+                describeText(extractedText(file, storedText), "Абзацев прочитано")
+            );
+        }
+        // .doc (Word 97-2003) - двоичный формат, текст из него не извлекается
         return String.format("""
             Документ Word: %s
             - Размер: %s
             - Рекомендация: Word документ может содержать резюме, портфолио или проекты.
-            - Примечание: Для извлечения текста из Word требуется специальная обработка.
+            - Примечание: Текст извлекается только из DOCX, сохраните документ в этом формате.
             """, 
             file.getOriginalFileName(),
             formatFileSize(file.getFileSize())
         );
     }
     
-    private String generateRecommendations(User user, List<UUID> fileIds) {
+    private String generateRecommendations(List<FileUpload> files) {
         StringBuilder recommendations = new StringBuilder();
         
         recommendations.append("На основе загруженных файлов:\n\n");
         
-        // Анализируем типы файлов
-        long imageCount = fileIds.stream()
-            .map(id -> fileUploadRepository.findById(id).orElse(null))
-            .filter(file -> file != null && file.getMimeType().startsWith("image/"))
+        // Анализируем типы файлов - по уже загруженным строкам, без повторных запросов
+        long imageCount = files.stream()
+            .filter(file -> file.getMimeType().startsWith("image/"))
             .count();
             
-        long pdfCount = fileIds.stream()
-            .map(id -> fileUploadRepository.findById(id).orElse(null))
-            .filter(file -> file != null && file.getMimeType().equals("application/pdf"))
+        long pdfCount = files.stream()
+            .filter(file -> file.getMimeType().equals("application/pdf"))
             .count();
             
-        long textCount = fileIds.stream()
-            .map(id -> fileUploadRepository.findById(id).orElse(null))
-            .filter(file -> file != null && file.getMimeType().startsWith("text/"))
+        long textCount = files.stream()
+            .filter(file -> file.getMimeType().startsWith("text/"))
             .count();
         
         recommendations.append("Статистика файлов:\n");
@@ -200,7 +362,63 @@ public class FileAnalysisService {
             return null;
         }
         
-        return analyzeFileContent(file);
+        FileUploadText storedText = textExtractor.supports(file.getMimeType())
+            ? fileUploadTextRepository.findById(fileId).orElse(null)
+            : null;
+        return analyzeFileContent(file, storedText);
+    }
+    
+    /**
+     * Текст PDF/DOCX: сохранённый или извлечённый сейчас. Результат по таймауту не сохраняется -
+     * следующий анализ попробует ещё раз, а пока текст отдаётся как есть, мимо кэша
+     */
+    private FileUploadText extractedText(FileUpload file, FileUploadText storedText) throws IOException {
+        if (storedText != null) {
+            return storedText;
+        }
+        TextExtractor.Extraction extraction = textExtractor.extract(Paths.get(file.getFilePath()), file.getMimeType());
+        FileUploadText text = new FileUploadText(file.getId(), extraction.text(), extraction.units(),
+            extraction.truncated(), LocalDateTime.now());
+        if (extraction.timedOut()) {
+            log.warn("Text extraction timed out for file {} after {} pages/paragraphs", file.getId(), extraction.units());
+            throw new PartialAnalysis(String.format("""
+                Документ: %s
+                %s
+                - Примечание: Текст извлечён не полностью (превышено время), анализ будет повторён.
+                """,
+                file.getOriginalFileName(),
+                describeText(text, "Прочитано")
+            ));
+        }
+        return fileUploadTextRepository.save(text);
+    }
+    
+    private String describeText(FileUploadText text, String unitsLabel) {
+        if (text.getText().isEmpty()) {
+            return "- " + unitsLabel + ": " + text.getUnits() + "\n- Текст не найден: вероятно, это скан, для анализа требуется OCR";
+        }
+        String start = text.getText().substring(0, Math.min(text.getText().length(), TEXT_PREVIEW_CHARS * 2))
+            .replaceAll("\\s+", " ")
+            .strip();
+        String preview = start.length() > TEXT_PREVIEW_CHARS || text.getText().length() > TEXT_PREVIEW_CHARS * 2
+            ? start.substring(0, Math.min(start.length(), TEXT_PREVIEW_CHARS)) + "..."
+            : start;
+        return "- " + unitsLabel + ": " + text.getUnits()
+            + "\n- Извлечено символов: " + text.getText().length() + (Boolean.TRUE.equals(text.getTruncated()) ? " (обрезано)" : "")
+            + "\n- Начало текста: " + preview;
+    }
+    
+    /**
+     * Неполный результат анализа: отдаётся пользователю, но не попадает в кэш
+     */
+    private static final class PartialAnalysis extends RuntimeException {
+        
+        private final String analysis;
+        
+        PartialAnalysis(String analysis) {
+            super(null, null, false, false);
+            this.analysis = analysis;
+        }
     }
     
     private String formatFileSize(long bytes) {
@@ -11,11 +11,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -27,8 +23,7 @@ public class FileUploadService {
     
     private final FileUploadRepository fileUploadRepository;
     
-    @Value("${app.upload.path:./uploads}")
-    private String uploadPath;
+    private final ContentAddressedFileStore fileStore;
     
     @Value("${app.upload.max-size:10485760}") // 10MB по умолчанию
     private long maxFileSize;
@@ -77,38 +72,26 @@ public class FileUploadService {
         log.info("saveFile called for user: {}, file: {}", user.getEmail(), file.getOriginalFilename());
         
         try {
-            // Создаем директорию для пользователя
-            String userDir = user.getId().toString();
-            Path userUploadPath = Paths.get(uploadPath, userDir);
-            log.info("Creating directory: {}", userUploadPath);
-            Files.createDirectories(userUploadPath);
+            // Файл того же размера уже загружали - вероятен повтор: сначала только хэш, без записи на диск
+            boolean probeFirst = fileUploadRepository.existsByFileSizeAndContentHashIsNotNull(file.getSize());
             
-            // Генерируем уникальное имя файла
-            String originalFileName = file.getOriginalFilename();
-            String fileExtension = getFileExtension(originalFileName);
-            String storedFileName = generateUniqueFileName(fileExtension);
-            log.info("Generated storedFileName: {}", storedFileName);
-            
-            // Сохраняем файл
-            Path filePath = userUploadPath.resolve(storedFileName);
-            log.info("Copying file to: {}", filePath);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-            log.info("File copied successfully");
-            
-            // Создаем запись в базе данных
-            FileUpload fileUpload = new FileUpload(
-                user,
-                originalFileName,
-                storedFileName,
-                filePath.toString(),
-                file.getSize(),
-                file.getContentType()
-            );
-            log.info("Created FileUpload object");
-            
-            FileUpload saved = fileUploadRepository.save(fileUpload);
-            log.info("Saved to database with ID: {}", saved.getId());
-            return saved;
+            // Содержимое - в общем blob'е, строка FileUpload на каждую загрузку (имя, владелец, тип свои)
+            return fileStore.store(file, probeFirst, blob -> {
+                FileUpload fileUpload = new FileUpload(
+                    user,
+                    file.getOriginalFilename(),
+                    blob.hash(),
+                    blob.path().toString(),
+                    blob.size(),
+                    file.getContentType()
+                );
+                fileUpload.setContentHash(blob.hash());
+                
+                FileUpload saved = fileUploadRepository.save(fileUpload);
+                log.info("Saved to database with ID: {} ({})", saved.getId(),
+                        blob.existing() ? "existing blob " + blob.hash() : "new blob " + blob.hash());
+                return saved;
+            });
             
         } catch (Exception e) {
             log.error("Error in saveFile for file: {}", file.getOriginalFilename(), e);
@@ -116,19 +99,6 @@ public class FileUploadService {
         }
     }
     
-    private String generateUniqueFileName(String extension) {
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-        String uuid = UUID.randomUUID().toString().substring(0, 8);
-        return String.format("%s_%s%s", timestamp, uuid, extension);
-    }
-    
-    private String getFileExtension(String fileName) {
-        if (fileName == null || !fileName.contains(".")) {
-            return "";
-        }
-        return fileName.substring(fileName.lastIndexOf("."));
-    }
-    
     private boolean isAllowedFileType(String mimeType) {
         if (mimeType == null) {
             return false;
@@ -161,10 +131,18 @@ public class FileUploadService {
         FileUpload fileUpload = fileUploadRepository.findById(fileId).orElse(null);
         if (fileUpload != null) {
             try {
-                // Удаляем физический файл
-                Files.deleteIfExists(Paths.get(fileUpload.getFilePath()));
-                // Удаляем запись из базы данных
-                fileUploadRepository.delete(fileUpload);
+                String hash = fileUpload.getContentHash();
+                if (hash != null) {
+                    // Blob удаляется вместе с последней ссылающейся на него строкой
+                    fileStore.release(hash, () -> {
+                        fileUploadRepository.delete(fileUpload);
+                        return fileUploadRepository.countByContentHash(hash);
+                    });
+                } else {
+                    // Загружен до хранилища по содержимому - собственный файл в uploadPath/<userId>/
+                    Files.deleteIfExists(Paths.get(fileUpload.getFilePath()));
+                    fileUploadRepository.delete(fileUpload);
+                }
                 log.info("File deleted: {}", fileUpload.getOriginalFileName());
             } catch (IOException e) {
                 log.error("Error deleting file: {}", fileUpload.getOriginalFileName(), e);
@@ -1,5 +1,6 @@
 package org.example.new_new_mvp.service;
 
+import org.example.new_new_mvp.dto.CursorPage;
 import org.example.new_new_mvp.dto.CreateInvitationRequest;
 import org.example.new_new_mvp.dto.InvitationDto;
 import org.example.new_new_mvp.model.Company;
@@ -69,6 +70,10 @@ public class InvitationService {
                 .collect(Collectors.toList());
     }
     
+    public CursorPage<InvitationDto> getCompanyInvitationsPage(UUID companyId, UUID after, int limit) {
+        return invitationRepository.findPageByCompanyId(companyId, after, limit).map(this::convertToDto);
+    }
+    
     public List<InvitationDto> getPendingInvitations(UUID companyId) {
         return invitationRepository.findByCompanyIdAndStatus(companyId, InvitationStatus.PENDING).stream()
                 .map(this::convertToDto)
@@ -0,0 +1,268 @@
+package org.example.new_new_mvp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.example.new_new_mvp.dto.BulkJobRoleAssignmentRequest.Assignment;
+import org.example.new_new_mvp.dto.BulkJobRoleAssignmentResult;
+import org.example.new_new_mvp.dto.BulkJobRoleAssignmentResult.Outcome;
+import org.example.new_new_mvp.dto.BulkJobRoleAssignmentResult.OutcomeStatus;
+import org.example.new_new_mvp.model.JobRole;
+import org.example.new_new_mvp.model.Profile;
+import org.example.new_new_mvp.model.User;
+import org.example.new_new_mvp.model.UserRole;
+import org.example.new_new_mvp.model.WebhookJob;
+import org.example.new_new_mvp.model.WebhookType;
+import org.example.new_new_mvp.repository.JobRoleRepository;
+import org.example.new_new_mvp.repository.SupabaseProfileRepository;
+import org.example.new_new_mvp.repository.SupabaseUserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Массовое назначение ролей. assignJobRoleToUser на каждого пользователя читает пользователя и роль, делает PATCH,
+ * читает и сохраняет профиль и ставит webhook; здесь все роли проверяются одним запросом, а пачка пользователей
+ * (app.job-roles.bulk-batch-size) обходится за: поиск пользователей user_uuid=in.(...), PATCH "Role" на каждую роль
+ * пачки, чтение профилей и один upsert, одна вставка заданий в outbox - webhook'и отправляет WebhookDispatcher
+ */
+@Slf4j
+@Service
+public class JobRoleAssignmentService {
+
+    @Autowired
+    private SupabaseUserRepository userRepository;
+
+    @Autowired
+    private SupabaseProfileRepository profileRepository;
+
+    @Autowired
+    private JobRoleRepository jobRoleRepository;
+
+    @Autowired
+    private WebhookService webhookService;
+
+    @Autowired
+    private WebhookOutboxService webhookOutboxService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.job-roles.bulk-batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.job-roles.bulk-max-assignments:5000}")
+    private int maxAssignments;
+
+    /**
+     * Назначить роли от имени requester и отдавать исходы по мере обработки пачек; processed/total в каждом
+     * исходе - прогресс. Webhook-задания принадлежат requester
+     */
+    public Flux<Outcome> assign(List<Assignment> assignments, User requester) {
+        if (assignments == null || assignments.isEmpty()) {
+            return Flux.empty();
+        }
+        if (assignments.size() > maxAssignments) {
+            return Flux.error(new IllegalArgumentException(
+                    "Too many assignments: " + assignments.size() + ", limit is " + maxAssignments));
+        }
+        int total = assignments.size();
+        AtomicInteger processed = new AtomicInteger();
+
+        List<Outcome> rejected = new ArrayList<>();
+        Map<UUID, Assignment> byUser = new LinkedHashMap<>();
+        for (Assignment assignment : assignments) {
+            if (assignment == null || assignment.getUserId() == null || assignment.getJobRoleId() == null) {
+                rejected.add(failed(assignment, "userId and jobRoleId are required"));
+            } else if (byUser.putIfAbsent(assignment.getUserId(), assignment) != null) {
+                rejected.add(failed(assignment, "Duplicate user in request"));
+            }
+        }
+        Set<UUID> roleIds = new LinkedHashSet<>();
+        byUser.values().forEach(assignment -> roleIds.add(assignment.getJobRoleId()));
+
+        return jobRoleRepository.findAllByIds(roleIds)
+                .flatMapMany(roles -> {
+                    List<Assignment> known = new ArrayList<>();
+                    for (Assignment assignment : byUser.values()) {
+                        if (roles.containsKey(assignment.getJobRoleId())) {
+                            known.add(assignment);
+                        } else {
+                            rejected.add(failed(assignment, "Job role not found"));
+                        }
+                    }
+                    log.info("Bulk job role assignment: {} of {} assignment(s) across {} role(s)",
+                            known.size(), total, roles.size());
+                    return Flux.concat(Flux.fromIterable(rejected),
+                            Flux.fromIterable(known)
+                                    .buffer(batchSize)
+                                    .concatMap(batch -> assignBatch(batch, roles, requester)));
+                })
+                .map(outcome -> {
+                    outcome.setProcessed(processed.incrementAndGet());
+                    outcome.setTotal(total);
+                    return outcome;
+                });
+    }
+
+    /**
+     * То же, что assign, но одним ответом со счётчиками
+     */
+    public Mono<BulkJobRoleAssignmentResult> assignAll(List<Assignment> assignments, User requester) {
+        long started = System.nanoTime();
+        return assign(assignments, requester)
+                .collectList()
+                .map(outcomes -> {
+                    int assigned = (int) outcomes.stream().filter(o -> o.getStatus() == OutcomeStatus.ASSIGNED).count();
+                    return new BulkJobRoleAssignmentResult(outcomes.size(), assigned, outcomes.size() - assigned,
+                            (System.nanoTime() - started) / 1_000_000, outcomes);
+                });
+    }
+
+    private Flux<Outcome> assignBatch(List<Assignment> batch, Map<UUID, JobRole> roles, User requester) {
+        Set<UUID> userIds = new LinkedHashSet<>();
+        batch.forEach(assignment -> userIds.add(assignment.getUserId()));
+
+        return userRepository.findAllByIds(userIds)
+                .flatMap(found -> {
+                    List<Outcome> outcomes = new ArrayList<>();
+                    Map<UUID, User> users = new HashMap<>();
+                    Map<UUID, List<UUID>> usersByRole = new LinkedHashMap<>();
+                    for (Assignment assignment : batch) {
+                        User user = found.get(assignment.getUserId());
+                        if (user == null) {
+                            outcomes.add(failed(assignment, "User not found"));
+                        } else if (!canAssign(requester, user)) {
+                            outcomes.add(failed(assignment, "User belongs to another company"));
+                        } else {
+                            users.put(user.getId(), user);
+                            usersByRole.computeIfAbsent(assignment.getJobRoleId(), id -> new ArrayList<>())
+                                    .add(assignment.getUserId());
+                        }
+                    }
+                    return Flux.fromIterable(usersByRole.entrySet())
+                            .concatMap(group -> userRepository.updateRoleByIds(group.getValue(), group.getKey()))
+                            .collect(HashSet<UUID>::new, Set::addAll)
+                            .flatMap(updated -> {
+                                List<Assignment> applied = new ArrayList<>();
+                                for (Assignment assignment : batch) {
+                                    if (!users.containsKey(assignment.getUserId())) {
+                                        continue;
+                                    }
+                                    if (updated.contains(assignment.getUserId())) {
+                                        applied.add(assignment);
+                                    } else {
+                                        outcomes.add(failed(assignment, "Role was not updated"));
+                                    }
+                                }
+                                return writeProfilesAndQueueWebhooks(applied, users, roles, requester);
+                            })
+                            .map(assigned -> {
+                                outcomes.addAll(assigned);
+                                return outcomes;
+                            });
+                })
+                .flatMapIterable(outcomes -> outcomes)
+                .onErrorResume(error -> {
+                    log.warn("Bulk job role assignment batch failed: {}", error.getMessage());
+                    return Flux.fromIterable(batch).map(assignment -> failed(assignment, error.getMessage()));
+                });
+    }
+
+    // Профиль получает данные роли, как в assignJobRoleToUser; company_id сохраняется из существующего профиля
+    private Mono<List<Outcome>> writeProfilesAndQueueWebhooks(List<Assignment> applied, Map<UUID, User> users,
+                                                            Map<UUID, JobRole> roles, User requester) {
+        if (applied.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        List<UUID> userIds = applied.stream().map(Assignment::getUserId).toList();
+        return profileRepository.findAllByUserIds(userIds)
+                .flatMap(existing -> {
+                    OffsetDateTime now = OffsetDateTime.now();
+                    List<Profile> profiles = new ArrayList<>(applied.size());
+                    for (Assignment assignment : applied) {
+                        User user = users.get(assignment.getUserId());
+                        Profile current = existing.get(assignment.getUserId());
+                        Profile profile = new Profile();
+                        profile.setUserId(assignment.getUserId());
+                        profile.setProfileData(roleProfileData(roles.get(assignment.getJobRoleId())));
+                        profile.setCompanyId(current != null ? current.getCompanyId()
+                                : user.getCompany() != null ? user.getCompany().getId() : null);
+                        profile.setLastUpdated(now);
+                        profiles.add(profile);
+                    }
+                    return profileRepository.upsertAll(profiles).thenReturn(profiles);
+                })
+                .flatMap(profiles -> queueWebhooks(applied, users, roles, profiles, requester))
+                .map(jobs -> applied.stream()
+                        .map(assignment -> {
+                            WebhookJob job = jobs.get(webhookKey(assignment));
+                            return new Outcome(assignment.getUserId(), assignment.getJobRoleId(), OutcomeStatus.ASSIGNED,
+                                    job != null ? null : "Webhook was not queued", job != null ? job.getId() : null, 0, 0);
+                        })
+                        .toList());
+    }
+
+    // Как и в одиночном назначении, ошибка постановки webhook'а не отменяет назначение
+    private Mono<Map<String, WebhookJob>> queueWebhooks(List<Assignment> applied, Map<UUID, User> users,
+                                                        Map<UUID, JobRole> roles, List<Profile> profiles,
+                                                        User requester) {
+        Map<String, String> payloads = new LinkedHashMap<>();
+        for (int i = 0; i < applied.size(); i++) {
+            Assignment assignment = applied.get(i);
+            User user = users.get(assignment.getUserId());
+            JobRole jobRole = roles.get(assignment.getJobRoleId());
+            payloads.put(webhookKey(assignment), webhookService.buildJobRoleAssignmentPayload(
+                    assignment.getUserId(),
+                    user.getEmail(),
+                    user.getFullName(),
+                    user.getActivationCode(),
+                    jobRole.getId(),
+                    jobRole.getTitle(),
+                    jobRole.getDescription(),
+                    profiles.get(i).getProfileData().toString(),
+                    user.getCompany() != null ? user.getCompany().getName() : null));
+        }
+        return webhookOutboxService.enqueueAll(WebhookType.ASSIGN_JOB_ROLE, requester.getId(), payloads)
+                .onErrorResume(error -> {
+                    log.warn("Error queueing job role webhooks (non-critical): {}", error.getMessage());
+                    return Mono.just(Map.of());
+                });
+    }
+
+    // COMPANY назначает роли только своим сотрудникам, ADMIN - любым
+    private static boolean canAssign(User requester, User user) {
+        if (requester.getRole() != UserRole.COMPANY) {
+            return true;
+        }
+        return requester.getCompany() != null && user.getCompany() != null
+                && Objects.equals(requester.getCompany().getId(), user.getCompany().getId());
+    }
+
+    private ObjectNode roleProfileData(JobRole jobRole) {
+        ObjectNode data = objectMapper.createObjectNode();
+        data.put("currentPosition", jobRole.getTitle());
+        data.set("jobRoleData", jobRole.getRequirements() != null
+                ? objectMapper.valueToTree(jobRole.getRequirements())
+                : objectMapper.createObjectNode());
+        data.put("assignedRoleId", jobRole.getId().toString());
+        data.put("description", Objects.toString(jobRole.getDescription(), ""));
+        return data;
+    }
+
+    private static String webhookKey(Assignment assignment) {
+        return WebhookOutboxService.idempotencyKey(WebhookType.ASSIGN_JOB_ROLE,
+                assignment.getUserId(), assignment.getJobRoleId());
+    }
+
+    private static Outcome failed(Assignment assignment, String message) {
+        return new Outcome(assignment != null ? assignment.getUserId() : null,
+                assignment != null ? assignment.getJobRoleId() : null, OutcomeStatus.FAILED, message, null, 0, 0);
+    }
+}
@@ -0,0 +1,135 @@
+package org.example.new_new_mvp.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * JSON Patch (RFC 6902) для снимков профиля: операции add / remove / replace.
+ * diff рекурсивно сравнивает объекты и массивы одной длины; массив другой длины заменяется целиком -
+ * в profile_data это списки навыков/опыта, где поэлементный сдвиг не даёт выигрыша.
+ */
+final class JsonPatch {
+
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+
+    private JsonPatch() {
+    }
+
+    /**
+     * Патч, превращающий source в target
+     */
+    static ArrayNode diff(JsonNode source, JsonNode target) {
+        ArrayNode patch = NODES.arrayNode();
+        diff("", source, target, patch);
+        return patch;
+    }
+
+    private static void diff(String path, JsonNode source, JsonNode target, ArrayNode patch) {
+        if (source.equals(target)) {
+            return;
+        }
+        if (source.isObject() && target.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> fields = source.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                String fieldPath = path + "/" + escape(field.getKey());
+                JsonNode targetValue = target.get(field.getKey());
+                if (targetValue == null) {
+                    patch.addObject().put("op", "remove").put("path", fieldPath);
+                } else {
+                    diff(fieldPath, field.getValue(), targetValue, patch);
+                }
+            }
+            Iterator<Map.Entry<String, JsonNode>> added = target.fields();
+            while (added.hasNext()) {
+                Map.Entry<String, JsonNode> field = added.next();
+                if (!source.has(field.getKey())) {
+                    patch.addObject().put("op", "add").put("path", path + "/" + escape(field.getKey()))
+                            .set("value", field.getValue());
+                }
+            }
+            return;
+        }
+        if (source.isArray() && target.isArray() && source.size() == target.size()) {
+            for (int i = 0; i < source.size(); i++) {
+                diff(path + "/" + i, source.get(i), target.get(i), patch);
+            }
+            return;
+        }
+        patch.addObject().put("op", "replace").put("path", path).set("value", target);
+    }
+
+    /**
+     * Применить патч к копии document; сам document не меняется
+     */
+    static JsonNode apply(JsonNode document, JsonNode patch) {
+        JsonNode result = document.deepCopy();
+        for (JsonNode operation : patch) {
+            String op = operation.path("op").asText();
+            String path = operation.path("path").asText();
+            JsonNode value = operation.get("value");
+            if (path.isEmpty()) {
+                if (!"replace".equals(op) && !"add".equals(op)) {
+                    throw new IllegalArgumentException("Unsupported patch operation on root: " + op);
+                }
+                result = value.deepCopy();
+                continue;
+            }
+            int slash = path.lastIndexOf('/');
+            JsonNode parent = resolve(result, path.substring(0, slash));
+            String key = unescape(path.substring(slash + 1));
+            if (parent instanceof ObjectNode object) {
+                switch (op) {
+                    case "add", "replace" -> object.set(key, value.deepCopy());
+                    case "remove" -> object.remove(key);
+                    default -> throw new IllegalArgumentException("Unsupported patch operation: " + op);
+                }
+            } else if (parent instanceof ArrayNode array) {
+                switch (op) {
+                    case "add" -> {
+                        if ("-".equals(key)) {
+                            array.add(value.deepCopy());
+                        } else {
+                            array.insert(Integer.parseInt(key), value.deepCopy());
+                        }
+                    }
+                    case "replace" -> array.set(Integer.parseInt(key), value.deepCopy());
+                    case "remove" -> array.remove(Integer.parseInt(key));
+                    default -> throw new IllegalArgumentException("Unsupported patch operation: " + op);
+                }
+            } else {
+                throw new IllegalArgumentException("Patch path does not exist: " + path);
+            }
+        }
+        return result;
+    }
+
+    private static JsonNode resolve(JsonNode document, String pointer) {
+        JsonNode node = document;
+        if (pointer.isEmpty()) {
+            return node;
+        }
+        for (String token : pointer.substring(1).split("/", -1)) {
+            String key = unescape(token);
+            node = node.isArray() ? node.get(Integer.parseInt(key)) : node.get(key);
+            if (node == null) {
+                throw new IllegalArgumentException("Patch path does not exist: " + pointer);
+            }
+        }
+        return node;
+    }
+
+    // JSON Pointer (RFC 6901): '~' -> '~0', '/' -> '~1'
+    private static String escape(String key) {
+        return key.replace("~", "~0").replace("/", "~1");
+    }
+
+    private static String unescape(String token) {
+        return token.replace("~1", "/").replace("~0", "~");
+    }
+}
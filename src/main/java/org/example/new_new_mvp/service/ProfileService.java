@@ -11,8 +11,9 @@ import org.example.new_new_mvp.model.User;
 import org.example.new_new_mvp.model.UserRole;
 import org.example.new_new_mvp.model.Company;
 import org.example.new_new_mvp.model.JobRole;
+import org.example.new_new_mvp.model.WebhookJob;
+import org.example.new_new_mvp.model.WebhookType;
 import org.example.new_new_mvp.repository.ProfileRepository;
-import org.example.new_new_mvp.repository.ProfileSnapshotRepository;
 import org.example.new_new_mvp.repository.UserRepository;
 import org.example.new_new_mvp.repository.CompanyRepository;
 import org.example.new_new_mvp.repository.JobRoleRepositoryAdapter;
@@ -26,17 +27,18 @@ import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
+/**
+ * Записи профилей и кнопки UI (создание сотрудника, AI-профиль, назначение роли) - блокирующие: они идут через
+ * адаптеры ProfileRepository/UserRepository/CompanyRepository, и их контроллеры отвечают синхронно.
+ * Чтения обслуживает реактивный SupabaseProfileService; массовые записи - EmployeeImportService и JobRoleAssignmentService
+ */
 @Service
 public class ProfileService {
     
     @Autowired
     private ProfileRepository profileRepository;
     
-    @Autowired
-    private ProfileSnapshotRepository profileSnapshotRepository;
-    
     @Autowired
     private UserRepository userRepository;
     
@@ -49,9 +51,18 @@ public class ProfileService {
     @Autowired
     private WebhookService webhookService;
     
+    @Autowired
+    private WebhookOutboxService webhookOutboxService;
+    
     @Autowired
     private ObjectMapper objectMapper;
     
+    @Autowired
+    private SupabaseProfileService supabaseProfileService;
+    
+    @Autowired
+    private ProfileSnapshotService profileSnapshotService;
+    
     public ProfileDto createOrUpdateProfile(UUID userId, String profileData) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -75,21 +86,7 @@ public class ProfileService {
     }
     
     public Optional<ProfileDto> getProfileByUserId(UUID userId) {
-        return profileRepository.findByUserId(userId)
-                .map(this::convertToDto);
-    }
-    
-    public List<ProfileDto> getCompanyProfiles(UUID companyId) {
-        return profileRepository.findByUserCompanyId(companyId).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
-    }
-    
-    public List<ProfileDto> getProfilesByStatus(ProfileStatus status) {
-        // Status field doesn't exist in Supabase schema, return all profiles
-        return profileRepository.findAll().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return supabaseProfileService.getProfileByUserId(userId).block();
     }
     
     public ProfileDto updateProfileStatus(UUID userId, ProfileStatus status) {
@@ -106,153 +103,23 @@ public class ProfileService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
-        ProfileSnapshot snapshot = new ProfileSnapshot();
-        snapshot.setUserId(userId);
-        snapshot.setProfileData(profileData);
-        snapshot.setSnapshotDate(java.time.OffsetDateTime.now());
-        
-        profileSnapshotRepository.save(snapshot);
-    }
-    
-    public List<ProfileSnapshot> getUserSnapshots(UUID userId) {
-        return profileSnapshotRepository.findByUserIdOrderBySnapshotDateDesc(userId);
-    }
-    
-    public List<?> getAllProfiles() {
-        List<Profile> profiles = profileRepository.findAll();
-        return profiles.stream()
-                .map(this::convertToSimpleDto)
-                .collect(Collectors.toList());
-    }
-    
-    private Object convertToSimpleDto(Profile profile) {
-        // Parse profile data if it's a string
-        Object profileData = null;
-        if (profile.getProfileData() != null) {
-            try {
-                profileData = new Object() {
-                    // We'll parse this in JavaScript
-                };
-            } catch (Exception e) {
-                profileData = profile.getProfileData();
-            }
+        // Без изменений снимок не пишется, изменения хранятся дельтой от ключевого кадра
+        try {
+            profileSnapshotService.record(userId, objectMapper.readTree(profileData));
+        } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
+            throw new RuntimeException("Error parsing profile data", e);
         }
-        
-        // Get user information separately
-        final User user = userRepository.findById(profile.getUserId())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        return new Object() {
-            public final UUID userId = profile.getUserId();
-            public final String employeeEmail = user.getEmail();
-            public final String employeeName = user.getFullName();
-            public final String profileData = profile.getProfileData() != null ? profile.getProfileData().toString() : "{}";
-            public final ProfileStatus status = profile.getStatus();
-            public final boolean isVerified = profile.getStatus() == ProfileStatus.COMPLETED;
-            public final boolean aiProfileGenerated = false; // For now, always false
-            public final OffsetDateTime lastUpdated = profile.getLastUpdated();
-        };
     }
     
-    public Object findProfileByEmail(String email) {
-        System.out.println("Searching for profile with email: " + email);
-        
-        // Find user by email
-        User user = userRepository.findByEmail(email)
-                .orElse(null);
-        
-        if (user == null) {
-            System.out.println("User not found for email: " + email);
-            return null;
-        }
-        
-        System.out.println("User found: " + user.getEmail() + ", Company: " + (user.getCompany() != null ? user.getCompany().getName() : "null"));
-        
-        // Find profile by user ID
-        Profile profile = profileRepository.findByUserId(user.getId()).orElse(null);
-        
-        if (profile == null) {
-            System.out.println("Profile not found for user: " + user.getEmail() + ", creating new profile");
-            
-            // Create empty profile for user
-            profile = new Profile();
-            profile.setUserId(user.getId());
-            try {
-                profile.setProfileData(objectMapper.readTree("{}"));
-            } catch (Exception e) {
-                System.out.println("Error creating empty profile data: " + e.getMessage());
-            }
-            profile.setStatus(ProfileStatus.PENDING);
-            profile.setLastUpdated(OffsetDateTime.now());
-            
-            if (user.getCompany() != null) {
-                profile.setCompanyId(user.getCompany().getId());
-            }
-            
-            profile = profileRepository.save(profile);
-            System.out.println("New profile created for user: " + user.getEmail());
-        }
-        
-        System.out.println("Profile found for user: " + user.getEmail());
-        
-        // Return a simplified profile object for frontend
-        final User finalUser = user;
-        final Profile finalProfile = profile;
-        return new Object() {
-            public final UUID userId = finalProfile.getUserId();
-            public final String employeeEmail = finalUser.getEmail();
-            public final String employeeName = finalUser.getFullName();
-            public final String profileData = finalProfile.getProfileData() != null ? finalProfile.getProfileData().toString() : "{}";
-            public final ProfileStatus status = finalProfile.getStatus();
-            public final boolean isVerified = finalProfile.getStatus() == ProfileStatus.COMPLETED;
-            public final UUID companyId = finalUser.getCompany() != null ? finalUser.getCompany().getId() : null;
-            public final String companyName = finalUser.getCompany() != null ? finalUser.getCompany().getName() : null;
-        };
+    public List<ProfileSnapshot> getUserSnapshots(UUID userId) {
+        return profileSnapshotService.getHistory(userId);
     }
     
     public Object createEmployeeProfile(CreateProfileRequest request) {
         System.out.println("Creating employee profile for email: " + request.getEmployeeEmail());
         System.out.println("Request data: " + request);
         
-        // Get current company from security context (or use default if not authenticated)
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        User companyUser = null;
-        
-        if (auth != null && auth.isAuthenticated() && !"anonymousUser".equals(auth.getName())) {
-            String currentUserEmail = auth.getName();
-            System.out.println("Current user email: " + currentUserEmail);
-            
-            companyUser = userRepository.findByEmail(currentUserEmail).orElse(null);
-            
-            if (companyUser != null) {
-                System.out.println("Current user role: " + companyUser.getRole());
-                System.out.println("Current user company: " + (companyUser.getCompany() != null ? companyUser.getCompany().getName() : "null"));
-            }
-        }
-        
-        // If no authenticated user or no company, create/use a default company
-        if (companyUser == null || companyUser.getCompany() == null) {
-            System.out.println("No authenticated user or company, creating default company");
-            Company company = companyRepository.findByName("Default Company").orElse(null);
-            
-            if (company == null) {
-                company = new Company();
-                company.setName("Default Company");
-                company = companyRepository.save(company);
-                System.out.println("Created default company: " + company.getName());
-            }
-            
-            // If we have a user, associate them with the company
-            if (companyUser != null && companyUser.getCompany() == null) {
-                companyUser.setCompany(company);
-                companyUser = userRepository.save(companyUser);
-            }
-            
-            companyUser = new User();
-            companyUser.setCompany(company);
-        }
-        
-        Company userCompany = companyUser.getCompany();
+        Company userCompany = resolveEmployerCompany();
         System.out.println("Using company: " + userCompany.getName());
         
         // Check if user with this email already exists
@@ -339,16 +206,54 @@ public class ProfileService {
         };
     }
     
+    /**
+     * Компания, в которую добавляются сотрудники: компания текущего пользователя,
+     * без аутентификации или компании - "Default Company" (создаётся при первом обращении)
+     */
+    public Company resolveEmployerCompany() {
+        // Get current company from security context (or use default if not authenticated)
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        User companyUser = null;
+        
+        if (auth != null && auth.isAuthenticated() && !"anonymousUser".equals(auth.getName())) {
+            String currentUserEmail = auth.getName();
+            System.out.println("Current user email: " + currentUserEmail);
+            
+            companyUser = userRepository.findByEmail(currentUserEmail).orElse(null);
+            
+            if (companyUser != null) {
+                System.out.println("Current user role: " + companyUser.getRole());
+                System.out.println("Current user company: " + (companyUser.getCompany() != null ? companyUser.getCompany().getName() : "null"));
+            }
+        }
+        
+        // If no authenticated user or no company, create/use a default company
+        if (companyUser == null || companyUser.getCompany() == null) {
+            System.out.println("No authenticated user or company, creating default company");
+            Company company = companyRepository.findByName("Default Company").orElse(null);
+            
+            if (company == null) {
+                company = new Company();
+                company.setName("Default Company");
+                company = companyRepository.save(company);
+                System.out.println("Created default company: " + company.getName());
+            }
+            
+            // If we have a user, associate them with the company
+            if (companyUser != null && companyUser.getCompany() == null) {
+                companyUser.setCompany(company);
+                companyUser = userRepository.save(companyUser);
+            }
+            
+            companyUser = new User();
+            companyUser.setCompany(company);
+        }
+        
+        return companyUser.getCompany();
+    }
+    
     private ProfileDto convertToDto(Profile profile, User user) {
-        ProfileDto dto = new ProfileDto();
-        dto.setUserId(profile.getUserId());
-        dto.setUserEmail(user.getEmail());
-        dto.setUserFullName(user.getFullName());
-        dto.setProfileData(profile.getProfileData());
-        dto.setStatus(profile.getStatus());
-        dto.setLastUpdated(profile.getLastUpdated());
-        
-        return dto;
+        return SupabaseProfileService.convertToDto(profile, user);
     }
     
     private ProfileDto convertToDto(Profile profile) {
@@ -429,33 +334,15 @@ public class ProfileService {
         System.out.println("Preparing to send webhook with activation_code: " + finalUser.getActivationCode());
         
         try {
-            // Send webhook to n8n (третий webhook) со ВСЕМИ данными пользователя из Supabase
-            String webhookResponse = webhookService.sendAIProfileGenerationWebhook(
-                finalProfile.getUserId(),
-                finalUser.getEmail(),
-                finalUser.getFullName(),
-                finalProfile.getProfileData() != null ? finalProfile.getProfileData().toString() : "{}",
-                finalUser.getCompany() != null ? finalUser.getCompany().getName() : null,
-                finalUser.getActivationCode(),
-                finalUser.getTelegramChatId(),
-                finalUser.getStatus()
-            );
+            // Ставим webhook в n8n (третий webhook) со ВСЕМИ данными пользователя из Supabase в outbox
+            WebhookJob job = enqueueAIProfileGeneration(finalUser, finalProfile);
             
-            System.out.println("Webhook sent successfully to n8n");
+            System.out.println("Webhook queued for n8n: " + job.getId());
             
-            // Return success response
-            final String finalWebhookResponse = webhookResponse;
-            return new Object() {
-                public final String message = "AI profile generation initiated successfully";
-                public final UUID userId = finalProfile.getUserId();
-                public final String userEmail = finalUser.getEmail();
-                public final String activationCode = finalUser.getActivationCode();
-                public final String status = "webhook_sent";
-                public final String webhookResponse = finalWebhookResponse;
-            };
+            return aiProfileQueuedResponse(finalUser, finalProfile, job);
             
         } catch (Exception e) {
-            System.out.println("Error sending webhook to n8n: " + e.getMessage());
+            System.out.println("Error queueing webhook to n8n: " + e.getMessage());
             e.printStackTrace();
             
             // Return error response
@@ -510,27 +397,51 @@ public class ProfileService {
             profile = profileRepository.save(profile);
         }
         
-        // Send webhook with full data (including activation code)
-        String webhookResponse = webhookService.sendAIProfileGenerationWebhook(
+        // Ставим webhook с полными данными (включая activation code) в outbox
+        WebhookJob job = enqueueAIProfileGeneration(user, profile);
+        return aiProfileQueuedResponse(user, profile, job);
+    }
+    
+    private WebhookJob enqueueAIProfileGeneration(User user, Profile profile) {
+        String profileData = profile.getProfileData() != null ? profile.getProfileData().toString() : "{}";
+        String payload = webhookService.buildAIProfileGenerationPayload(
             profile.getUserId(),
             user.getEmail(),
             user.getFullName(),
-            profile.getProfileData() != null ? profile.getProfileData().toString() : "{}",
+            profileData,
             user.getCompany() != null ? user.getCompany().getName() : null,
             user.getActivationCode(),
             user.getTelegramChatId(),
             user.getStatus()
         );
-        final String finalWebhookResponse = webhookResponse;
-        final User finalUser = user;
-        final Profile finalProfile = profile;
+        String idempotencyKey = WebhookOutboxService.idempotencyKey(WebhookType.GENERATE_AI_PROFILE,
+            profile.getUserId(), profileData);
+        return webhookOutboxService.enqueue(WebhookType.GENERATE_AI_PROFILE, requesterId(user), payload, null, idempotencyKey)
+            .block();
+    }
+    
+    /**
+     * Владелец webhook-задания - текущий пользователь; без аутентификации (открытые эндпоинты кнопок) -
+     * сам пользователь, о котором задание
+     */
+    private UUID requesterId(User subject) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || "anonymousUser".equals(auth.getName())
+                || auth.getName().equalsIgnoreCase(subject.getEmail())) {
+            return subject.getId();
+        }
+        return userRepository.findByEmail(auth.getName()).map(User::getId).orElse(subject.getId());
+    }
+    
+    private Object aiProfileQueuedResponse(User user, Profile profile, WebhookJob job) {
         return new Object() {
-            public final String message = "AI profile generation initiated successfully";
-            public final UUID userId = finalProfile.getUserId();
-            public final String userEmail = finalUser.getEmail();
-            public final String activationCode = finalUser.getActivationCode();
-            public final String status = "webhook_sent";
-            public final String webhookResponse = finalWebhookResponse;
+            public final String message = "AI profile generation queued";
+            public final UUID userId = profile.getUserId();
+            public final String userEmail = user.getEmail();
+            public final String activationCode = user.getActivationCode();
+            public final String status = "webhook_queued";
+            public final UUID jobId = job.getId();
+            public final String statusUrl = "/api/webhook-jobs/" + job.getId();
         };
     }
     
@@ -585,25 +496,17 @@ public class ProfileService {
             
             System.out.println("Job role assigned to profile successfully");
             
-            // Отправляем webhook на второй n8n endpoint
+            // Ставим webhook на второй n8n endpoint в outbox
+            UUID queuedJobId = null;
             try {
-                String webhookResponse = webhookService.sendJobRoleAssignmentWebhook(
-                    savedProfile.getUserId(),
-                    user.getEmail(),
-                    user.getFullName(),
-                    user.getActivationCode(),
-                    jobRoleId,
-                    jobRole.getTitle(),
-                    jobRole.getDescription(),
-                    savedProfile.getProfileData() != null ? savedProfile.getProfileData().toString() : "{}",
-                    user.getCompany() != null ? user.getCompany().getName() : null
-                );
-                System.out.println("Webhook sent successfully: " + webhookResponse);
+                queuedJobId = enqueueJobRoleAssignment(user, savedProfile, jobRole).getId();
+                System.out.println("Webhook queued: " + queuedJobId);
             } catch (Exception webhookException) {
-                System.out.println("Error sending webhook (non-critical): " + webhookException.getMessage());
+                System.out.println("Error queueing webhook (non-critical): " + webhookException.getMessage());
             }
             
             final UUID finalJobRoleId = jobRoleId;
+            final UUID finalWebhookJobId = queuedJobId;
             return new Object() {
                 public final String message = "Job role assigned successfully";
                 public final UUID userId = user.getId();
@@ -611,6 +514,7 @@ public class ProfileService {
                 public final String jobRoleTitle = jobRole.getTitle();
                 public final UUID jobRoleId = finalJobRoleId;
                 public final String status = "success";
+                public final UUID webhookJobId = finalWebhookJobId;
             };
             
         } catch (Exception e) {
@@ -672,22 +576,13 @@ public class ProfileService {
             profile.setLastUpdated(OffsetDateTime.now());
             Profile savedProfile = profileRepository.save(profile);
 
-            // Отправляем webhook с activationCode
+            // Ставим webhook с activationCode в outbox
+            UUID queuedJobId = null;
             try {
-                String webhookResponse = webhookService.sendJobRoleAssignmentWebhook(
-                    savedProfile.getUserId(),
-                    user.getEmail(),
-                    user.getFullName(),
-                    user.getActivationCode(),
-                    jobRoleId,
-                    jobRole.getTitle(),
-                    jobRole.getDescription(),
-                    savedProfile.getProfileData() != null ? savedProfile.getProfileData().toString() : "{}",
-                    user.getCompany() != null ? user.getCompany().getName() : null
-                );
-                System.out.println("Webhook (flex) sent successfully: " + webhookResponse);
+                queuedJobId = enqueueJobRoleAssignment(user, savedProfile, jobRole).getId();
+                System.out.println("Webhook (flex) queued: " + queuedJobId);
             } catch (Exception webhookException) {
-                System.out.println("Error sending webhook (flex, non-critical): " + webhookException.getMessage());
+                System.out.println("Error queueing webhook (flex, non-critical): " + webhookException.getMessage());
             }
 
             final UUID finalJobRoleId = jobRoleId;
@@ -695,6 +590,7 @@ public class ProfileService {
             final String finalUserEmail = user.getEmail();
             final String finalJobRoleTitle = jobRole.getTitle();
             final boolean finalRoleUpdated = roleUpdated;
+            final UUID finalWebhookJobId = queuedJobId;
             return new Object() {
                 public final String message = "Job role assigned successfully";
                 public final UUID userId = finalUserId;
@@ -702,6 +598,7 @@ public class ProfileService {
                 public final String jobRoleTitle = finalJobRoleTitle;
                 public final UUID jobRoleId = finalJobRoleId;
                 public final String status = finalRoleUpdated ? "success" : "saved_profile_only";
+                public final UUID webhookJobId = finalWebhookJobId;
             };
 
         } catch (Exception e) {
@@ -714,4 +611,22 @@ public class ProfileService {
             };
         }
     }
+    
+    private WebhookJob enqueueJobRoleAssignment(User user, Profile profile, JobRole jobRole) {
+        String payload = webhookService.buildJobRoleAssignmentPayload(
+            profile.getUserId(),
+            user.getEmail(),
+            user.getFullName(),
+            user.getActivationCode(),
+            jobRole.getId(),
+            jobRole.getTitle(),
+            jobRole.getDescription(),
+            profile.getProfileData() != null ? profile.getProfileData().toString() : "{}",
+            user.getCompany() != null ? user.getCompany().getName() : null
+        );
+        String idempotencyKey = WebhookOutboxService.idempotencyKey(WebhookType.ASSIGN_JOB_ROLE,
+            profile.getUserId(), jobRole.getId());
+        return webhookOutboxService.enqueue(WebhookType.ASSIGN_JOB_ROLE, requesterId(user), payload, null, idempotencyKey)
+            .block();
+    }
 }
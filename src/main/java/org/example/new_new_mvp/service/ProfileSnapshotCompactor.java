@@ -0,0 +1,68 @@
+package org.example.new_new_mvp.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.new_new_mvp.model.ProfileSnapshot;
+import org.example.new_new_mvp.repository.SupabaseProfileSnapshotRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ночная компакция profile_snapshots по политике хранения ProfileSnapshotService.
+ * План строится по лёгким строкам старше границы (id, user_id, дата, kind, base_id - без данных),
+ * полная история читается только у пользователей, у которых есть что удалить.
+ */
+@Slf4j
+@Component
+public class ProfileSnapshotCompactor {
+
+    @Autowired
+    private SupabaseProfileSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private ProfileSnapshotService profileSnapshotService;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Scheduled(cron = "${profile.snapshots.compaction.cron:0 30 3 * * *}")
+    public void compact() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            OffsetDateTime now = OffsetDateTime.now();
+            Map<UUID, List<ProfileSnapshot>> candidates = new LinkedHashMap<>();
+            snapshotRepository.streamCompactionCandidates(profileSnapshotService.compactionCutoff(now))
+                    .doOnNext(row -> candidates.computeIfAbsent(row.getUserId(), id -> new ArrayList<>()).add(row))
+                    .blockLast();
+
+            int removed = 0;
+            int users = 0;
+            for (Map.Entry<UUID, List<ProfileSnapshot>> entry : candidates.entrySet()) {
+                if (profileSnapshotService.planDrops(entry.getValue(), now).isEmpty()) {
+                    continue;
+                }
+                try {
+                    removed += profileSnapshotService.compactUser(entry.getKey(), now);
+                    users++;
+                } catch (RuntimeException e) {
+                    // Ошибка одного пользователя не останавливает остальных; его история дождётся следующего запуска
+                    log.warn("Snapshot compaction failed for user {}: {}", entry.getKey(), e.getMessage());
+                }
+            }
+            log.info("Snapshot compaction: removed {} snapshot(s) of {} user(s)", removed, users);
+        } catch (RuntimeException e) {
+            log.error("Snapshot compaction error", e);
+        } finally {
+            running.set(false);
+        }
+    }
+}
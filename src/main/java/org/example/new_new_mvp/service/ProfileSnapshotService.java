@@ -0,0 +1,287 @@
+package org.example.new_new_mvp.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.example.new_new_mvp.model.ProfileSnapshot;
+import org.example.new_new_mvp.model.SnapshotKind;
+import org.example.new_new_mvp.repository.ProfileSnapshotRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * История profile_data в profile_snapshots:
+ * - повтор без изменений (тот же content_hash, что у последнего снимка) не пишется;
+ * - изменение пишется как DELTA - JSON Patch от ключевого кадра цепочки, каждые keyframe-interval снимков
+ *   (или если патч не меньше max-delta-ratio от размера данных) - новый FULL кадр.
+ *   Любая версия восстанавливается из двух строк: кадр + один патч, без прохода по цепочке;
+ * - компакция прореживает старую историю (ProfileSnapshotCompactor).
+ */
+@Slf4j
+@Service
+public class ProfileSnapshotService {
+
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+
+    @Autowired
+    private ProfileSnapshotRepository profileSnapshotRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${profile.snapshots.keyframe-interval:20}")
+    private int keyframeInterval;
+
+    @Value("${profile.snapshots.max-delta-ratio:0.5}")
+    private double maxDeltaRatio;
+
+    // Политика хранения: моложе keep-all-days - всё, до keep-daily-days - последний снимок дня, старше - месяца
+    @Value("${profile.snapshots.compaction.keep-all-days:30}")
+    private int keepAllDays;
+
+    @Value("${profile.snapshots.compaction.keep-daily-days:180}")
+    private int keepDailyDays;
+
+    /**
+     * Записать снимок profileData пользователя.
+     * Пусто - данные не изменились с последнего снимка, запись не нужна
+     */
+    public Optional<ProfileSnapshot> record(UUID userId, JsonNode profileData) {
+        String hash = contentHash(profileData);
+        Optional<ProfileSnapshot> latest = profileSnapshotRepository.findLatestByUserId(userId);
+        if (latest.isPresent() && hash.equals(latest.get().getContentHash())) {
+            log.debug("Snapshot skipped for user {}: profile data unchanged", userId);
+            return Optional.empty();
+        }
+
+        ProfileSnapshot snapshot = new ProfileSnapshot();
+        snapshot.setId(UUID.randomUUID());
+        snapshot.setUserId(userId);
+        snapshot.setSnapshotDate(OffsetDateTime.now());
+        snapshot.setContentHash(hash);
+
+        // Кадр последнего снимка мог удалить компактор - тогда начинаем новую цепочку
+        Optional<ProfileSnapshot> keyframe = latest.flatMap(this::keyframeOf);
+        int seq = latest.map(previous -> seqOf(previous) + 1).orElse(0);
+        if (keyframe.isEmpty() || seq >= keyframeInterval
+                || !asDelta(snapshot, keyframe.get().getId(), dataOf(keyframe.get()), profileData, seq)) {
+            asKeyframe(snapshot, profileData);
+        }
+        ProfileSnapshot saved = profileSnapshotRepository.save(snapshot);
+        log.debug("Snapshot {} saved for user {} as {}", saved.getId(), userId, snapshot.getKind());
+        return Optional.of(saved);
+    }
+
+    /**
+     * История пользователя от новых к старым с восстановленным profile_data (patch не отдаётся)
+     */
+    public List<ProfileSnapshot> getHistory(UUID userId) {
+        List<ProfileSnapshot> history = profileSnapshotRepository.findLatestSnapshotsByUserId(userId);
+        Map<UUID, ProfileSnapshot> byId = new HashMap<>();
+        history.forEach(snapshot -> byId.put(snapshot.getId(), snapshot));
+        Map<UUID, JsonNode> keyframes = new HashMap<>();
+        List<ProfileSnapshot> result = new ArrayList<>(history.size());
+        for (ProfileSnapshot snapshot : history) {
+            ProfileSnapshot view = new ProfileSnapshot(snapshot.getId(), snapshot.getUserId(), snapshot.getSnapshotDate(),
+                    materialize(snapshot, byId, keyframes), snapshot.getKind(), snapshot.getContentHash(),
+                    snapshot.getBaseId(), snapshot.getSeq(), null);
+            result.add(view);
+        }
+        return result;
+    }
+
+    /**
+     * profile_data произвольной версии: не больше двух чтений (снимок и его кадр) и один патч
+     */
+    public Optional<JsonNode> getVersion(UUID snapshotId) {
+        return profileSnapshotRepository.findById(snapshotId)
+                .map(snapshot -> materialize(snapshot, Map.of(), new HashMap<>()));
+    }
+
+    /**
+     * Граница компакции: снимки старше неё прореживаются
+     */
+    public OffsetDateTime compactionCutoff(OffsetDateTime now) {
+        return now.minusDays(keepAllDays);
+    }
+
+    public Set<UUID> planDrops(List<ProfileSnapshot> ascending, OffsetDateTime now) {
+        return selectForDrop(ascending, now, keepAllDays, keepDailyDays);
+    }
+
+    /**
+     * Прорядить историю пользователя. Сначала перестраиваются оставшиеся DELTA, чей кадр удаляется
+     * (первая такая строка цепочки становится FULL, остальные считаются от неё), потом удаляются лишние строки -
+     * прерванная на середине компакция оставляет лишние снимки, но не битые цепочки.
+     * @return сколько снимков удалено
+     */
+    public int compactUser(UUID userId, OffsetDateTime now) {
+        List<ProfileSnapshot> history = new ArrayList<>(profileSnapshotRepository.findLatestSnapshotsByUserId(userId));
+        Collections.reverse(history);
+        Set<UUID> drop = planDrops(history, now);
+        if (drop.isEmpty()) {
+            return 0;
+        }
+
+        Map<UUID, ProfileSnapshot> byId = new HashMap<>();
+        history.forEach(snapshot -> byId.put(snapshot.getId(), snapshot));
+        Map<UUID, JsonNode> keyframes = new HashMap<>();
+        Map<UUID, ProfileSnapshot> newKeyframes = new HashMap<>(); // удаляемый кадр -> его замена
+        for (ProfileSnapshot snapshot : history) {
+            if (drop.contains(snapshot.getId()) || kindOf(snapshot) != SnapshotKind.DELTA
+                    || !drop.contains(snapshot.getBaseId())) {
+                continue;
+            }
+            JsonNode data = materialize(snapshot, byId, keyframes);
+            ProfileSnapshot replacement = newKeyframes.get(snapshot.getBaseId());
+            if (replacement == null) {
+                newKeyframes.put(snapshot.getBaseId(), snapshot);
+                asKeyframe(snapshot, data);
+            } else if (!asDelta(snapshot, replacement.getId(), dataOf(replacement), data, seqOf(snapshot))) {
+                asKeyframe(snapshot, data);
+            }
+            profileSnapshotRepository.update(snapshot);
+        }
+        // Дельты раньше кадров: base_id ссылается на кадр внешним ключом
+        List<UUID> deleteOrder = new ArrayList<>(drop);
+        deleteOrder.sort(Comparator.comparing(id -> kindOf(byId.get(id)) == SnapshotKind.FULL));
+        profileSnapshotRepository.deleteByIds(deleteOrder);
+        log.debug("Compacted snapshots of user {}: removed {}, rebased {} chain(s)", userId, drop.size(),
+                newKeyframes.size());
+        return drop.size();
+    }
+
+    /**
+     * Какие снимки удалить: моложе keepAllDays остаются все, до keepDailyDays - последний в каждом дне (UTC),
+     * старше - последний в каждом месяце. ascending - по возрастанию snapshot_date
+     */
+    static Set<UUID> selectForDrop(List<ProfileSnapshot> ascending, OffsetDateTime now, int keepAllDays,
+                                   int keepDailyDays) {
+        OffsetDateTime keepAllFrom = now.minusDays(keepAllDays);
+        OffsetDateTime dailyFrom = now.minusDays(keepDailyDays);
+        Map<String, UUID> lastInBucket = new HashMap<>();
+        Set<UUID> drop = new LinkedHashSet<>();
+        for (ProfileSnapshot snapshot : ascending) {
+            OffsetDateTime date = snapshot.getSnapshotDate();
+            if (date == null || !date.isBefore(keepAllFrom)) {
+                continue;
+            }
+            LocalDate day = date.atZoneSameInstant(ZoneOffset.UTC).toLocalDate();
+            String bucket = date.isBefore(dailyFrom) ? "month:" + YearMonth.from(day) : "day:" + day;
+            UUID previous = lastInBucket.put(bucket, snapshot.getId());
+            if (previous != null) {
+                drop.add(previous);
+            }
+        }
+        return drop;
+    }
+
+    /**
+     * sha256 канонического JSON (ключи объектов по алфавиту): порядок полей не считается изменением
+     */
+    static String contentHash(JsonNode data) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical(data).toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static JsonNode canonical(JsonNode node) {
+        if (node.isObject()) {
+            ObjectNode sorted = NODES.objectNode();
+            List<String> names = new ArrayList<>();
+            node.fieldNames().forEachRemaining(names::add);
+            Collections.sort(names);
+            for (String name : names) {
+                sorted.set(name, canonical(node.get(name)));
+            }
+            return sorted;
+        }
+        if (node.isArray()) {
+            ArrayNode copy = NODES.arrayNode(node.size());
+            node.forEach(element -> copy.add(canonical(element)));
+            return copy;
+        }
+        return node;
+    }
+
+    private boolean asDelta(ProfileSnapshot snapshot, UUID baseId, JsonNode baseData, JsonNode data, int seq) {
+        ArrayNode patch = JsonPatch.diff(baseData, data);
+        if (patch.toString().length() >= maxDeltaRatio * data.toString().length()) {
+            return false;
+        }
+        snapshot.setKind(SnapshotKind.DELTA);
+        snapshot.setBaseId(baseId);
+        snapshot.setSeq(seq);
+        snapshot.setPatch(patch);
+        snapshot.setProfileData(null);
+        return true;
+    }
+
+    private static void asKeyframe(ProfileSnapshot snapshot, JsonNode data) {
+        snapshot.setKind(SnapshotKind.FULL);
+        snapshot.setBaseId(null);
+        snapshot.setSeq(0);
+        snapshot.setPatch(null);
+        snapshot.setProfileData(data);
+    }
+
+    private Optional<ProfileSnapshot> keyframeOf(ProfileSnapshot snapshot) {
+        if (kindOf(snapshot) == SnapshotKind.FULL) {
+            return Optional.of(snapshot);
+        }
+        return profileSnapshotRepository.findById(snapshot.getBaseId());
+    }
+
+    private JsonNode materialize(ProfileSnapshot snapshot, Map<UUID, ProfileSnapshot> loaded, Map<UUID, JsonNode> keyframes) {
+        if (kindOf(snapshot) == SnapshotKind.FULL) {
+            return dataOf(snapshot);
+        }
+        JsonNode base = keyframes.computeIfAbsent(snapshot.getBaseId(), baseId -> {
+            ProfileSnapshot keyframe = loaded.get(baseId);
+            if (keyframe == null) {
+                keyframe = profileSnapshotRepository.findById(baseId)
+                        .orElseThrow(() -> new RuntimeException("Keyframe " + baseId + " not found for snapshot "
+                                + snapshot.getId()));
+            }
+            return dataOf(keyframe);
+        });
+        return JsonPatch.apply(base, snapshot.getPatch());
+    }
+
+    // Старые строки хранили profile_data JSON-строкой - разбираем её
+    private JsonNode dataOf(ProfileSnapshot snapshot) {
+        JsonNode data = objectMapper.valueToTree(snapshot.getProfileData());
+        if (data != null && data.isTextual()) {
+            try {
+                return objectMapper.readTree(data.asText());
+            } catch (Exception e) {
+                return data;
+            }
+        }
+        return data != null ? data : NODES.nullNode();
+    }
+
+    private static SnapshotKind kindOf(ProfileSnapshot snapshot) {
+        return snapshot.getKind() != null ? snapshot.getKind() : SnapshotKind.FULL;
+    }
+
+    private static int seqOf(ProfileSnapshot snapshot) {
+        return snapshot.getSeq() != null ? snapshot.getSeq() : 0;
+    }
+}
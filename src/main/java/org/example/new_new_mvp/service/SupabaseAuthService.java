@@ -103,8 +103,11 @@ public class SupabaseAuthService {
                 });
     }
     
+    /**
+     * Пустой Mono, если пользователь не найден
+     */
     public Mono<User> getCurrentUser(String email) {
         return userRepository.findByEmail(email)
-                .map(optionalUser -> optionalUser.orElse(null));
+                .flatMap(Mono::justOrEmpty);
     }
 }
\ No newline at end of file
@@ -0,0 +1,182 @@
+package org.example.new_new_mvp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.example.new_new_mvp.dto.CursorPage;
+import org.example.new_new_mvp.dto.ProfileDto;
+import org.example.new_new_mvp.model.Profile;
+import org.example.new_new_mvp.model.ProfileStatus;
+import org.example.new_new_mvp.model.User;
+import org.example.new_new_mvp.repository.SupabaseProfileRepository;
+import org.example.new_new_mvp.repository.SupabaseUserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.BiFunction;
+
+/**
+ * Реактивный слой чтения профилей: цепочки запросов к Supabase выполняются
+ * без .block(), поток сервлета освобождается на время ожидания PostgREST.
+ * ProfileService делегирует сюда чтения для оставшихся блокирующих вызовов.
+ */
+@Slf4j
+@Service
+public class SupabaseProfileService {
+
+    @Autowired
+    private SupabaseProfileRepository profileRepository;
+
+    @Autowired
+    private SupabaseUserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public Mono<Optional<ProfileDto>> getProfileByUserId(UUID userId) {
+        return profileRepository.findByUserId(userId)
+                .flatMap(optionalProfile -> optionalProfile
+                        .map(profile -> convertToDto(profile).map(Optional::of))
+                        .orElseGet(() -> Mono.just(Optional.empty())));
+    }
+
+    public Mono<List<ProfileDto>> getCompanyProfiles(UUID companyId) {
+        return profileRepository.findByUserCompanyId(companyId)
+                .flatMap(profiles -> withUsers(profiles, "User not found for profile", SupabaseProfileService::convertToDto));
+    }
+
+    public Mono<List<ProfileDto>> getProfilesByStatus(ProfileStatus status) {
+        // Status field doesn't exist in Supabase schema, return all profiles
+        return profileRepository.findAll()
+                .flatMap(profiles -> withUsers(profiles, "User not found for profile", SupabaseProfileService::convertToDto));
+    }
+
+    public Mono<List<Object>> getAllProfiles() {
+        return profileRepository.findAll()
+                .flatMap(profiles -> withUsers(profiles, "User not found", SupabaseProfileService::convertToSimpleDto));
+    }
+
+    /**
+     * Страница профилей компании (keyset по user_id): размер ответа и число запросов к users
+     * ограничены limit, а не числом сотрудников компании
+     */
+    public Mono<CursorPage<ProfileDto>> getCompanyProfilesPage(UUID companyId, UUID after, int limit) {
+        return profileRepository.findPageByCompanyId(companyId, after, limit)
+                .flatMap(page -> withUsers(page.getItems(), "User not found for profile", SupabaseProfileService::convertToDto)
+                        .map(items -> new CursorPage<>(items, page.getNextCursor())));
+    }
+
+    public Mono<CursorPage<Object>> getAllProfilesPage(UUID after, int limit) {
+        return profileRepository.findPage(after, limit)
+                .flatMap(page -> withUsers(page.getItems(), "User not found", SupabaseProfileService::convertToSimpleDto)
+                        .map(items -> new CursorPage<>(items, page.getNextCursor())));
+    }
+
+    /**
+     * Подгружает пользователей всех профилей пакетно (findAllByIds) вместо запроса на каждую строку:
+     * N профилей - ceil(N / 100) запросов к users, дубликаты user_id разрешаются через одну identity map.
+     */
+    private <T> Mono<List<T>> withUsers(List<Profile> profiles, String notFoundMessage,
+                                        BiFunction<Profile, User, T> converter) {
+        List<UUID> userIds = profiles.stream().map(Profile::getUserId).toList();
+        return userRepository.findAllByIds(userIds)
+                .map(users -> profiles.stream()
+                        .map(profile -> {
+                            User user = users.get(profile.getUserId());
+                            if (user == null) {
+                                throw new RuntimeException(notFoundMessage);
+                            }
+                            return converter.apply(profile, user);
+                        })
+                        .toList());
+    }
+
+    /**
+     * Поиск профиля по email; если профиля нет - создаётся пустой.
+     * Пустой Mono означает, что пользователь не найден.
+     */
+    public Mono<Object> findProfileByEmail(String email) {
+        return userRepository.findByEmail(email)
+                .flatMap(optionalUser -> {
+                    if (optionalUser.isEmpty()) {
+                        log.debug("User not found for email: {}", email);
+                        return Mono.empty();
+                    }
+                    User user = optionalUser.get();
+                    return profileRepository.findByUserId(user.getId())
+                            .flatMap(optionalProfile -> optionalProfile
+                                    .map(Mono::just)
+                                    .orElseGet(() -> createEmptyProfile(user)))
+                            .map(profile -> toSearchResult(profile, user));
+                });
+    }
+
+    private Mono<Profile> createEmptyProfile(User user) {
+        log.debug("Profile not found for user: {}, creating new profile", user.getEmail());
+
+        Profile profile = new Profile();
+        profile.setUserId(user.getId());
+        try {
+            profile.setProfileData(objectMapper.readTree("{}"));
+        } catch (Exception e) {
+            log.warn("Error creating empty profile data: {}", e.getMessage());
+        }
+        profile.setStatus(ProfileStatus.PENDING);
+        profile.setLastUpdated(OffsetDateTime.now());
+
+        if (user.getCompany() != null) {
+            profile.setCompanyId(user.getCompany().getId());
+        }
+
+        return profileRepository.save(profile);
+    }
+
+    private Mono<ProfileDto> convertToDto(Profile profile) {
+        // Get user information separately since we removed the direct relationship
+        return userRepository.findById(profile.getUserId())
+                .map(optionalUser -> optionalUser.orElseThrow(() -> new RuntimeException("User not found for profile")))
+                .map(user -> convertToDto(profile, user));
+    }
+
+    static ProfileDto convertToDto(Profile profile, User user) {
+        ProfileDto dto = new ProfileDto();
+        dto.setUserId(profile.getUserId());
+        dto.setUserEmail(user.getEmail());
+        dto.setUserFullName(user.getFullName());
+        dto.setProfileData(profile.getProfileData());
+        dto.setStatus(profile.getStatus());
+        dto.setLastUpdated(profile.getLastUpdated());
+        return dto;
+    }
+
+    private static Object convertToSimpleDto(Profile profile, User user) {
+        return new Object() {
+            public final UUID userId = profile.getUserId();
+            public final String employeeEmail = user.getEmail();
+            public final String employeeName = user.getFullName();
+            public final String profileData = profile.getProfileData() != null ? profile.getProfileData().toString() : "{}";
+            public final ProfileStatus status = profile.getStatus();
+            public final boolean isVerified = profile.getStatus() == ProfileStatus.COMPLETED;
+            public final boolean aiProfileGenerated = false; // For now, always false
+            public final OffsetDateTime lastUpdated = profile.getLastUpdated();
+        };
+    }
+
+    private static Object toSearchResult(Profile profile, User user) {
+        // Return a simplified profile object for frontend
+        return new Object() {
+            public final UUID userId = profile.getUserId();
+            public final String employeeEmail = user.getEmail();
+            public final String employeeName = user.getFullName();
+            public final String profileData = profile.getProfileData() != null ? profile.getProfileData().toString() : "{}";
+            public final ProfileStatus status = profile.getStatus();
+            public final boolean isVerified = profile.getStatus() == ProfileStatus.COMPLETED;
+            public final UUID companyId = user.getCompany() != null ? user.getCompany().getId() : null;
+            public final String companyName = user.getCompany() != null ? user.getCompany().getName() : null;
+        };
+    }
+}
@@ -0,0 +1,113 @@
+package org.example.new_new_mvp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read-through кэш ответов PostgREST для редко меняющихся таблиц (users, companies, job_roles).
+ * Ключ - таблица + отсортированные фильтры (email=eq.*, activation_code=eq.*, user_uuid=eq.*, company_id=eq.* ...),
+ * значение - сырой JSON ответа, поэтому каждый вызов получает свежие объекты, которые можно менять.
+ * Размер каждой таблицы ограничен суммарной длиной JSON, записи живут не дольше ttl.
+ * Любая запись в таблицу (insert/update/delete через SupabaseService или invalidate) сбрасывает её кэш целиком.
+ */
+@Component
+public class SupabaseReadCache {
+
+    private final Map<String, TableCache> tables = new LinkedHashMap<>();
+
+    public SupabaseReadCache(@Value("${supabase.cache.tables:users,companies,job_roles}") String[] tableNames,
+                             @Value("${supabase.cache.ttl-seconds:60}") long ttlSeconds,
+                             @Value("${supabase.cache.max-chars-per-table:8000000}") long maxCharsPerTable) {
+        Arrays.stream(tableNames)
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .forEach(name -> tables.put(name, new TableCache(Caffeine.newBuilder()
+                        .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                        .maximumWeight(maxCharsPerTable)
+                        .<String, String>weigher((query, json) -> json.length())
+                        .recordStats()
+                        .build())));
+    }
+
+    /**
+     * Вернуть JSON из кэша или выполнить loader и сохранить результат.
+     * Для таблиц вне supabase.cache.tables loader выполняется как есть.
+     */
+    public Mono<String> get(String table, Map<String, String> filters, Mono<String> loader) {
+        TableCache tableCache = tables.get(table);
+        if (tableCache == null) {
+            return loader;
+        }
+        String key = cacheKey(filters);
+        return Mono.defer(() -> {
+            String cached = tableCache.cache.getIfPresent(key);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            // Если за время запроса таблицу инвалидировали, ответ мог устареть - не сохраняем его
+            long generation = tableCache.generation.get();
+            return loader.doOnNext(json -> {
+                if (tableCache.generation.get() == generation) {
+                    tableCache.cache.put(key, json);
+                }
+            });
+        });
+    }
+
+    /**
+     * Сбросить кэш таблицы после записи в неё
+     */
+    public void invalidate(String table) {
+        TableCache tableCache = tables.get(table);
+        if (tableCache != null) {
+            tableCache.generation.incrementAndGet();
+            tableCache.cache.invalidateAll();
+            tableCache.invalidations.increment();
+        }
+    }
+
+    /**
+     * Статистика по таблицам: hits / misses / hitRate / evictions / invalidations / size
+     */
+    public Map<String, Map<String, Object>> stats() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        tables.forEach((table, tableCache) -> {
+            CacheStats stats = tableCache.cache.stats();
+            Map<String, Object> tableStats = new LinkedHashMap<>();
+            tableStats.put("hits", stats.hitCount());
+            tableStats.put("misses", stats.missCount());
+            tableStats.put("hitRate", stats.hitRate());
+            tableStats.put("evictions", stats.evictionCount());
+            tableStats.put("invalidations", tableCache.invalidations.sum());
+            tableStats.put("size", tableCache.cache.estimatedSize());
+            result.put(table, tableStats);
+        });
+        return result;
+    }
+
+    static String cacheKey(Map<String, String> filters) {
+        return new TreeMap<>(filters).toString();
+    }
+
+    private static final class TableCache {
+        private final Cache<String, String> cache;
+        private final AtomicLong generation = new AtomicLong();
+        private final LongAdder invalidations = new LongAdder();
+
+        private TableCache(Cache<String, String> cache) {
+            this.cache = cache;
+        }
+    }
+}
@@ -1,31 +1,60 @@
 package org.example.new_new_mvp.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.example.new_new_mvp.dto.CursorPage;
+import org.example.new_new_mvp.logging.LogValues;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
+@Slf4j
 @Service
 public class SupabaseService {
 
+    private static final int LOG_BODY_MAX_CHARS = 2000;
+
+    // Потоковый разбор держит в памяти одну строку ответа, а не весь массив; лимит - на одну строку (jsonb профиля)
+    private static final int MAX_STREAMED_ROW_BYTES = 16 * 1024 * 1024;
+
     @Autowired
+    @Qualifier("supabaseWebClient")
     private WebClient supabaseWebClient;
 
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private SupabaseReadCache readCache;
+
+    @Autowired
+    private SupabaseSingleFlight singleFlight;
+
     /**
      * Выполнить SELECT запрос к таблице
      */
     public <T> Mono<List<T>> select(String table, Class<T> clazz) {
-        return supabaseWebClient.get()
+        Mono<String> request = supabaseWebClient.get()
                 .uri("/" + table)
                 .retrieve()
-                .bodyToMono(String.class)
+                .bodyToMono(String.class);
+        return readCache.get(table, Map.of(), singleFlight.execute(table, Map.of(), request))
                 .map(json -> {
                     try {
                         return objectMapper.readValue(json, 
@@ -40,7 +69,7 @@ public class SupabaseService {
      * Выполнить SELECT запрос с фильтрацией
      */
     public <T> Mono<List<T>> select(String table, Class<T> clazz, Map<String, String> filters) {
-        return supabaseWebClient.get()
+        Mono<String> request = supabaseWebClient.get()
                 .uri(uriBuilder -> {
                     var builder = uriBuilder.path("/" + table);
                     // Добавляем фильтры как query параметры
@@ -50,7 +79,8 @@ public class SupabaseService {
                     return builder.build();
                 })
                 .retrieve()
-                .bodyToMono(String.class)
+                .bodyToMono(String.class);
+        return readCache.get(table, filters, singleFlight.execute(table, filters, request))
                 .map(json -> {
                     try {
                         return objectMapper.readValue(json, 
@@ -61,28 +91,171 @@ public class SupabaseService {
                 });
     }
 
+    /**
+     * SELECT по полуинтервалу [from, to) колонки-времени: column=gte.from&column=lt.to уходит в PostgREST,
+     * запрос читает только окно по индексу колонки, а не всю таблицу. Границу null не ограничиваем.
+     * Строки по возрастанию column, потоково и мимо кэша чтения
+     */
+    public <T> Flux<T> selectRange(String table, Class<T> clazz, Map<String, String> filters, String column,
+                                   OffsetDateTime from, OffsetDateTime to) {
+        Flux<DataBuffer> body = supabaseWebClient.get()
+                .uri(uriBuilder -> {
+                    var builder = uriBuilder.path("/" + table);
+                    for (Map.Entry<String, String> filter : filters.entrySet()) {
+                        builder.queryParam(filter.getKey(), filter.getValue());
+                    }
+                    // Одна колонка - два условия: Map фильтров их не вмещает, поэтому отдельные параметры
+                    for (String condition : rangeConditions(from, to)) {
+                        builder.queryParam(column, condition);
+                    }
+                    return builder.queryParam("order", column + ".asc").build();
+                })
+                .retrieve()
+                .bodyToFlux(DataBuffer.class);
+        return decodeRows(body, clazz);
+    }
+
+    /**
+     * Условия PostgREST для [from, to). Время в UTC ("Z"): '+' смещения в query строке читается как пробел
+     */
+    static List<String> rangeConditions(OffsetDateTime from, OffsetDateTime to) {
+        List<String> conditions = new ArrayList<>(2);
+        if (from != null) {
+            conditions.add("gte." + from.withOffsetSameInstant(ZoneOffset.UTC));
+        }
+        if (to != null) {
+            conditions.add("lt." + to.withOffsetSameInstant(ZoneOffset.UTC));
+        }
+        return conditions;
+    }
+
+    /**
+     * Keyset-страница: строки с keyColumn > after по возрастанию ключа, не больше limit.
+     * Читается limit + 1 строка, чтобы узнать про следующую страницу без count; стоимость запроса
+     * не зависит от номера страницы (индекс по keyColumn), в отличие от offset
+     */
+    public <T> Mono<CursorPage<T>> selectKeyset(String table, Class<T> clazz, Map<String, String> filters,
+                                                String keyColumn, Function<T, ?> keyOf, String after, int limit) {
+        Map<String, String> pageFilters = new LinkedHashMap<>(filters);
+        pageFilters.put("order", keyColumn + ".asc");
+        pageFilters.put("limit", String.valueOf(limit + 1));
+        if (after != null) {
+            pageFilters.put(keyColumn, "gt." + after);
+        }
+        return select(table, clazz, pageFilters)
+                .map(rows -> CursorPage.of(rows, limit, keyOf));
+    }
+
+    /**
+     * Выполнить SELECT и отдавать строки по мере разбора ответа: массив PostgREST декодируется
+     * по элементам, ни весь JSON, ни весь список одновременно в памяти не лежат.
+     * Мимо кэша чтения - для выгрузок и полных проходов по таблицам
+     */
+    public <T> Flux<T> selectFlux(String table, Class<T> clazz) {
+        return selectFlux(table, clazz, Map.of());
+    }
+
+    /**
+     * Потоковый SELECT с фильтрацией
+     */
+    public <T> Flux<T> selectFlux(String table, Class<T> clazz, Map<String, String> filters) {
+        Flux<DataBuffer> body = supabaseWebClient.get()
+                .uri(uriBuilder -> {
+                    var builder = uriBuilder.path("/" + table);
+                    // Добавляем фильтры как query параметры
+                    for (Map.Entry<String, String> filter : filters.entrySet()) {
+                        builder.queryParam(filter.getKey(), filter.getValue());
+                    }
+                    return builder.build();
+                })
+                .retrieve()
+                .bodyToFlux(DataBuffer.class);
+        return decodeRows(body, clazz);
+    }
+
+    /**
+     * Страница таблицы для keyset-пагинации: строки с keyColumn > afterKey по возрастанию, разбираются потоково.
+     * Мимо кэша чтения - выгрузки не должны вытеснять горячие записи
+     */
+    public Flux<JsonNode> selectPage(String table, String keyColumn, String afterKey, int limit) {
+        Flux<DataBuffer> body = supabaseWebClient.get()
+                .uri(uriBuilder -> {
+                    var builder = uriBuilder.path("/" + table)
+                            .queryParam("order", keyColumn + ".asc")
+                            .queryParam("limit", limit);
+                    if (afterKey != null) {
+                        builder.queryParam(keyColumn, "gt." + afterKey);
+                    }
+                    return builder.build();
+                })
+                .retrieve()
+                .bodyToFlux(DataBuffer.class);
+        return decodeRows(body, JsonNode.class);
+    }
+
+    /**
+     * Разобрать JSON-массив из потока буферов в элементы по одному (Jackson2Tokenizer режет массив верхнего уровня)
+     */
+    <T> Flux<T> decodeRows(Flux<DataBuffer> body, Class<T> clazz) {
+        Jackson2JsonDecoder decoder = new Jackson2JsonDecoder(objectMapper);
+        decoder.setMaxInMemorySize(MAX_STREAMED_ROW_BYTES);
+        return decoder.decode(body, ResolvableType.forClass(clazz), MediaType.APPLICATION_JSON, null)
+                .cast(clazz);
+    }
+
+    /**
+     * Подсчитать строки в таблице без выгрузки данных
+     */
+    public Mono<Long> count(String table) {
+        return count(table, Map.of());
+    }
+
+    /**
+     * Подсчитать строки с фильтрацией без выгрузки данных.
+     * HEAD запрос с Prefer: count=exact - PostgREST возвращает только заголовок Content-Range с общим количеством
+     */
+    public Mono<Long> count(String table, Map<String, String> filters) {
+        return supabaseWebClient.head()
+                .uri(uriBuilder -> {
+                    var builder = uriBuilder.path("/" + table);
+                    // Добавляем фильтры как query параметры
+                    for (Map.Entry<String, String> filter : filters.entrySet()) {
+                        builder.queryParam(filter.getKey(), filter.getValue());
+                    }
+                    return builder.build();
+                })
+                .header("Prefer", "count=exact")
+                .retrieve()
+                .toBodilessEntity()
+                .map(response -> parseContentRangeTotal(response.getHeaders().getFirst("Content-Range")));
+    }
+
+    /**
+     * Извлечь общее количество строк из Content-Range: число после '/' ("0-24/3573")
+     */
+    static long parseContentRangeTotal(String contentRange) {
+        if (contentRange == null) {
+            throw new RuntimeException("Supabase count: Content-Range header is missing");
+        }
+        int slash = contentRange.lastIndexOf('/');
+        String total = slash >= 0 ? contentRange.substring(slash + 1).trim() : "";
+        try {
+            return Long.parseLong(total);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Supabase count: unexpected Content-Range '" + contentRange + "'", e);
+        }
+    }
+
     /**
      * Выполнить INSERT запрос
      * Note: PostgREST expects an array of objects for INSERT
      */
     public <T> Mono<T> insert(String table, T data, Class<T> clazz) {
-        System.out.println("=== SUPABASE INSERT ===");
-        System.out.println("Table: " + table);
-        System.out.println("Data: " + data);
-        System.out.println("Data class: " + data.getClass().getName());
+        log.debug("Supabase insert into {}: {}", table, data.getClass().getSimpleName());
         
         // Wrap data in array for PostgREST
         java.util.List<T> dataArray = java.util.Collections.singletonList(data);
         
-        // Serialize to JSON to see exact payload
-        try {
-            String jsonPayload = objectMapper.writeValueAsString(dataArray);
-            System.out.println("JSON Payload: " + jsonPayload);
-        } catch (Exception e) {
-            System.out.println("Error serializing payload: " + e.getMessage());
-        }
-        System.out.println("=======================");
-        
         return supabaseWebClient.post()
                 .uri("/" + table)
                 .header("Prefer", "return=representation") // Request to return the inserted row
@@ -92,15 +265,13 @@ public class SupabaseService {
                     status -> status.is4xxClientError() || status.is5xxServerError(),
                     response -> response.bodyToMono(String.class)
                         .map(errorBody -> {
-                            System.out.println("=== SUPABASE ERROR ===");
-                            System.out.println("Status: " + response.statusCode());
-                            System.out.println("Error body: " + errorBody);
-                            System.out.println("======================");
+                            log.warn("Supabase insert into {} failed: status={}, body={}", table,
+                                    response.statusCode(), LogValues.truncate(errorBody, LOG_BODY_MAX_CHARS));
                             return new RuntimeException("Supabase error: " + errorBody);
                         })
                 )
                 .bodyToMono(String.class)
-                .doOnNext(response -> System.out.println("Supabase response: " + response))
+                .doOnNext(response -> log.trace("Supabase insert response: {}", LogValues.truncate(response, LOG_BODY_MAX_CHARS)))
                 .map(json -> {
                     try {
                         // PostgREST returns an array, extract first element
@@ -110,11 +281,57 @@ public class SupabaseService {
                         }
                         throw new RuntimeException("Empty response from Supabase");
                     } catch (Exception e) {
-                        System.out.println("Error parsing JSON: " + json);
+                        log.warn("Error parsing Supabase insert response: {}", LogValues.truncate(json, LOG_BODY_MAX_CHARS));
                         throw new RuntimeException("Error parsing JSON response: " + json, e);
                     }
                 })
-                .doOnError(error -> System.out.println("Supabase insert error: " + error.getMessage()));
+                .doOnError(error -> log.warn("Supabase insert into {} error: {}", table, error.getMessage()))
+                .doFinally(signal -> invalidate(table));
+    }
+
+    /**
+     * Вставить строки одним POST массивом - один запрос и одна транзакция PostgREST на весь список
+     * (ошибка любой строки откатывает весь запрос). Вставленные строки разбираются потоково
+     */
+    public <T> Flux<T> insertAll(String table, List<?> rows, Class<T> clazz) {
+        return bulkWrite(table, rows, clazz, null);
+    }
+
+    /**
+     * Вставить или обновить строки одним POST: конфликт по conflictColumn (PK / уникальный ключ)
+     * превращается в UPDATE строки (Prefer: resolution=merge-duplicates)
+     */
+    public <T> Flux<T> upsertAll(String table, List<?> rows, String conflictColumn, Class<T> clazz) {
+        return bulkWrite(table, rows, clazz, conflictColumn);
+    }
+
+    private <T> Flux<T> bulkWrite(String table, List<?> rows, Class<T> clazz, String conflictColumn) {
+        if (rows.isEmpty()) {
+            return Flux.empty();
+        }
+        String prefer = conflictColumn != null
+                ? "return=representation,resolution=merge-duplicates"
+                : "return=representation";
+        Flux<DataBuffer> body = supabaseWebClient.post()
+                .uri(uriBuilder -> {
+                    var builder = uriBuilder.path("/" + table);
+                    if (conflictColumn != null) {
+                        builder.queryParam("on_conflict", conflictColumn);
+                    }
+                    return builder.build();
+                })
+                .header("Prefer", prefer)
+                .bodyValue(rows)
+                .retrieve()
+                .onStatus(
+                    status -> status.is4xxClientError() || status.is5xxServerError(),
+                    response -> response.bodyToMono(String.class)
+                        .map(errorBody -> new RuntimeException("Supabase error: " + errorBody))
+                )
+                .bodyToFlux(DataBuffer.class);
+        return decodeRows(body, clazz)
+                .doOnComplete(() -> log.debug("Supabase bulk write: {} row(s) into {}", rows.size(), table))
+                .doFinally(signal -> invalidate(table));
     }
 
     /**
@@ -146,7 +363,8 @@ public class SupabaseService {
                     } catch (Exception e) {
                         throw new RuntimeException("Error parsing JSON response", e);
                     }
-                });
+                })
+                .doFinally(signal -> invalidate(table));
     }
 
     /**
@@ -163,7 +381,17 @@ public class SupabaseService {
                     return builder.build();
                 })
                 .retrieve()
-                .bodyToMono(Void.class);
+                .bodyToMono(Void.class)
+                .doFinally(signal -> invalidate(table));
+    }
+
+    /**
+     * Сбросить кэш чтения таблицы и отцепить её идущие SELECT - для записей в обход insert/update/delete
+     * (прямые запросы через WebClient)
+     */
+    public void invalidate(String table) {
+        singleFlight.forget(table);
+        readCache.invalidate(table);
     }
 
     /**
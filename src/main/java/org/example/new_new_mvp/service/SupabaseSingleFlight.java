@@ -0,0 +1,80 @@
+package org.example.new_new_mvp.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Single-flight для SELECT: одинаковые запросы (таблица + фильтры), пришедшие пока первый ещё выполняется,
+ * подписываются на тот же HTTP-вызов и получают тот же JSON. Результат не хранится после ответа -
+ * это не кэш, а склейка всплеска (дашборд компании параллельно запрашивает одного и того же пользователя,
+ * компанию и роли). Запись в таблицу (forget) отцепляет её текущие вызовы: читатели после записи
+ * не присоединяются к запросу, начатому до неё
+ */
+@Component
+public class SupabaseSingleFlight {
+
+    private final Map<String, Map<String, Mono<String>>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final boolean enabled;
+
+    public SupabaseSingleFlight(@Value("${supabase.single-flight.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Выполнить loader или присоединиться к уже идущему такому же запросу.
+     * Начатый запрос доводится до конца (Mono.share), отмена одного подписчика не обрывает его для остальных
+     */
+    public Mono<String> execute(String table, Map<String, String> filters, Mono<String> loader) {
+        if (!enabled) {
+            return loader;
+        }
+        String key = SupabaseReadCache.cacheKey(filters);
+        return Mono.defer(() -> {
+            Map<String, Mono<String>> flights = inFlight.computeIfAbsent(table, name -> new ConcurrentHashMap<>());
+            AtomicReference<Mono<String>> self = new AtomicReference<>();
+            Mono<String> flight = loader
+                    .doFinally(signal -> flights.remove(key, self.get()))
+                    .share();
+            self.set(flight);
+            Mono<String> existing = flights.putIfAbsent(key, flight);
+            if (existing != null) {
+                coalesced.increment();
+                return existing;
+            }
+            calls.increment();
+            return flight;
+        });
+    }
+
+    /**
+     * Отцепить идущие запросы таблицы после записи в неё: уже подписанные дождутся своего ответа,
+     * новые читатели начнут свежий запрос
+     */
+    public void forget(String table) {
+        Map<String, Mono<String>> flights = inFlight.get(table);
+        if (flights != null) {
+            flights.clear();
+        }
+    }
+
+    /**
+     * calls - реальных HTTP-вызовов, coalesced - запросов, присоединившихся к чужому вызову
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("calls", calls.sum());
+        stats.put("coalesced", coalesced.sum());
+        stats.put("inFlight", inFlight.values().stream().mapToInt(Map::size).sum());
+        return stats;
+    }
+}
@@ -0,0 +1,252 @@
+package org.example.new_new_mvp.service;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Локальное извлечение текста из PDF (PDFBox, по страницам) и DOCX (StAX по word/document.xml, по абзацам).
+ * Файл не загружается в память целиком: PDFBox держит разобранные объекты во временном файле, из DOCX
+ * читается один поток XML. Текст обрезается на app.analysis.extract.max-chars символах, на файл даётся
+ * app.analysis.extract.timeout-ms - срок проверяется между страницами/абзацами и при каждой записи текста,
+ * так что разбор одной огромной страницы он не прерывает
+ */
+@Component
+public class TextExtractor {
+
+    public static final String PDF = "application/pdf";
+    public static final String DOCX = "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+
+    private static final String WORD_NS = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+
+    private final int maxChars;
+    private final long timeoutNanos;
+
+    public TextExtractor(@Value("${app.analysis.extract.max-chars:100000}") int maxChars,
+                         @Value("${app.analysis.extract.timeout-ms:10000}") long timeoutMs) {
+        this.maxChars = maxChars;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    }
+
+    /**
+     * Извлечённый текст: units - прочитано страниц (PDF) или абзацев (DOCX); truncated - упёрлись в лимит
+     * символов; timedOut - не уложились в срок, текст неполный. Частичный результат по таймауту не стоит сохранять навсегда
+     */
+    public record Extraction(String text, int units, boolean truncated, boolean timedOut) {
+    }
+
+    public boolean supports(String mimeType) {
+        return PDF.equals(mimeType) || DOCX.equals(mimeType);
+    }
+
+    public Extraction extract(Path file, String mimeType) throws IOException {
+        Budget budget = new Budget(maxChars, System.nanoTime() + timeoutNanos);
+        int units;
+        if (PDF.equals(mimeType)) {
+            units = extractPdf(file, budget);
+        } else if (DOCX.equals(mimeType)) {
+            units = extractDocx(file, budget);
+        } else {
+            throw new IllegalArgumentException("Text extraction is not supported for " + mimeType);
+        }
+        return new Extraction(budget.text.toString().strip(), units, budget.truncated, budget.timedOut);
+    }
+
+    private static int extractPdf(Path file, Budget budget) throws IOException {
+        // Источник закрывается вместе с документом
+        try (PDDocument document = Loader.loadPDF(new RandomAccessReadBufferedFile(file),
+                IOUtils.createTempFileOnlyStreamCache())) {
+            PageStripper stripper = new PageStripper(budget);
+            try {
+                stripper.writeText(document, new BudgetWriter(budget));
+            } catch (BudgetExhausted e) {
+                // лимит или срок: возвращаем то, что успели
+            }
+            return stripper.pages;
+        }
+    }
+
+    private static int extractDocx(Path file, Budget budget) throws IOException {
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            ZipEntry entry = zip.getEntry("word/document.xml");
+            if (entry == null) {
+                throw new IOException("Not a DOCX document: word/document.xml is missing");
+            }
+            XMLInputFactory factory = XMLInputFactory.newFactory();
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+            try (InputStream in = zip.getInputStream(entry)) {
+                XMLStreamReader reader = factory.createXMLStreamReader(in);
+                try {
+                    return readParagraphs(reader, budget);
+                } finally {
+                    reader.close();
+                }
+            } catch (XMLStreamException e) {
+                throw new IOException("Malformed DOCX document: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    // w:t - текст run'а, w:tab / w:br - табуляция и перенос внутри абзаца; w:tab в w:pPr - позиция табуляции, не текст
+    private static int readParagraphs(XMLStreamReader reader, Budget budget) throws XMLStreamException {
+        int paragraphs = 0;
+        boolean inText = false;
+        int propertiesDepth = 0;
+        while (reader.hasNext() && budget.open()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT && WORD_NS.equals(reader.getNamespaceURI())) {
+                switch (reader.getLocalName()) {
+                    case "t" -> inText = true;
+                    case "pPr" -> propertiesDepth++;
+                    case "tab" -> {
+                        if (propertiesDepth == 0) {
+                            budget.append("\t");
+                        }
+                    }
+                    case "br", "cr" -> budget.append("\n");
+                    default -> {
+                    }
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT && WORD_NS.equals(reader.getNamespaceURI())) {
+                switch (reader.getLocalName()) {
+                    case "t" -> inText = false;
+                    case "pPr" -> propertiesDepth--;
+                    case "p" -> {
+                        budget.append("\n");
+                        paragraphs++;
+                    }
+                    default -> {
+                    }
+                }
+            } else if (inText && (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA)) {
+                budget.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+            }
+        }
+        return paragraphs;
+    }
+
+    /**
+     * Текст с лимитом символов и сроком: open() == false - дальше читать не нужно
+     */
+    private static final class Budget {
+
+        private final StringBuilder text = new StringBuilder();
+        private final int maxChars;
+        private final long deadline;
+        private boolean truncated;
+        private boolean timedOut;
+
+        Budget(int maxChars, long deadline) {
+            this.maxChars = maxChars;
+            this.deadline = deadline;
+        }
+
+        boolean open() {
+            if (!truncated && System.nanoTime() - deadline > 0) {
+                timedOut = true;
+            }
+            return !truncated && !timedOut;
+        }
+
+        void append(CharSequence chars) {
+            int room = maxChars - text.length();
+            truncated |= chars.length() > room;
+            text.append(chars, 0, Math.min(chars.length(), room));
+        }
+
+        void append(char[] chars, int offset, int length) {
+            int room = maxChars - text.length();
+            truncated |= length > room;
+            text.append(chars, offset, Math.min(length, room));
+        }
+    }
+
+    /**
+     * Сигнал остановки из Writer'а / startPage: PDFTextStripper пробрасывает IOException наружу как есть
+     */
+    private static final class BudgetExhausted extends IOException {
+        BudgetExhausted() {
+            super("Text extraction budget exhausted");
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    private static final class PageStripper extends PDFTextStripper {
+
+        private final Budget budget;
+        private int pages;
+
+        PageStripper(Budget budget) {
+            this.budget = budget;
+        }
+
+        @Override
+        protected void startPage(PDPage page) throws IOException {
+            if (!budget.open()) {
+                throw new BudgetExhausted();
+            }
+            super.startPage(page);
+        }
+
+        @Override
+        protected void endPage(PDPage page) throws IOException {
+            super.endPage(page);
+            pages++;
+        }
+    }
+
+    private static final class BudgetWriter extends Writer {
+
+        private final Budget budget;
+
+        BudgetWriter(Budget budget) {
+            this.budget = budget;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            if (!budget.open()) {
+                throw new BudgetExhausted();
+            }
+            budget.append(chars, offset, length);
+        }
+
+        @Override
+        public void write(String str, int offset, int length) throws IOException {
+            if (!budget.open()) {
+                throw new BudgetExhausted();
+            }
+            budget.append(str.subSequence(offset, offset + length));
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
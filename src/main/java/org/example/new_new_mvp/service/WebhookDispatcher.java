@@ -0,0 +1,160 @@
+package org.example.new_new_mvp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import lombok.extern.slf4j.Slf4j;
+import org.example.new_new_mvp.model.WebhookJob;
+import org.example.new_new_mvp.repository.SupabaseWebhookOutboxRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Фоновая отправка заданий из webhook_outbox в n8n: не больше max-concurrency отправок одновременно,
+ * экспоненциальная задержка между попытками, после max-attempts задание уходит в DEAD.
+ * Опрос неблокирующий - поток планировщика только запускает цепочки запросов.
+ */
+@Slf4j
+@Component
+public class WebhookDispatcher {
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    @Autowired
+    private SupabaseWebhookOutboxRepository outboxRepository;
+
+    @Autowired
+    private WebhookService webhookService;
+
+    @Value("${webhook.outbox.max-concurrency:8}")
+    private int maxConcurrency;
+
+    @Value("${webhook.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${webhook.outbox.backoff-base-ms:5000}")
+    private long backoffBaseMs;
+
+    @Value("${webhook.outbox.backoff-max-ms:600000}")
+    private long backoffMaxMs;
+
+    // Должен быть больше webhook.http.read-timeout-ms: иначе задание заберут повторно, пока n8n ещё отвечает
+    @Value("${webhook.outbox.lock-timeout-ms:180000}")
+    private long lockTimeoutMs;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicBoolean polling = new AtomicBoolean();
+
+    /**
+     * Забрать задания к отправке. Кроме расписания вызывается сразу после постановки задания
+     * и после завершения каждой отправки
+     */
+    @Scheduled(fixedDelayString = "${webhook.outbox.poll-interval-ms:2000}")
+    public void poll() {
+        int free = maxConcurrency - inFlight.get();
+        if (free <= 0 || !polling.compareAndSet(false, true)) {
+            return;
+        }
+        outboxRepository.findDue(OffsetDateTime.now(), free)
+                .flatMapMany(Flux::fromIterable)
+                .doFinally(signal -> polling.set(false))
+                .subscribe(this::process,
+                        e -> log.warn("Webhook outbox poll error: {}", e.getMessage()));
+    }
+
+    private void process(WebhookJob job) {
+        if (inFlight.incrementAndGet() > maxConcurrency) {
+            inFlight.decrementAndGet();
+            return;
+        }
+        OffsetDateTime lockedUntil = OffsetDateTime.now().plus(Duration.ofMillis(lockTimeoutMs));
+        outboxRepository.claim(job, lockedUntil)
+                .flatMapMany(claimed -> webhookService.dispatch(claimed)
+                        .flatMapMany(
+                            response -> outboxRepository.markSent(claimed, response)
+                                    .doOnNext(sent -> {
+                                        log.info("Webhook job sent: {} ({})", sent.getId(), sent.getWebhookType());
+                                        deleteAttachments(sent);
+                                    }),
+                            e -> markFailed(claimed, e),
+                            Mono::empty))
+                .doFinally(signal -> {
+                    inFlight.decrementAndGet();
+                    poll();
+                })
+                .subscribe(done -> { },
+                        e -> log.warn("Webhook outbox error for job {}: {}", job.getId(), e.getMessage()));
+    }
+
+    private Mono<WebhookJob> markFailed(WebhookJob job, Throwable error) {
+        boolean retry = isRetryable(error) && job.getAttempts() < maxAttempts;
+        OffsetDateTime nextAttemptAt = retry
+                ? OffsetDateTime.now().plus(backoff(job.getAttempts(), Duration.ofMillis(backoffBaseMs),
+                        Duration.ofMillis(backoffMaxMs), ThreadLocalRandom.current().nextDouble()))
+                : null;
+        String message = error.getClass().getSimpleName() + ": " + error.getMessage();
+        if (message.length() > MAX_ERROR_LENGTH) {
+            message = message.substring(0, MAX_ERROR_LENGTH);
+        }
+        log.warn("Webhook job {} attempt {} failed: {}, {}", job.getId(), job.getAttempts(), message,
+                retry ? "retry at " + nextAttemptAt : "moved to DEAD");
+        return outboxRepository.markFailed(job, message, nextAttemptAt);
+    }
+
+    /**
+     * Задержка перед повтором: base * 2^(attempt-1), не больше max, с jitter в [50%, 100%),
+     * чтобы задания, упавшие вместе (n8n недоступен), не возвращались одной волной
+     */
+    static Duration backoff(int attempt, Duration base, Duration max, double jitter) {
+        long exponential = base.toMillis() << Math.min(Math.max(attempt - 1, 0), 30);
+        long capped = exponential <= 0 ? max.toMillis() : Math.min(exponential, max.toMillis());
+        return Duration.ofMillis((long) (capped * (0.5 + jitter / 2)));
+    }
+
+    /**
+     * 4xx от n8n (кроме 408/429), битый payload и потерянные файлы повтором не исправить - сразу в DEAD.
+     * Смотрим всю цепочку причин: postStreaming и WebClient заворачивают ошибку записи тела в RuntimeException
+     */
+    static boolean isRetryable(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof WebClientResponseException responseException) {
+                HttpStatusCode status = responseException.getStatusCode();
+                return status.is5xxServerError() || status.value() == 408 || status.value() == 429;
+            }
+            if (cause instanceof JsonProcessingException || cause instanceof NoSuchFileException) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Файлы в DEAD-заданиях не удаляются: задание можно отправить заново, вернув статус PENDING
+    private void deleteAttachments(WebhookJob job) {
+        if (job.getAttachments() == null) {
+            return;
+        }
+        for (Map<String, Object> attachment : job.getAttachments()) {
+            try {
+                Path path = Path.of(attachment.get("path").toString());
+                Files.deleteIfExists(path);
+                Files.deleteIfExists(path.getParent());
+            } catch (Exception e) {
+                // каталог удалится вместе с последним файлом
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package org.example.new_new_mvp.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.new_new_mvp.model.WebhookJob;
+import org.example.new_new_mvp.model.WebhookJobStatus;
+import org.example.new_new_mvp.model.WebhookType;
+import org.example.new_new_mvp.repository.SupabaseWebhookOutboxRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Постановка webhook'ов в outbox (таблица webhook_outbox). API отвечает 202 сразу после записи задания,
+ * отправку в n8n с повторами выполняет WebhookDispatcher.
+ */
+@Slf4j
+@Service
+public class WebhookOutboxService {
+
+    @Autowired
+    private SupabaseWebhookOutboxRepository outboxRepository;
+
+    @Autowired
+    private WebhookDispatcher webhookDispatcher;
+
+    @Value("${app.upload.path:./uploads}")
+    private String uploadPath;
+
+    /**
+     * Поставить webhook в очередь от имени ownerId. Пока задание с тем же ключом не отправлено, возвращается оно же -
+     * повторный клик не создаёт второй запрос в n8n
+     */
+    public Mono<WebhookJob> enqueue(WebhookType type, UUID ownerId, String payload, List<Map<String, Object>> attachments,
+                                    String idempotencyKey) {
+        return outboxRepository.findActiveByIdempotencyKey(idempotencyKey)
+                .flatMap(existing -> existing
+                        .map(job -> {
+                            log.debug("Webhook job already queued: {} ({})", job.getId(), idempotencyKey);
+                            discard(attachments);
+                            return Mono.just(job);
+                        })
+                        .orElseGet(() -> insert(type, ownerId, payload, attachments, idempotencyKey)))
+                .doOnNext(job -> webhookDispatcher.poll());
+    }
+
+    /**
+     * Поставить пачку webhook'ов без вложений (ключ идемпотентности -> payload): активные задания с теми же
+     * ключами ищутся одним запросом, новые вставляются одним POST. Результат - ключ -> задание
+     */
+    public Mono<Map<String, WebhookJob>> enqueueAll(WebhookType type, UUID ownerId, Map<String, String> payloadsByKey) {
+        if (payloadsByKey.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        return outboxRepository.findActiveByIdempotencyKeys(payloadsByKey.keySet())
+                .flatMap(active -> {
+                    List<WebhookJob> fresh = payloadsByKey.entrySet().stream()
+                            .filter(entry -> !active.containsKey(entry.getKey()))
+                            .map(entry -> newJob(type, ownerId, entry.getValue(), null, entry.getKey()))
+                            .toList();
+                    Mono<List<WebhookJob>> inserted = fresh.isEmpty()
+                            ? Mono.just(List.of())
+                            : outboxRepository.insertAll(fresh)
+                                    // ключ успели поставить параллельно - уникальный индекс отклонил всю пачку
+                                    .onErrorResume(e -> Flux.fromIterable(fresh)
+                                            .concatMap(job -> insert(type, ownerId, job.getPayload(), null, job.getIdempotencyKey()))
+                                            .collectList());
+                    return inserted.map(jobs -> {
+                        Map<String, WebhookJob> all = new HashMap<>(active);
+                        jobs.forEach(job -> all.put(job.getIdempotencyKey(), job));
+                        return all;
+                    });
+                })
+                .doOnNext(jobs -> webhookDispatcher.poll());
+    }
+
+    private Mono<WebhookJob> insert(WebhookType type, UUID ownerId, String payload, List<Map<String, Object>> attachments,
+                                    String idempotencyKey) {
+        return outboxRepository.insert(newJob(type, ownerId, payload, attachments, idempotencyKey))
+                // параллельный запрос с тем же ключом успел раньше - уникальный индекс вернул 409
+                .onErrorResume(e -> outboxRepository.findActiveByIdempotencyKey(idempotencyKey)
+                        .flatMap(existing -> existing
+                                .map(active -> {
+                                    discard(attachments);
+                                    return Mono.just(active);
+                                })
+                                .orElseGet(() -> Mono.error(e))));
+    }
+
+    private static WebhookJob newJob(WebhookType type, UUID ownerId, String payload, List<Map<String, Object>> attachments,
+                                     String idempotencyKey) {
+        OffsetDateTime now = OffsetDateTime.now();
+        WebhookJob job = new WebhookJob();
+        job.setId(UUID.randomUUID());
+        job.setIdempotencyKey(idempotencyKey);
+        job.setWebhookType(type);
+        job.setOwnerId(ownerId);
+        job.setPayload(payload);
+        job.setAttachments(attachments);
+        job.setStatus(WebhookJobStatus.PENDING);
+        job.setAttempts(0);
+        job.setNextAttemptAt(now);
+        job.setCreatedAt(now);
+        job.setUpdatedAt(now);
+        return job;
+    }
+
+    // Файлы дубля не нужны - отправится задание, поставленное первым
+    private void discard(List<Map<String, Object>> attachments) {
+        if (attachments == null) {
+            return;
+        }
+        for (Map<String, Object> attachment : attachments) {
+            try {
+                Path path = Path.of(attachment.get("path").toString());
+                Files.deleteIfExists(path);
+                Files.deleteIfExists(path.getParent());
+            } catch (IOException e) {
+                // каталог удалится вместе с последним файлом
+            }
+        }
+    }
+
+    public Mono<Optional<WebhookJob>> findJob(UUID id) {
+        return outboxRepository.findById(id);
+    }
+
+    /**
+     * Сохранить загруженные файлы на диск до отправки: multipart-файлы живут только до конца запроса.
+     * sha256 содержимого попадает в описание файла - из него строится ключ идемпотентности
+     */
+    public List<Map<String, Object>> spool(List<MultipartFile> files) throws IOException {
+        Path dir = Paths.get(uploadPath, "outbox", UUID.randomUUID().toString());
+        Files.createDirectories(dir);
+        List<Map<String, Object>> attachments = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            MultipartFile file = files.get(i);
+            Path target = dir.resolve(i + ".bin");
+            MessageDigest digest = sha256();
+            try (InputStream in = file.getInputStream();
+                 OutputStream out = new DigestOutputStream(Files.newOutputStream(target), digest)) {
+                in.transferTo(out);
+            }
+            Map<String, Object> attachment = new HashMap<>();
+            attachment.put("path", target.toAbsolutePath().toString());
+            attachment.put("originalFileName", file.getOriginalFilename());
+            attachment.put("size", file.getSize());
+            attachment.put("contentType", file.getContentType());
+            attachment.put("sha256", HexFormat.of().formatHex(digest.digest()));
+            attachments.add(attachment);
+        }
+        return attachments;
+    }
+
+    /**
+     * Ключ идемпотентности: тип + sha256 от значимых полей запроса (без timestamp из payload)
+     */
+    public static String idempotencyKey(WebhookType type, Object... parts) {
+        MessageDigest digest = sha256();
+        for (Object part : parts) {
+            digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return type + ":" + HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,30 +1,80 @@
 package org.example.new_new_mvp.service;
 
+import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.example.new_new_mvp.logging.LogValues;
+import org.example.new_new_mvp.model.WebhookJob;
+import org.example.new_new_mvp.model.WebhookType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.reactivestreams.Publisher;
 import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.Callable;
 
+@Slf4j
 @Service
 public class WebhookService {
     
+    private static final int STREAM_CHUNK_SIZE = 8192;
+    
+    // payload'ы могут нести profileData и base64 файлов - в DEBUG-лог попадает только начало
+    private static final int LOG_PAYLOAD_MAX_CHARS = 1000;
+    
     // Новые webhook URL-ы для трёх кнопок
-    private static final String WEBHOOK_ANALYZE_COMPETENCIES = "https://guglovskij.app.n8n.cloud/webhook/0d0a654b-772e-447a-9223-8b443f788175";
-    private static final String WEBHOOK_ASSIGN_JOB_ROLE = "https://guglovskij.app.n8n.cloud/webhook/113447c6-c39e-410c-ab15-4f5ab7809fd9";
-    private static final String WEBHOOK_GENERATE_AI_PROFILE = "https://guglovskij.app.n8n.cloud/webhook/bbd2959f-bedc-43fc-a558-69c0fe7b4db";
+    @Value("${webhook.analyze-competencies.url:https://guglovskij.app.n8n.cloud/webhook/0d0a654b-772e-447a-9223-8b443f788175}")
+    private String analyzeCompetenciesUrl;
+    
+    @Value("${webhook.assign-job-role.url:https://guglovskij.app.n8n.cloud/webhook/113447c6-c39e-410c-ab15-4f5ab7809fd9}")
+    private String assignJobRoleUrl;
+    
+    @Value("${webhook.generate-ai-profile.url:https://guglovskij.app.n8n.cloud/webhook/bbd2959f-bedc-43fc-a558-69c0fe7b4db}")
+    private String generateAiProfileUrl;
     
     // Старый webhook для обратной совместимости
-    private static final String N8N_WEBHOOK_URL = "http://5.83.140.54:5678/webhook/31435a9e-5b49-4918-b37c-001b27e51335";
+    @Value("${webhook.profile.url:http://5.83.140.54:5678/webhook/31435a9e-5b49-4918-b37c-001b27e51335}")
+    private String profileWebhookUrl;
+    
+    // Общий клиент с пулом соединений и таймаутами, см. WebhookConfig
+    @Autowired
+    @Qualifier("webhookWebClient")
+    private WebClient webhookWebClient;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    // PDF/DOCX из outbox уходят в n8n извлечённым текстом вместо base64; false - как раньше, содержимое целиком
+    @Value("${webhook.analyze-competencies.send-text:true}")
+    private boolean sendExtractedText;
+    
+    @Autowired(required = false)
+    private TextExtractor textExtractor;
     
     /**
      * Кнопка 1: Загрузить и анализировать компетенции
@@ -33,105 +83,51 @@ public class WebhookService {
     public String sendCompetencyAnalysisWebhook(UUID userId, String userEmail, String userName, 
                                                String profileData, String companyName) {
         try {
-            String webhookPayload = String.format("""
-                {
-                    "action": "analyze_competencies",
-                    "userId": "%s",
-                    "userEmail": "%s",
-                    "userName": "%s",
-                    "profileData": %s,
-                    "companyName": "%s",
-                    "timestamp": "%s"
-                }
-                """,
-                userId,
-                userEmail != null ? userEmail : "",
-                userName != null ? userName : "",
-                profileData != null ? profileData : "{}",
-                companyName != null ? companyName : "",
-                LocalDateTime.now().toString()
-            );
+            String webhookPayload = buildCompetencyAnalysisPayload(userId, userEmail, userName, profileData, companyName);
             
-            return sendWebhook(WEBHOOK_ANALYZE_COMPETENCIES, webhookPayload);
+            return sendWebhook(analyzeCompetenciesUrl, webhookPayload);
             
         } catch (Exception e) {
-            System.out.println("Error sending competency analysis webhook: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error sending competency analysis webhook", e);
             throw new RuntimeException("Failed to send webhook: " + e.getMessage());
         }
     }
     
     /**
      * Кнопка 1: Загрузить и анализировать компетенции (С ФАЙЛАМИ В BASE64)
-     * Отправляет файлы в base64 и данные пользователя для анализа через JSON
+     * Отправляет файлы в base64 и данные пользователя для анализа через JSON.
+     * JSON пишется потоком прямо в тело запроса - файл целиком в памяти не держится, см. writeFilesPayload
      */
     public String sendCompetencyAnalysisWebhookWithFiles(UUID userId, String userEmail, String userName, 
                                                          String profileData, String companyName, 
                                                          List<MultipartFile> files) {
         try {
-            // Формируем JSON массив файлов с base64
-            StringBuilder filesJson = new StringBuilder("[");
-            if (files != null && !files.isEmpty()) {
-                for (int i = 0; i < files.size(); i++) {
-                    MultipartFile file = files.get(i);
-                    if (i > 0) filesJson.append(",");
-                    
-                    // Кодируем файл в base64
-                    String base64Content = java.util.Base64.getEncoder().encodeToString(file.getBytes());
-                    
-                    filesJson.append(String.format("""
-                        {
-                            "originalFileName": "%s",
-                            "size": %d,
-                            "contentType": "%s",
-                            "content": "%s"
-                        }
-                        """,
-                        file.getOriginalFilename() != null ? file.getOriginalFilename().replace("\"", "\\\"") : "",
-                        file.getSize(),
-                        file.getContentType() != null ? file.getContentType().replace("\"", "\\\"") : "",
-                        base64Content
-                    ));
-                }
-            }
-            filesJson.append("]");
+            String webhookPayload = buildCompetencyAnalysisPayload(userId, userEmail, userName, profileData, companyName);
             
-            String webhookPayload = String.format("""
-                {
-                    "action": "analyze_competencies",
-                    "userId": "%s",
-                    "userEmail": "%s",
-                    "userName": "%s",
-                    "profileData": %s,
-                    "companyName": "%s",
-                    "files": %s,
-                    "timestamp": "%s"
+            List<StreamedFile> streamedFiles = new ArrayList<>();
+            if (files != null) {
+                for (MultipartFile file : files) {
+                    streamedFiles.add(new StreamedFile(file.getOriginalFilename(), file.getSize(),
+                            file.getContentType(), file::getInputStream));
                 }
-                """,
-                userId,
-                userEmail != null ? userEmail : "",
-                userName != null ? userName : "",
-                profileData != null ? profileData : "{}",
-                companyName != null ? companyName : "",
-                filesJson.toString(),
-                LocalDateTime.now().toString()
-            );
+            }
             
-            System.out.println("=== WEBHOOK JSON WITH BASE64 FILES ===");
-            System.out.println("URL: " + WEBHOOK_ANALYZE_COMPETENCIES);
-            System.out.println("Files count: " + (files != null ? files.size() : 0));
-            System.out.println("User: " + userEmail);
-            System.out.println("Payload size: " + webhookPayload.length() + " bytes");
+            if (log.isDebugEnabled()) {
+                log.atDebug()
+                        .addKeyValue("url", analyzeCompetenciesUrl)
+                        .addKeyValue("user", userEmail)
+                        .addKeyValue("files", streamedFiles.size())
+                        .addKeyValue("bytes", streamedFiles.stream().mapToLong(StreamedFile::size).sum())
+                        .log("Sending competency analysis webhook with base64 files (streaming)");
+            }
             
-            String response = sendWebhook(WEBHOOK_ANALYZE_COMPETENCIES, webhookPayload);
+            String response = postStreaming(analyzeCompetenciesUrl, null, webhookPayload, streamedFiles).block();
+            log.debug("Webhook response: {}", LogValues.truncate(response, LOG_PAYLOAD_MAX_CHARS));
             
             return response;
             
         } catch (Exception e) {
-            System.out.println("=== WEBHOOK ERROR ===");
-            System.out.println("Error: " + e.getMessage());
-            e.printStackTrace();
-            System.out.println("=== END ERROR ===");
+            log.error("Error sending competency analysis webhook with files", e);
             throw new RuntimeException("Failed to send webhook: " + e.getMessage());
         }
     }
@@ -190,11 +186,10 @@ public class WebhookService {
                 LocalDateTime.now().toString()
             );
             
-            return sendWebhook(WEBHOOK_ANALYZE_COMPETENCIES, webhookPayload);
+            return sendWebhook(analyzeCompetenciesUrl, webhookPayload);
             
         } catch (Exception e) {
-            System.out.println("Error sending competency analysis webhook: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error sending competency analysis webhook", e);
             throw new RuntimeException("Failed to send webhook: " + e.getMessage());
         }
     }
@@ -232,11 +227,10 @@ public class WebhookService {
                 LocalDateTime.now().toString()
             );
             
-            return sendWebhook(WEBHOOK_ASSIGN_JOB_ROLE, webhookPayload);
+            return sendWebhook(assignJobRoleUrl, webhookPayload);
             
         } catch (Exception e) {
-            System.out.println("Error sending job role assignment webhook: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error sending job role assignment webhook", e);
             throw new RuntimeException("Failed to send webhook: " + e.getMessage());
         }
     }
@@ -247,41 +241,12 @@ public class WebhookService {
                                                UUID jobRoleId, String jobRoleTitle, String jobRoleDescription,
                                                String profileData, String companyName) {
         try {
-            String webhookPayload = String.format("""
-                {
-                    "action": "assign_job_role",
-                    "userId": "%s",
-                    "userEmail": "%s",
-                    "userName": "%s",
-                    "activationCode": "%s",
-                    "jobRoleId": "%s",
-                    "jobRoleTitle": "%s",
-                    "jobRoleDescription": "%s",
-                    "profileData": %s,
-                    "companyName": "%s",
-                    "timestamp": "%s"
-                }
-                """,
-                userId,
-                userEmail != null ? userEmail : "",
-                userName != null ? userName : "",
-                activationCode != null ? activationCode : "",
-                jobRoleId != null ? jobRoleId.toString() : "",
-                jobRoleTitle != null ? jobRoleTitle : "",
-                jobRoleDescription != null ? jobRoleDescription : "",
-                profileData != null ? profileData : "{}",
-                companyName != null ? companyName : "",
-                LocalDateTime.now().toString()
-            );
+            String webhookPayload = buildJobRoleAssignmentPayload(userId, userEmail, userName, activationCode,
+                    jobRoleId, jobRoleTitle, jobRoleDescription, profileData, companyName);
 
-            System.out.println("=== SENDING JOB ROLE WEBHOOK ===");
-            System.out.println("URL: " + WEBHOOK_ASSIGN_JOB_ROLE);
-            System.out.println("Payload: " + webhookPayload);
-
-            return sendWebhook(WEBHOOK_ASSIGN_JOB_ROLE, webhookPayload);
+            return sendWebhook(assignJobRoleUrl, webhookPayload);
         } catch (Exception e) {
-            System.out.println("Error sending job role assignment webhook: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error sending job role assignment webhook", e);
             throw new RuntimeException("Failed to send webhook: " + e.getMessage());
         }
     }
@@ -294,74 +259,271 @@ public class WebhookService {
                                                 String profileData, String companyName, String activationCode,
                                                 String telegramChatId, String status) {
         try {
-            String webhookPayload = String.format("""
-                {
-                    "action": "generate_ai_profile",
-                    "userId": "%s",
-                    "userEmail": "%s",
-                    "userName": "%s",
-                    "activationCode": "%s",
-                    "telegramChatId": "%s",
-                    "status": "%s",
-                    "profileData": %s,
-                    "companyName": "%s",
-                    "timestamp": "%s"
-                }
-                """,
-                userId,
-                userEmail != null ? userEmail : "",
-                userName != null ? userName : "",
-                activationCode != null ? activationCode : "",
-                telegramChatId != null ? telegramChatId : "",
-                status != null ? status : "",
-                profileData != null ? profileData : "{}",
-                companyName != null ? companyName : "",
-                LocalDateTime.now().toString()
-            );
-            
-            System.out.println("=== SENDING AI PROFILE GENERATION WEBHOOK ===");
-            System.out.println("URL: " + WEBHOOK_GENERATE_AI_PROFILE);
-            System.out.println("Payload:");
-            System.out.println(webhookPayload);
+            String webhookPayload = buildAIProfileGenerationPayload(userId, userEmail, userName, profileData,
+                    companyName, activationCode, telegramChatId, status);
             
-            return sendWebhook(WEBHOOK_GENERATE_AI_PROFILE, webhookPayload);
+            return sendWebhook(generateAiProfileUrl, webhookPayload);
             
         } catch (Exception e) {
-            System.out.println("Error sending AI profile generation webhook: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error sending AI profile generation webhook", e);
             throw new RuntimeException("Failed to send webhook: " + e.getMessage());
         }
     }
     
+    /**
+     * Payload кнопки 1 без файлов: файлы из outbox добавляются при отправке, см. dispatch
+     */
+    public String buildCompetencyAnalysisPayload(UUID userId, String userEmail, String userName,
+                                                 String profileData, String companyName) {
+        return String.format("""
+            {
+                "action": "analyze_competencies",
+                "userId": "%s",
+                "userEmail": "%s",
+                "userName": "%s",
+                "profileData": %s,
+                "companyName": "%s",
+                "timestamp": "%s"
+            }
+            """,
+            userId,
+            userEmail != null ? userEmail : "",
+            userName != null ? userName : "",
+            profileData != null ? profileData : "{}",
+            companyName != null ? companyName : "",
+            LocalDateTime.now().toString()
+        );
+    }
+    
+    /**
+     * Payload кнопки 2 (с activationCode)
+     */
+    public String buildJobRoleAssignmentPayload(UUID userId, String userEmail, String userName,
+                                                String activationCode,
+                                                UUID jobRoleId, String jobRoleTitle, String jobRoleDescription,
+                                                String profileData, String companyName) {
+        return String.format("""
+            {
+                "action": "assign_job_role",
+                "userId": "%s",
+                "userEmail": "%s",
+                "userName": "%s",
+                "activationCode": "%s",
+                "jobRoleId": "%s",
+                "jobRoleTitle": "%s",
+                "jobRoleDescription": "%s",
+                "profileData": %s,
+                "companyName": "%s",
+                "timestamp": "%s"
+            }
+            """,
+            userId,
+            userEmail != null ? userEmail : "",
+            userName != null ? userName : "",
+            activationCode != null ? activationCode : "",
+            jobRoleId != null ? jobRoleId.toString() : "",
+            jobRoleTitle != null ? jobRoleTitle : "",
+            jobRoleDescription != null ? jobRoleDescription : "",
+            profileData != null ? profileData : "{}",
+            companyName != null ? companyName : "",
+            LocalDateTime.now().toString()
+        );
+    }
+    
+    /**
+     * Payload кнопки 3
+     */
+    public String buildAIProfileGenerationPayload(UUID userId, String userEmail, String userName,
+                                                  String profileData, String companyName, String activationCode,
+                                                  String telegramChatId, String status) {
+        return String.format("""
+            {
+                "action": "generate_ai_profile",
+                "userId": "%s",
+                "userEmail": "%s",
+                "userName": "%s",
+                "activationCode": "%s",
+                "telegramChatId": "%s",
+                "status": "%s",
+                "profileData": %s,
+                "companyName": "%s",
+                "timestamp": "%s"
+            }
+            """,
+            userId,
+            userEmail != null ? userEmail : "",
+            userName != null ? userName : "",
+            activationCode != null ? activationCode : "",
+            telegramChatId != null ? telegramChatId : "",
+            status != null ? status : "",
+            profileData != null ? profileData : "{}",
+            companyName != null ? companyName : "",
+            LocalDateTime.now().toString()
+        );
+    }
+    
+    public String urlFor(WebhookType type) {
+        return switch (type) {
+            case ANALYZE_COMPETENCIES -> analyzeCompetenciesUrl;
+            case ASSIGN_JOB_ROLE -> assignJobRoleUrl;
+            case GENERATE_AI_PROFILE -> generateAiProfileUrl;
+        };
+    }
+    
+    /**
+     * Отправка задания из outbox (WebhookDispatcher). Idempotency-Key = id задания:
+     * одинаков для всех повторов, n8n может отбросить дубль, если первая попытка всё же дошла.
+     * Ошибки не перехватываются - решение о повторе принимает диспетчер
+     */
+    public Mono<String> dispatch(WebhookJob job) {
+        String url = urlFor(job.getWebhookType());
+        String idempotencyKey = job.getId().toString();
+        if (job.getAttachments() == null || job.getAttachments().isEmpty()) {
+            return webhookWebClient.post()
+                    .uri(url)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header("Idempotency-Key", idempotencyKey)
+                    .bodyValue(job.getPayload())
+                    .retrieve()
+                    .bodyToMono(String.class)
+                    .defaultIfEmpty("");
+        }
+        List<StreamedFile> files = new ArrayList<>();
+        for (Map<String, Object> attachment : job.getAttachments()) {
+            Path path = Path.of(attachment.get("path").toString());
+            Object size = attachment.get("size");
+            String contentType = Objects.toString(attachment.get("contentType"), "");
+            files.add(new StreamedFile(
+                    Objects.toString(attachment.get("originalFileName"), ""),
+                    size instanceof Number number ? number.longValue() : -1,
+                    contentType,
+                    () -> Files.newInputStream(path),
+                    sendExtractedText && textExtractor != null && textExtractor.supports(contentType)
+                            ? () -> textExtractor.extract(path, contentType)
+                            : null));
+        }
+        return postStreaming(url, idempotencyKey, job.getPayload(), files);
+    }
+    
+    /**
+     * Файл для потоковой отправки: содержимое открывается только в момент записи в тело запроса.
+     * text - извлечение текста (PDF/DOCX), выполняется там же; null - файл уходит в base64
+     */
+    record StreamedFile(String originalFileName, long size, String contentType, Callable<InputStream> content,
+                        Callable<TextExtractor.Extraction> text) {
+        
+        StreamedFile(String originalFileName, long size, String contentType, Callable<InputStream> content) {
+            this(originalFileName, size, contentType, content, null);
+        }
+    }
+    
+    /**
+     * POST payload + "files" с base64 содержимым. Тело генерируется JsonGenerator'ом в OutputStream,
+     * который отдаёт буферы в WebClient по мере запроса (backpressure) - в памяти только буферы по STREAM_CHUNK_SIZE,
+     * а не файл, его base64 и весь JSON целиком
+     */
+    private Mono<String> postStreaming(String url, String idempotencyKey, String payload, List<StreamedFile> files) {
+        Publisher<DataBuffer> body = DataBufferUtils.outputStreamPublisher(
+                out -> {
+                    try {
+                        writeFilesPayload(out, payload, files);
+                    } catch (Exception e) {
+                        throw new RuntimeException("Failed to stream webhook payload: " + e.getMessage(), e);
+                    }
+                },
+                DefaultDataBufferFactory.sharedInstance,
+                // чтение файлов блокирующее - не на event loop
+                Schedulers.boundedElastic()::schedule,
+                STREAM_CHUNK_SIZE);
+        return webhookWebClient.post()
+                .uri(url)
+                .contentType(MediaType.APPLICATION_JSON)
+                .headers(headers -> {
+                    if (idempotencyKey != null) {
+                        headers.set("Idempotency-Key", idempotencyKey);
+                    }
+                })
+                .body(BodyInserters.fromDataBuffers(body))
+                .retrieve()
+                .bodyToMono(String.class)
+                .defaultIfEmpty("");
+    }
+    
+    /**
+     * Поля payload + "files": [{originalFileName, size, contentType, content}] - тот же JSON,
+     * что раньше собирался через String.format, но base64 кодируется кусками прямо в поток.
+     * Для файла с извлечённым текстом вместо content пишутся text и textTruncated; если текста нет
+     * (скан, битый файл), отправляется base64 как раньше
+     */
+    void writeFilesPayload(OutputStream out, String payload, List<StreamedFile> files) throws Exception {
+        JsonNode base = objectMapper.readTree(payload);
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.writeStartObject();
+            var fields = base.fields();
+            while (fields.hasNext()) {
+                var field = fields.next();
+                if (!"files".equals(field.getKey())) {
+                    generator.writeFieldName(field.getKey());
+                    generator.writeTree(field.getValue());
+                }
+            }
+            generator.writeArrayFieldStart("files");
+            for (StreamedFile file : files) {
+                generator.writeStartObject();
+                generator.writeStringField("originalFileName", file.originalFileName() != null ? file.originalFileName() : "");
+                generator.writeNumberField("size", file.size());
+                generator.writeStringField("contentType", file.contentType() != null ? file.contentType() : "");
+                TextExtractor.Extraction extraction = extractText(file);
+                if (extraction != null) {
+                    generator.writeStringField("text", extraction.text());
+                    generator.writeBooleanField("textTruncated", extraction.truncated() || extraction.timedOut());
+                } else {
+                    generator.writeFieldName("content");
+                    try (InputStream in = file.content().call()) {
+                        // MIME_NO_LINEFEEDS - стандартный base64 без переносов, как Base64.getEncoder()
+                        generator.writeBinary(Base64Variants.MIME_NO_LINEFEEDS, in, -1);
+                    }
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+    
+    private TextExtractor.Extraction extractText(StreamedFile file) {
+        if (file.text() == null) {
+            return null;
+        }
+        try {
+            TextExtractor.Extraction extraction = file.text().call();
+            return extraction.text().isEmpty() ? null : extraction;
+        } catch (Exception e) {
+            log.warn("Text extraction failed for {}, sending base64: {}", file.originalFileName(), e.getMessage());
+            return null;
+        }
+    }
+    
     /**
      * Универсальный метод для отправки webhook'а
      */
     private String sendWebhook(String webhookUrl, String payload) {
         try {
-            RestTemplate restTemplate = new RestTemplate();
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            
-            HttpEntity<String> request = new HttpEntity<>(payload, headers);
-            
-            System.out.println("=== WEBHOOK SEND START ===");
-            System.out.println("URL: " + webhookUrl);
-            System.out.println("Payload:");
-            System.out.println(payload);
-            
-            String response = restTemplate.postForObject(webhookUrl, request, String.class);
+            log.debug("Sending webhook to {}: {}", webhookUrl, LogValues.truncate(payload, LOG_PAYLOAD_MAX_CHARS));
             
-            System.out.println("=== WEBHOOK RESPONSE ===");
-            System.out.println(response);
-            System.out.println("=== END ===");
+            String response = webhookWebClient.post()
+                    .uri(webhookUrl)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(payload)
+                    .retrieve()
+                    .bodyToMono(String.class)
+                    .block();
+            log.debug("Webhook response from {}: {}", webhookUrl, LogValues.truncate(response, LOG_PAYLOAD_MAX_CHARS));
             
             return response;
             
         } catch (Exception e) {
-            System.out.println("=== WEBHOOK ERROR ===");
-            System.out.println("Error: " + e.getMessage());
-            e.printStackTrace();
-            System.out.println("=== END ERROR ===");
+            log.warn("Webhook to {} failed: {}", webhookUrl, e.getMessage());
             throw e;
         }
     }
@@ -391,11 +553,10 @@ public class WebhookService {
                 LocalDateTime.now().toString()
             );
             
-            return sendWebhook(N8N_WEBHOOK_URL, webhookPayload);
+            return sendWebhook(profileWebhookUrl, webhookPayload);
             
         } catch (Exception e) {
-            System.out.println("Error sending webhook to n8n: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error sending webhook to n8n", e);
             throw new RuntimeException("Failed to send webhook: " + e.getMessage());
         }
     }
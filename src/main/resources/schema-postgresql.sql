@@ -82,7 +82,21 @@ CREATE TABLE IF NOT EXISTS profile_snapshots (
     id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
     user_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
     snapshot_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    profile_data JSONB
+    profile_data JSONB,
+    kind VARCHAR(10) CHECK (kind IN ('FULL', 'DELTA')),
+    content_hash VARCHAR(64),
+    base_id UUID REFERENCES profile_snapshots(id) DEFERRABLE INITIALLY DEFERRED,
+    seq INTEGER,
+    patch JSONB
+);
+
+-- Текст из PDF/DOCX, извлечённый при анализе файла (TextExtractor)
+CREATE TABLE IF NOT EXISTS file_upload_texts (
+    file_upload_id UUID PRIMARY KEY REFERENCES file_uploads(id) ON DELETE CASCADE,
+    text TEXT NOT NULL,
+    units INTEGER NOT NULL,
+    truncated BOOLEAN NOT NULL,
+    extracted_at TIMESTAMP NOT NULL
 );
 
 -- Create company_content table
@@ -116,7 +130,8 @@ CREATE TABLE IF NOT EXISTS file_uploads (
     mime_type VARCHAR(100) NOT NULL,
     uploaded_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     description TEXT,
-    tags VARCHAR(500)
+    tags VARCHAR(500),
+    content_hash VARCHAR(64)
 );
 
 -- Create indexes for better performance
@@ -134,6 +149,7 @@ CREATE INDEX IF NOT EXISTS idx_profiles_status ON profiles(status);
 
 CREATE INDEX IF NOT EXISTS idx_snapshots_user_id ON profile_snapshots(user_id);
 CREATE INDEX IF NOT EXISTS idx_snapshots_date ON profile_snapshots(snapshot_date);
+CREATE INDEX IF NOT EXISTS idx_snapshots_user_id_date ON profile_snapshots(user_id, snapshot_date);
 
 CREATE INDEX IF NOT EXISTS idx_content_company_id ON company_content(company_id);
 CREATE INDEX IF NOT EXISTS idx_content_type ON company_content(content_type);
@@ -146,6 +162,8 @@ CREATE INDEX IF NOT EXISTS idx_email_verifications_used ON email_verifications(i
 CREATE INDEX IF NOT EXISTS idx_file_uploads_user_id ON file_uploads(user_id);
 CREATE INDEX IF NOT EXISTS idx_file_uploads_uploaded_at ON file_uploads(uploaded_at);
 CREATE INDEX IF NOT EXISTS idx_file_uploads_mime_type ON file_uploads(mime_type);
+CREATE INDEX IF NOT EXISTS idx_file_uploads_content_hash ON file_uploads(content_hash);
+CREATE INDEX IF NOT EXISTS idx_file_uploads_file_size ON file_uploads(file_size);
 
 -- Create indexes on JSONB columns for better performance
 CREATE INDEX IF NOT EXISTS idx_users_google_token ON users USING GIN (google_oauth_token);
@@ -72,9 +72,20 @@ CREATE TABLE IF NOT EXISTS file_uploads (
     uploaded_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     description TEXT,
     tags VARCHAR(500),
+    content_hash VARCHAR(64),
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
 );
 
+-- Текст из PDF/DOCX, извлечённый при анализе файла (TextExtractor)
+CREATE TABLE IF NOT EXISTS file_upload_texts (
+    file_upload_id CHAR(36) PRIMARY KEY,
+    text TEXT NOT NULL,
+    units INT NOT NULL,
+    truncated BOOLEAN NOT NULL,
+    extracted_at TIMESTAMP NOT NULL,
+    FOREIGN KEY (file_upload_id) REFERENCES file_uploads(id) ON DELETE CASCADE
+);
+
 -- Create indexes for better performance
 CREATE INDEX IF NOT EXISTS idx_users_company_id ON users(company_id);
 CREATE INDEX IF NOT EXISTS idx_users_email ON users(email);
@@ -102,3 +113,5 @@ CREATE INDEX IF NOT EXISTS idx_email_verifications_used ON email_verifications(i
 CREATE INDEX IF NOT EXISTS idx_file_uploads_user_id ON file_uploads(user_id);
 CREATE INDEX IF NOT EXISTS idx_file_uploads_uploaded_at ON file_uploads(uploaded_at);
 CREATE INDEX IF NOT EXISTS idx_file_uploads_mime_type ON file_uploads(mime_type);
+CREATE INDEX IF NOT EXISTS idx_file_uploads_content_hash ON file_uploads(content_hash);
+CREATE INDEX IF NOT EXISTS idx_file_uploads_file_size ON file_uploads(file_size);
@@ -104,6 +104,7 @@ class CompanyPanel {
                 console.log('Loaded profiles:', this.profiles);
                 this.renderProfilesTable();
                 this.updateStats();
+                await this.loadNextPages(`/api/profiles/company/${user.companyId}`, response, token);
             } else {
                 console.error('Error loading profiles:', response.status);
                 // Try to load all profiles as fallback
@@ -138,6 +139,7 @@ class CompanyPanel {
                 console.log('Loaded all profiles:', this.profiles);
                 this.renderProfilesTable();
                 this.updateStats();
+                await this.loadNextPages('/api/profiles/all', response, token);
             } else {
                 console.error('Error loading all profiles:', response.status);
             }
@@ -146,6 +148,28 @@ class CompanyPanel {
         }
     }
 
+    // Списки отдаются страницами: пока есть X-Next-Cursor, догружаем следующую и дорисовываем таблицу
+    async loadNextPages(url, response, token) {
+        let cursor = response.headers.get('X-Next-Cursor');
+        while (cursor) {
+            const pageResponse = await fetch(`${url}?after=${encodeURIComponent(cursor)}`, {
+                method: 'GET',
+                headers: {
+                    'Content-Type': 'application/json',
+                    'Authorization': `Bearer ${token}`
+                }
+            });
+            if (!pageResponse.ok) {
+                console.error('Error loading next profiles page:', pageResponse.status);
+                return;
+            }
+            this.profiles = this.profiles.concat(await pageResponse.json());
+            this.renderProfilesTable();
+            this.updateStats();
+            cursor = pageResponse.headers.get('X-Next-Cursor');
+        }
+    }
+
     renderProfilesTable() {
         const tbody = document.getElementById('profilesTable');
         
@@ -0,0 +1,64 @@
+package org.example.new_new_mvp.config;
+
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OutboundHttpMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ObservationRegistry observationRegistry = ObservationRegistry.create();
+
+    @Test
+    void mapsPostgrestPathsToTableAndOperation() {
+        assertEquals("users", SupabaseClientObservationConvention.table(URI.create("https://x.supabase.co/rest/v1/users?email=eq.a")));
+        assertEquals("select", SupabaseClientObservationConvention.operation(request(HttpMethod.HEAD, "/rest/v1/users")));
+        assertEquals("update", SupabaseClientObservationConvention.operation(request(HttpMethod.PATCH, "/rest/v1/profiles")));
+        ClientRequest rpc = request(HttpMethod.POST, "/rest/v1/rpc/claim_webhook_jobs");
+        assertEquals("rpc", SupabaseClientObservationConvention.operation(rpc));
+        assertEquals("claim_webhook_jobs", SupabaseClientObservationConvention.table(rpc.url()));
+    }
+
+    @Test
+    void recordsLatencySizeAndErrorsPerTable() {
+        observationRegistry.observationConfig().observationHandler(new DefaultMeterObservationHandler(meterRegistry));
+        WebClient client = WebClient.builder()
+                .baseUrl("https://x.supabase.co/rest/v1")
+                .exchangeFunction(request -> Mono.just(request.url().getPath().endsWith("/users")
+                        ? ClientResponse.create(HttpStatus.OK).body("[{\"id\":1}]").build()
+                        : ClientResponse.create(HttpStatus.BAD_REQUEST).body("{\"code\":\"42703\"}").build()))
+                .observationRegistry(observationRegistry)
+                .observationConvention(new SupabaseClientObservationConvention())
+                .filter(new OutboundHttpMetrics(meterRegistry).supabase())
+                .build();
+
+        client.get().uri("/users?email=eq.a@example.com").retrieve().bodyToMono(String.class).block();
+        assertThrows(WebClientResponseException.class,
+                () -> client.patch().uri("/profiles?user_id=eq.1").retrieve().toBodilessEntity().block());
+
+        assertNotNull(meterRegistry.find(SupabaseClientObservationConvention.NAME)
+                .tags("table", "users", "operation", "select", "uri", "/rest/v1/users").timer());
+        assertEquals(10.0, meterRegistry.get("supabase.response.size")
+                .tags("table", "users", "operation", "select").summary().totalAmount());
+        assertEquals(1.0, meterRegistry.get("supabase.errors")
+                .tags("table", "profiles", "operation", "update", "error", "400").counter().count());
+    }
+
+    private static ClientRequest request(HttpMethod method, String path) {
+        return ClientRequest.create(method, URI.create("https://x.supabase.co" + path)).build();
+    }
+}
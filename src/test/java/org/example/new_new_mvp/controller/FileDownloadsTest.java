@@ -0,0 +1,119 @@
+package org.example.new_new_mvp.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FileDownloadsTest {
+
+    private static final String ETAG = FileDownloads.strongETag("9f86d081884c7d65");
+    private static final byte[] CONTENT = "0123456789abcdefghij".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    Path dir;
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        file = Files.write(dir.resolve("cv.pdf"), CONTENT);
+    }
+
+    @Test
+    void sendsWholeFileWithLengthAndETag() throws Exception {
+        MockHttpServletResponse response = send(new MockHttpServletRequest("GET", "/api/files/download/1"));
+
+        assertEquals(200, response.getStatus());
+        assertEquals(ETAG, response.getHeader("ETag"));
+        assertEquals("bytes", response.getHeader("Accept-Ranges"));
+        assertEquals(CONTENT.length, response.getContentLength());
+        assertArrayEquals(CONTENT, response.getContentAsByteArray());
+    }
+
+    @Test
+    void sendsRequestedRange() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/files/download/1");
+        request.addHeader("Range", "bytes=10-");
+        request.addHeader("If-Range", ETAG);
+
+        MockHttpServletResponse response = send(request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 10-19/20", response.getHeader("Content-Range"));
+        assertEquals(10, response.getContentLength());
+        assertEquals("abcdefghij", response.getContentAsString());
+    }
+
+    @Test
+    void answersNotModifiedAndUnsatisfiableRange() throws Exception {
+        MockHttpServletRequest cached = new MockHttpServletRequest("GET", "/api/files/download/1");
+        cached.addHeader("If-None-Match", "\"other\", " + ETAG);
+        MockHttpServletResponse notModified = send(cached);
+        assertEquals(304, notModified.getStatus());
+        assertEquals(0, notModified.getContentAsByteArray().length);
+
+        MockHttpServletRequest outside = new MockHttpServletRequest("GET", "/api/files/download/1");
+        outside.addHeader("Range", "bytes=50-60");
+        MockHttpServletResponse unsatisfiable = send(outside);
+        assertEquals(416, unsatisfiable.getStatus());
+        assertEquals("bytes */20", unsatisfiable.getHeader("Content-Range"));
+    }
+
+    @Test
+    void handsLargeBodyToSendfileWhenSupported() throws Exception {
+        byte[] large = new byte[64 * 1024];
+        Path big = Files.write(dir.resolve("portfolio.zip"), large);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/files/download/2");
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        request.addHeader("Range", "bytes=1024-");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        FileDownloads.send(request, response, big, ETAG, "portfolio.zip", "application/zip");
+
+        assertEquals(206, response.getStatus());
+        assertEquals(large.length - 1024, response.getContentLength());
+        assertEquals(big.toAbsolutePath().toString(), request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(1024L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals((long) large.length, request.getAttribute("org.apache.tomcat.sendfile.end"));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void parsesSingleRangesOnly() {
+        assertArrayEquals(new long[]{0, 4}, FileDownloads.parseRange("bytes=0-4", 20));
+        assertArrayEquals(new long[]{15, 19}, FileDownloads.parseRange("bytes=-5", 20));
+        assertArrayEquals(new long[]{5, 19}, FileDownloads.parseRange("bytes=5-100", 20));
+        assertEquals(0, FileDownloads.parseRange("bytes=0-1,5-6", 20).length);
+        assertEquals(0, FileDownloads.parseRange("bytes=7-3", 20).length);
+        assertNull(FileDownloads.parseRange("bytes=20-25", 20));
+        assertNull(FileDownloads.parseRange("bytes=20-", 20));
+    }
+
+    @Test
+    void ignoresReversedRange() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/files/download/1");
+        request.addHeader("Range", "bytes=15-3");
+
+        MockHttpServletResponse response = send(request);
+
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader("Content-Range"));
+        assertArrayEquals(CONTENT, response.getContentAsByteArray());
+    }
+
+    private MockHttpServletResponse send(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FileDownloads.send(request, response, file, ETAG, "cv.pdf", "application/pdf");
+        return response;
+    }
+}
@@ -0,0 +1,39 @@
+package org.example.new_new_mvp.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CursorPageTest {
+
+    @Test
+    void extraRowBecomesCursorOfLastKeptRow() {
+        CursorPage<Integer> page = CursorPage.of(List.of(1, 2, 3), 2, row -> "k" + row);
+
+        assertEquals(List.of(1, 2), page.getItems());
+        assertEquals("k2", page.getNextCursor());
+        assertTrue(page.isHasMore());
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        CursorPage<Integer> page = CursorPage.of(List.of(1, 2), 2, row -> "k" + row);
+
+        assertEquals(List.of(1, 2), page.getItems());
+        assertNull(page.getNextCursor());
+        assertFalse(page.isHasMore());
+    }
+
+    @Test
+    void clampsRequestedLimit() {
+        assertEquals(100, CursorPage.clampLimit(null, 100, 500));
+        assertEquals(100, CursorPage.clampLimit(0, 100, 500));
+        assertEquals(20, CursorPage.clampLimit(20, 100, 500));
+        assertEquals(500, CursorPage.clampLimit(10_000, 100, 500));
+    }
+}
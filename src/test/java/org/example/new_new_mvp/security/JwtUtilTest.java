@@ -0,0 +1,42 @@
+package org.example.new_new_mvp.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtUtilTest {
+
+    @Test
+    void verifiesOnceAndServesRepeatedTokenFromCache() {
+        JwtUtil jwtUtil = jwtUtil(86_400_000);
+        String token = jwtUtil.generateToken("user@example.com", "EMPLOYEE");
+
+        JwtUtil.VerifiedToken verified = jwtUtil.verify(token).orElseThrow();
+        assertEquals("user@example.com", verified.email());
+        assertEquals("EMPLOYEE", verified.role());
+        assertEquals(verified, jwtUtil.verify(token).orElseThrow());
+    }
+
+    @Test
+    void rejectsTamperedAndExpiredTokens() {
+        JwtUtil jwtUtil = jwtUtil(86_400_000);
+        String token = jwtUtil.generateToken("user@example.com", "EMPLOYEE");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        assertTrue(jwtUtil.verify(tampered).isEmpty());
+
+        JwtUtil expiredUtil = jwtUtil(-1_000);
+        assertTrue(expiredUtil.verify(expiredUtil.generateToken("user@example.com", "EMPLOYEE")).isEmpty());
+    }
+
+    private static JwtUtil jwtUtil(int expirationMs) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "jwtSecret", "mySecretKeyForJWTTokenGenerationThatIsLongEnoughFor256Bits");
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpiration", expirationMs);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", 100L);
+        ReflectionTestUtils.setField(jwtUtil, "cacheTtlSeconds", 300L);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        return jwtUtil;
+    }
+}
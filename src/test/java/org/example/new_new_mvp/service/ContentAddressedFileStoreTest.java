@@ -0,0 +1,83 @@
+package org.example.new_new_mvp.service;
+
+import org.example.new_new_mvp.service.ContentAddressedFileStore.Blob;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContentAddressedFileStoreTest {
+
+    private static final byte[] CV = "Ivan Petrov, Java developer, 7 years".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path uploads;
+
+    @Test
+    void sameContentIsStoredOnceInShardedPath() throws Exception {
+        ContentAddressedFileStore store = new ContentAddressedFileStore(uploads.toString());
+
+        Blob first = store.store(new ByteArrayResource(CV), false, blob -> blob);
+        Blob second = store.store(new ByteArrayResource(CV), false, blob -> blob);
+        Blob probed = store.store(new ByteArrayResource(CV), true, blob -> blob);
+
+        assertFalse(first.existing());
+        assertTrue(second.existing());
+        assertTrue(probed.existing());
+        assertEquals(first.path(), probed.path());
+        assertEquals(CV.length, probed.size());
+        String hash = first.hash();
+        assertEquals(uploads.resolve("blobs").resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash),
+                first.path());
+        assertArrayEquals(CV, Files.readAllBytes(first.path()));
+        assertEquals(1, countFiles(uploads.resolve("blobs")));
+        assertEquals(0, countFiles(uploads.resolve("tmp")));
+    }
+
+    @Test
+    void blobIsDeletedWithLastReference() throws Exception {
+        ContentAddressedFileStore store = new ContentAddressedFileStore(uploads.toString());
+        AtomicLong references = new AtomicLong();
+        Blob blob = store.store(new ByteArrayResource(CV), false, stored -> {
+            references.incrementAndGet();
+            return stored;
+        });
+        store.store(new ByteArrayResource(CV), true, stored -> references.incrementAndGet());
+
+        assertFalse(store.release(blob.hash(), references::decrementAndGet));
+        assertTrue(Files.exists(blob.path()));
+        assertTrue(store.release(blob.hash(), references::decrementAndGet));
+        assertFalse(Files.exists(blob.path()));
+    }
+
+    @Test
+    void newBlobIsRemovedWhenRegistrationFails() throws Exception {
+        ContentAddressedFileStore store = new ContentAddressedFileStore(uploads.toString());
+
+        assertThrows(IllegalStateException.class, () -> store.store(new ByteArrayResource(CV), false, blob -> {
+            throw new IllegalStateException("file_uploads insert failed");
+        }));
+
+        assertEquals(0, countFiles(uploads.resolve("blobs")));
+    }
+
+    private static long countFiles(Path dir) throws Exception {
+        if (!Files.exists(dir)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+}
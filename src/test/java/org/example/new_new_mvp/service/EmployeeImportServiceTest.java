@@ -0,0 +1,171 @@
+package org.example.new_new_mvp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.new_new_mvp.dto.EmployeeImportResult;
+import org.example.new_new_mvp.dto.EmployeeImportResult.RowStatus;
+import org.example.new_new_mvp.model.Company;
+import org.example.new_new_mvp.model.Profile;
+import org.example.new_new_mvp.model.User;
+import org.example.new_new_mvp.repository.SupabaseProfileRepository;
+import org.example.new_new_mvp.repository.SupabaseUserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EmployeeImportServiceTest {
+
+    private final SupabaseUserRepository userRepository = mock(SupabaseUserRepository.class);
+    private final SupabaseProfileRepository profileRepository = mock(SupabaseProfileRepository.class);
+    private final ProfileService profileService = mock(ProfileService.class);
+    private final EmployeeImportService importService = new EmployeeImportService();
+    private final Company company = new Company();
+
+    @BeforeEach
+    void setUp() {
+        company.setId(UUID.randomUUID());
+        company.setName("Acme");
+        ReflectionTestUtils.setField(importService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(importService, "profileRepository", profileRepository);
+        ReflectionTestUtils.setField(importService, "profileService", profileService);
+        ReflectionTestUtils.setField(importService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(importService, "batchSize", 500);
+        ReflectionTestUtils.setField(importService, "maxRows", 100);
+        when(profileService.resolveEmployerCompany()).thenReturn(company);
+        when(userRepository.assignCompanyIfMissing(anyCollection(), any())).thenReturn(Mono.empty());
+        when(profileRepository.upsertAll(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+    }
+
+    @Test
+    void parsesQuotedCsvWithHeaderAliases() throws Exception {
+        String csv = "\uFEFFEmail,Full Name,current_skills,unknown\r\n"
+                + "a@example.com,\"Doe, Ann\",\"java\nsql\",x\r\n"
+                + "\r\n"
+                + "b@example.com,\"Bob \"\"B\"\"\",,\r\n";
+
+        List<EmployeeImportService.ImportRow> rows = importService.parseCsv(new StringReader(csv));
+
+        assertEquals(2, rows.size());
+        assertEquals("a@example.com", rows.get(0).request().getEmployeeEmail());
+        assertEquals("Doe, Ann", rows.get(0).request().getEmployeeName());
+        assertEquals("java\nsql", rows.get(0).request().getCurrentSkills());
+        assertEquals("Bob \"B\"", rows.get(1).request().getEmployeeName());
+        assertEquals(2, rows.get(1).row());
+    }
+
+    @Test
+    void reportsInvalidNdjsonLinePerRow() throws Exception {
+        List<EmployeeImportService.ImportRow> rows = importService.parseNdjson(new StringReader(
+                "{\"employeeEmail\":\"a@example.com\"}\n\n{broken\n"));
+
+        assertEquals(2, rows.size());
+        assertNull(rows.get(0).error());
+        assertEquals(2, rows.get(1).row());
+        assertNull(rows.get(1).request());
+    }
+
+    @Test
+    void importsBatchWithOneLookupOneInsertAndOneUpsert() throws Exception {
+        User existing = user("old@example.com");
+        when(userRepository.findAllByEmails(anyCollection())).thenReturn(Mono.just(Map.of("old@example.com", existing)));
+        when(userRepository.insertAll(any())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            return Mono.just(users.stream().map(u -> user(u.getEmail())).toList());
+        });
+
+        String ndjson = """
+                {"employeeEmail":"new@example.com","employeeName":"New","currentPosition":"Dev"}
+                {"employeeEmail":"old@example.com"}
+                {"employeeEmail":"NEW@example.com"}
+                {"employeeEmail":"not-an-email"}
+                """;
+        EmployeeImportResult result = importService.importEmployees(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), EmployeeImportService.Format.NDJSON).block();
+
+        assertEquals(4, result.getTotal());
+        assertEquals(1, result.getCreated());
+        assertEquals(1, result.getUpdated());
+        assertEquals(2, result.getFailed());
+        assertEquals(List.of(RowStatus.CREATED, RowStatus.UPDATED, RowStatus.FAILED, RowStatus.FAILED),
+                result.getRows().stream().map(EmployeeImportResult.Row::getStatus).toList());
+        assertEquals(existing.getId(), result.getRows().get(1).getUserId());
+
+        verify(userRepository, times(1)).findAllByEmails(anyCollection());
+        verify(userRepository, times(1)).insertAll(any());
+        verify(userRepository).assignCompanyIfMissing(eq(List.of(existing.getId())), eq(company.getId()));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Profile>> profiles = ArgumentCaptor.forClass(List.class);
+        verify(profileRepository, times(1)).upsertAll(profiles.capture());
+        assertEquals(2, profiles.getValue().size());
+        assertEquals("Dev", profiles.getValue().get(0).getProfileData().get("currentPosition").asText());
+        assertEquals(company.getId(), profiles.getValue().get(0).getCompanyId());
+    }
+
+    @Test
+    void failedBatchMarksItsRowsAndKeepsGoing() throws Exception {
+        ReflectionTestUtils.setField(importService, "batchSize", 1);
+        when(userRepository.findAllByEmails(anyCollection()))
+                .thenReturn(Mono.error(new RuntimeException("Supabase error: timeout")))
+                .thenReturn(Mono.just(Map.of()));
+        when(userRepository.insertAll(any())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            return Mono.just(users.stream().map(u -> user(u.getEmail())).toList());
+        });
+
+        EmployeeImportResult result = importService.importEmployees(new ByteArrayInputStream(
+                "email\na@example.com\nb@example.com\n".getBytes(StandardCharsets.UTF_8)), EmployeeImportService.Format.CSV).block();
+
+        assertEquals(RowStatus.FAILED, result.getRows().get(0).getStatus());
+        assertEquals("Supabase error: timeout", result.getRows().get(0).getMessage());
+        assertEquals(RowStatus.CREATED, result.getRows().get(1).getStatus());
+    }
+
+    @Test
+    void employeeOfAnotherCompanyIsNotOverwritten() throws Exception {
+        Company other = new Company();
+        other.setId(UUID.randomUUID());
+        User foreign = user("foreign@example.com");
+        foreign.setCompany(other);
+        User own = user("own@example.com");
+        own.setCompany(company);
+        when(userRepository.findAllByEmails(anyCollection())).thenReturn(Mono.just(Map.of(
+                "foreign@example.com", foreign, "own@example.com", own)));
+
+        EmployeeImportResult result = importService.importEmployees(new ByteArrayInputStream(
+                "email\nforeign@example.com\nown@example.com\n".getBytes(StandardCharsets.UTF_8)),
+                EmployeeImportService.Format.CSV).block();
+
+        assertEquals(RowStatus.FAILED, result.getRows().get(0).getStatus());
+        assertEquals("User belongs to another company", result.getRows().get(0).getMessage());
+        assertEquals(RowStatus.UPDATED, result.getRows().get(1).getStatus());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Profile>> profiles = ArgumentCaptor.forClass(List.class);
+        verify(profileRepository).upsertAll(profiles.capture());
+        assertEquals(List.of(own.getId()), profiles.getValue().stream().map(Profile::getUserId).toList());
+    }
+
+    private static User user(String email) {
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        user.setEmail(email);
+        return user;
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.new_new_mvp.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ExportServiceTest {
+
+    private final SupabaseService supabaseService = mock(SupabaseService.class);
+    private final ExportService exportService = new ExportService();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(exportService, "supabaseService", supabaseService);
+        ReflectionTestUtils.setField(exportService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(exportService, "exportPageSize", 2);
+
+        when(supabaseService.selectPage("users", "id", null, 2)).thenReturn(rows(
+                "[" + user("1", "\"a@example.com\"", "\"Ann\"") + "," + user("2", "\"o'neil@example.com\"", "null") + "]"));
+        when(supabaseService.selectPage("users", "id", "2", 2)).thenReturn(rows(
+                "[" + user("3", "\"c,d@example.com\"", "\"Doe, \\\"C\\\"\"") + "]"));
+    }
+
+    @Test
+    void pagesThroughTableWithKeysetAndWritesSql() throws Exception {
+        String sql = export(ExportService.ExportFormat.SQL);
+
+        verify(supabaseService).selectPage("users", "id", "2", 2);
+        assertEquals(List.of(
+                "BEGIN;",
+                "DELETE FROM \"users\";",
+                "INSERT INTO \"users\" (\"id\", \"email\", \"full_name\", \"status\") VALUES (1, 'a@example.com', 'Ann', 'active');",
+                "INSERT INTO \"users\" (\"id\", \"email\", \"full_name\", \"status\") VALUES (2, 'o''neil@example.com', NULL, 'active');",
+                "INSERT INTO \"users\" (\"id\", \"email\", \"full_name\", \"status\") VALUES (3, 'c,d@example.com', 'Doe, \"C\"', 'active');",
+                "COMMIT;"),
+                sql.lines().filter(line -> !line.startsWith("--") && !line.isEmpty()).toList());
+    }
+
+    @Test
+    void writesCsvWithHeaderAndQuoting() throws Exception {
+        assertEquals("id,email,full_name,status\r\n"
+                + "1,a@example.com,Ann,active\r\n"
+                + "2,o'neil@example.com,,active\r\n"
+                + "3,\"c,d@example.com\",\"Doe, \"\"C\"\"\",active\r\n", export(ExportService.ExportFormat.CSV));
+    }
+
+    @Test
+    void exportsOnlyAllowlistedUserColumns() throws Exception {
+        for (ExportService.ExportFormat format : ExportService.ExportFormat.values()) {
+            String export = export(format);
+            // учётные данные и служебные колонки не выгружаются ни в одном формате
+            for (String column : List.of("password", "activation_code", "telegram_chat_id", "access_token",
+                    "refresh_token", "user_uuid", "Skills")) {
+                assertFalse(export.contains(column), format + " export contains " + column);
+            }
+            assertFalse(export.contains("$2a$10$hash"), format + " export contains password hash");
+            assertFalse(export.contains("code-"), format + " export contains activation code");
+        }
+    }
+
+    private static Flux<JsonNode> rows(String json) throws Exception {
+        return Flux.fromIterable(new ObjectMapper().readTree(json));
+    }
+
+    // Строка users со всеми колонками Supabase, включая секретные
+    private static String user(String id, String email, String fullName) {
+        return "{\"id\":" + id + ",\"email\":" + email + ",\"full_name\":" + fullName
+                + ",\"status\":\"active\",\"password\":\"$2a$10$hash\",\"activation_code\":\"code-" + id
+                + "\",\"telegram_chat_id\":\"42\",\"access_token\":\"secret\",\"refresh_token\":null"
+                + ",\"user_uuid\":\"u" + id + "\",\"Skills\":{\"java\":5}}";
+    }
+
+    private String export(ExportService.ExportFormat format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.streamExport(List.of("users"), format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,168 @@
+package org.example.new_new_mvp.service;
+
+import org.example.new_new_mvp.model.FileUpload;
+import org.example.new_new_mvp.model.FileUploadText;
+import org.example.new_new_mvp.model.User;
+import org.example.new_new_mvp.repository.FileUploadRepository;
+import org.example.new_new_mvp.repository.FileUploadTextRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FileAnalysisServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private FileUploadRepository repository;
+    private FileUploadTextRepository textRepository;
+    private FileAnalysisService service;
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(FileUploadRepository.class);
+        textRepository = mock(FileUploadTextRepository.class);
+        when(textRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        service = new FileAnalysisService(repository, textRepository, new TextExtractor(10_000, 5_000));
+        ReflectionTestUtils.setField(service, "parallelism", 2);
+        ReflectionTestUtils.setField(service, "queueCapacity", 1);
+        ReflectionTestUtils.setField(service, "cacheSize", 100L);
+        service.init();
+        owner = new User();
+        owner.setId(UUID.randomUUID());
+        owner.setEmail("hr@example.com");
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void loadsRowsOnceAndKeepsRequestedOrder() throws Exception {
+        FileUpload notes = upload("notes.txt", "text/plain", "Java, Spring, SQL", owner);
+        FileUpload photo = upload("photo.png", "image/png", "png", owner);
+        FileUpload foreign = upload("foreign.txt", "text/plain", "чужой файл", new User());
+        foreign.getUser().setId(UUID.randomUUID());
+        when(repository.findAllById(any())).thenReturn(List.of(foreign, photo, notes));
+
+        String result = service.analyzeFiles(owner, List.of(notes.getId(), photo.getId(), foreign.getId()));
+
+        verify(repository, times(1)).findAllById(any());
+        verify(repository, never()).findById(any());
+        assertTrue(result.indexOf("notes.txt") < result.indexOf("photo.png"));
+        assertTrue(result.contains("Java, Spring, SQL"));
+        assertFalse(result.contains("foreign.txt"));
+        assertTrue(result.contains("- Изображений: 1"));
+        assertTrue(result.contains("- Текстовых файлов: 1"));
+    }
+
+    @Test
+    void readsOnlyPreviewOfLargeTextFile() throws Exception {
+        Path file = dir.resolve("big.txt");
+        Files.writeString(file, "я".repeat(300) + "x".repeat(1_000_000), StandardCharsets.UTF_8);
+
+        assertEquals("я".repeat(200) + "...", FileAnalysisService.readPrefix(file, 200));
+        Files.writeString(file, "короткий", StandardCharsets.UTF_8);
+        assertEquals("короткий", FileAnalysisService.readPrefix(file, 200));
+    }
+
+    @Test
+    void cachesAnalysisByContentHash() throws Exception {
+        FileUpload notes = upload("notes.txt", "text/plain", "первая версия", owner);
+        notes.setContentHash("a".repeat(64));
+        when(repository.findById(notes.getId())).thenReturn(Optional.of(notes));
+
+        String first = service.getFileAnalysis(owner, notes.getId());
+        // blob по хэшу неизменен, поэтому повторный анализ диск не читает
+        Files.writeString(Path.of(notes.getFilePath()), "вторая версия", StandardCharsets.UTF_8);
+        String second = service.getFileAnalysis(owner, notes.getId());
+
+        assertTrue(first.contains("первая версия"));
+        assertEquals(first, second);
+    }
+
+    @Test
+    void missingFileIsNotCached() throws Exception {
+        FileUpload notes = upload("notes.txt", "text/plain", "текст", owner);
+        notes.setContentHash("b".repeat(64));
+        Files.delete(Path.of(notes.getFilePath()));
+        when(repository.findById(notes.getId())).thenReturn(Optional.of(notes));
+
+        assertEquals("Файл не найден на диске", service.getFileAnalysis(owner, notes.getId()));
+        Files.writeString(Path.of(notes.getFilePath()), "появился", StandardCharsets.UTF_8);
+        assertTrue(service.getFileAnalysis(owner, notes.getId()).contains("появился"));
+    }
+
+    @Test
+    void extractsDocxTextOnceAndStoresIt() throws Exception {
+        FileUpload cv = upload("cv.docx", TextExtractor.DOCX, "", owner);
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(Path.of(cv.getFilePath())))) {
+            out.putNextEntry(new ZipEntry("word/document.xml"));
+            out.write("""
+                <w:document xmlns:w="http://schemas.openxmlformats.org/wordprocessingml/2006/main"><w:body>
+                <w:p><w:r><w:t>Senior Java developer</w:t></w:r></w:p>
+                </w:body></w:document>""".getBytes(StandardCharsets.UTF_8));
+        }
+        when(repository.findAllById(any())).thenReturn(List.of(cv));
+
+        String result = service.analyzeFiles(owner, List.of(cv.getId()));
+
+        ArgumentCaptor<FileUploadText> saved = ArgumentCaptor.forClass(FileUploadText.class);
+        verify(textRepository).save(saved.capture());
+        assertEquals(cv.getId(), saved.getValue().getFileUploadId());
+        assertEquals("Senior Java developer", saved.getValue().getText());
+        assertTrue(result.contains("Абзацев прочитано: 1"));
+        assertTrue(result.contains("Начало текста: Senior Java developer"));
+    }
+
+    @Test
+    void usesStoredTextWithoutReadingFile() throws Exception {
+        FileUpload cv = upload("cv.pdf", TextExtractor.PDF, "не PDF", owner);
+        when(repository.findById(cv.getId())).thenReturn(Optional.of(cv));
+        when(textRepository.findById(cv.getId())).thenReturn(Optional.of(
+            new FileUploadText(cv.getId(), "Team lead, 10 years", 2, false, LocalDateTime.now())));
+
+        String result = service.getFileAnalysis(owner, cv.getId());
+
+        assertTrue(result.contains("Страниц прочитано: 2"));
+        assertTrue(result.contains("Team lead, 10 years"));
+        verify(textRepository, never()).save(any());
+    }
+
+    private FileUpload upload(String name, String mimeType, String content, User user) throws Exception {
+        Path path = Files.writeString(dir.resolve(UUID.randomUUID() + "-" + name), content, StandardCharsets.UTF_8);
+        FileUpload file = new FileUpload();
+        file.setId(UUID.randomUUID());
+        file.setUser(user);
+        file.setOriginalFileName(name);
+        file.setMimeType(mimeType);
+        file.setFilePath(path.toString());
+        file.setFileSize(Files.size(path));
+        return file;
+    }
+}
@@ -0,0 +1,167 @@
+package org.example.new_new_mvp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.new_new_mvp.dto.BulkJobRoleAssignmentRequest.Assignment;
+import org.example.new_new_mvp.dto.BulkJobRoleAssignmentResult;
+import org.example.new_new_mvp.dto.BulkJobRoleAssignmentResult.Outcome;
+import org.example.new_new_mvp.dto.BulkJobRoleAssignmentResult.OutcomeStatus;
+import org.example.new_new_mvp.model.Company;
+import org.example.new_new_mvp.model.JobRole;
+import org.example.new_new_mvp.model.Profile;
+import org.example.new_new_mvp.model.User;
+import org.example.new_new_mvp.model.UserRole;
+import org.example.new_new_mvp.model.WebhookJob;
+import org.example.new_new_mvp.model.WebhookType;
+import org.example.new_new_mvp.repository.JobRoleRepository;
+import org.example.new_new_mvp.repository.SupabaseProfileRepository;
+import org.example.new_new_mvp.repository.SupabaseUserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JobRoleAssignmentServiceTest {
+
+    private final SupabaseUserRepository userRepository = mock(SupabaseUserRepository.class);
+    private final SupabaseProfileRepository profileRepository = mock(SupabaseProfileRepository.class);
+    private final JobRoleRepository jobRoleRepository = mock(JobRoleRepository.class);
+    private final WebhookService webhookService = mock(WebhookService.class);
+    private final WebhookOutboxService webhookOutboxService = mock(WebhookOutboxService.class);
+    private final JobRoleAssignmentService service = new JobRoleAssignmentService();
+
+    private final JobRole role = new JobRole();
+    private final User alice = user("alice@example.com");
+    private final User bob = user("bob@example.com");
+    private final User hr = user("hr@example.com");
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "userRepository", userRepository);
+        ReflectionTestUtils.setField(service, "profileRepository", profileRepository);
+        ReflectionTestUtils.setField(service, "jobRoleRepository", jobRoleRepository);
+        ReflectionTestUtils.setField(service, "webhookService", webhookService);
+        ReflectionTestUtils.setField(service, "webhookOutboxService", webhookOutboxService);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "batchSize", 100);
+        ReflectionTestUtils.setField(service, "maxAssignments", 1000);
+
+        hr.setRole(UserRole.ADMIN);
+        role.setId(UUID.randomUUID());
+        role.setTitle("Backend developer");
+        role.setRequirements(Map.of("java", 4));
+        when(jobRoleRepository.findAllByIds(anyCollection())).thenReturn(Mono.just(Map.of(role.getId(), role)));
+        when(userRepository.findAllByIds(anyCollection()))
+                .thenReturn(Mono.just(Map.of(alice.getId(), alice, bob.getId(), bob)));
+        when(userRepository.updateRoleByIds(anyCollection(), eq(role.getId())))
+                .thenReturn(Mono.just(Set.of(alice.getId(), bob.getId())));
+        when(profileRepository.findAllByUserIds(anyCollection())).thenReturn(Mono.just(Map.of()));
+        when(profileRepository.upsertAll(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(webhookService.buildJobRoleAssignmentPayload(any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn("{}");
+        when(webhookOutboxService.enqueueAll(eq(WebhookType.ASSIGN_JOB_ROLE), any(), anyMap())).thenAnswer(invocation -> {
+            Map<String, String> payloads = invocation.getArgument(2);
+            Map<String, WebhookJob> jobs = new HashMap<>();
+            payloads.keySet().forEach(key -> {
+                WebhookJob job = new WebhookJob();
+                job.setId(UUID.randomUUID());
+                jobs.put(key, job);
+            });
+            return Mono.just(jobs);
+        });
+    }
+
+    @Test
+    void assignsWholeBatchWithOnePatchPerRole() {
+        UUID unknownRole = UUID.randomUUID();
+        UUID missingUser = UUID.randomUUID();
+        BulkJobRoleAssignmentResult result = service.assignAll(List.of(
+                new Assignment(alice.getId(), role.getId()),
+                new Assignment(bob.getId(), role.getId()),
+                new Assignment(alice.getId(), role.getId()),
+                new Assignment(UUID.randomUUID(), unknownRole),
+                new Assignment(missingUser, role.getId())), hr).block();
+
+        assertEquals(5, result.getTotal());
+        assertEquals(2, result.getAssigned());
+        assertEquals(3, result.getFailed());
+        Map<UUID, Outcome> assigned = new HashMap<>();
+        result.getOutcomes().stream().filter(o -> o.getStatus() == OutcomeStatus.ASSIGNED)
+                .forEach(o -> assigned.put(o.getUserId(), o));
+        assertEquals(Set.of(alice.getId(), bob.getId()), assigned.keySet());
+        assertNotNull(assigned.get(alice.getId()).getWebhookJobId());
+        assertEquals(List.of("Duplicate user in request", "Job role not found", "User not found"),
+                result.getOutcomes().stream().filter(o -> o.getStatus() == OutcomeStatus.FAILED)
+                        .map(Outcome::getMessage).toList());
+        assertEquals(List.of(1, 2, 3, 4, 5), result.getOutcomes().stream().map(Outcome::getProcessed).toList());
+
+        verify(jobRoleRepository, times(1)).findAllByIds(anyCollection());
+        verify(userRepository, times(1)).updateRoleByIds(anyCollection(), eq(role.getId()));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Profile>> profiles = ArgumentCaptor.forClass(List.class);
+        verify(profileRepository, times(1)).upsertAll(profiles.capture());
+        assertEquals("Backend developer", profiles.getValue().get(0).getProfileData().get("currentPosition").asText());
+        assertEquals(4, profiles.getValue().get(0).getProfileData().get("jobRoleData").get("java").asInt());
+        verify(webhookOutboxService, times(1)).enqueueAll(eq(WebhookType.ASSIGN_JOB_ROLE), eq(hr.getId()), anyMap());
+    }
+
+    @Test
+    void webhookFailureDoesNotUndoAssignment() {
+        when(webhookOutboxService.enqueueAll(eq(WebhookType.ASSIGN_JOB_ROLE), any(), anyMap()))
+                .thenReturn(Mono.error(new RuntimeException("outbox unavailable")));
+
+        List<Outcome> outcomes = service.assign(List.of(new Assignment(alice.getId(), role.getId())), hr)
+                .collectList().block();
+
+        assertEquals(OutcomeStatus.ASSIGNED, outcomes.get(0).getStatus());
+        assertEquals("Webhook was not queued", outcomes.get(0).getMessage());
+    }
+
+    @Test
+    void companyAssignsRolesOnlyToOwnEmployees() {
+        Company acme = new Company();
+        acme.setId(UUID.randomUUID());
+        Company other = new Company();
+        other.setId(UUID.randomUUID());
+        User manager = user("manager@acme.com");
+        manager.setRole(UserRole.COMPANY);
+        manager.setCompany(acme);
+        alice.setCompany(acme);
+        bob.setCompany(other);
+
+        List<Outcome> outcomes = service.assign(List.of(
+                new Assignment(alice.getId(), role.getId()),
+                new Assignment(bob.getId(), role.getId())), manager).collectList().block();
+
+        Map<UUID, Outcome> byUser = new HashMap<>();
+        outcomes.forEach(o -> byUser.put(o.getUserId(), o));
+        assertEquals(OutcomeStatus.ASSIGNED, byUser.get(alice.getId()).getStatus());
+        assertEquals(OutcomeStatus.FAILED, byUser.get(bob.getId()).getStatus());
+        assertEquals("User belongs to another company", byUser.get(bob.getId()).getMessage());
+        verify(userRepository).updateRoleByIds(eq(List.of(alice.getId())), eq(role.getId()));
+    }
+
+    private static User user(String email) {
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        user.setEmail(email);
+        return user;
+    }
+}
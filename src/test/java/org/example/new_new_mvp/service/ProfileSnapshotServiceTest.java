@@ -0,0 +1,130 @@
+package org.example.new_new_mvp.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.new_new_mvp.model.ProfileSnapshot;
+import org.example.new_new_mvp.model.SnapshotKind;
+import org.example.new_new_mvp.repository.ProfileSnapshotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProfileSnapshotServiceTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final OffsetDateTime NOW = OffsetDateTime.of(2026, 10, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+    // Достаточно длинный профиль, чтобы патч одного поля был меньше половины документа
+    private static final String ABOUT = "a profile summary long enough that one changed field is a small patch compared to the whole document";
+
+    private final ProfileSnapshotRepository repository = mock(ProfileSnapshotRepository.class);
+    private final ProfileSnapshotService service = new ProfileSnapshotService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "profileSnapshotRepository", repository);
+        ReflectionTestUtils.setField(service, "objectMapper", MAPPER);
+        ReflectionTestUtils.setField(service, "keyframeInterval", 20);
+        ReflectionTestUtils.setField(service, "maxDeltaRatio", 0.5);
+        when(repository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void patchRoundTripsNestedChanges() throws Exception {
+        JsonNode source = json("{\"name\":\"Ann\",\"a/b\":1,\"tilde~\":true,\"skills\":[\"java\",\"sql\"],"
+                + "\"exp\":[{\"years\":1}],\"gone\":{\"x\":1}}");
+        JsonNode target = json("{\"name\":\"Ann\",\"a/b\":2,\"tilde~\":true,\"skills\":[\"java\",\"sql\",\"go\"],"
+                + "\"exp\":[{\"years\":2,\"role\":\"dev\"}],\"added\":null}");
+
+        JsonNode patch = JsonPatch.diff(source, target);
+
+        assertEquals(target, JsonPatch.apply(source, patch));
+        assertEquals(json("{\"name\":\"Ann\",\"a/b\":1,\"tilde~\":true,\"skills\":[\"java\",\"sql\"],"
+                + "\"exp\":[{\"years\":1}],\"gone\":{\"x\":1}}"), source);
+        assertTrue(patch.toString().contains("/a~1b"));
+    }
+
+    @Test
+    void hashIgnoresFieldOrder() throws Exception {
+        assertEquals(ProfileSnapshotService.contentHash(json("{\"a\":1,\"b\":{\"c\":[1,2],\"d\":null}}")),
+                ProfileSnapshotService.contentHash(json("{\"b\":{\"d\":null,\"c\":[1,2]},\"a\":1}")));
+    }
+
+    @Test
+    void skipsUnchangedProfile() throws Exception {
+        UUID userId = UUID.randomUUID();
+        JsonNode data = json("{\"name\":\"Ann\"}");
+        when(repository.findLatestByUserId(userId)).thenReturn(Optional.of(full(userId, data)));
+
+        assertTrue(service.record(userId, json("{\"name\":\"Ann\"}")).isEmpty());
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void storesChangeAsDeltaAgainstKeyframe() throws Exception {
+        UUID userId = UUID.randomUUID();
+        JsonNode data = json("{\"name\":\"Ann\",\"about\":\"" + ABOUT + "\"}");
+        ProfileSnapshot keyframe = full(userId, data);
+        when(repository.findLatestByUserId(userId)).thenReturn(Optional.of(keyframe));
+
+        JsonNode changed = json("{\"name\":\"Bob\",\"about\":\"" + ABOUT + "\"}");
+        service.record(userId, changed);
+
+        ArgumentCaptor<ProfileSnapshot> saved = ArgumentCaptor.forClass(ProfileSnapshot.class);
+        verify(repository).save(saved.capture());
+        ProfileSnapshot delta = saved.getValue();
+        assertEquals(SnapshotKind.DELTA, delta.getKind());
+        assertEquals(keyframe.getId(), delta.getBaseId());
+        assertEquals(1, delta.getSeq());
+        assertNull(delta.getProfileData());
+        assertEquals(changed, JsonPatch.apply(data, delta.getPatch()));
+    }
+
+    @Test
+    void keepsLastSnapshotPerDayThenPerMonth() {
+        ProfileSnapshot recent = at(NOW.minusDays(1));
+        ProfileSnapshot recentSameDay = at(NOW.minusDays(1).plusHours(1));
+        ProfileSnapshot dayMorning = at(OffsetDateTime.of(2026, 7, 10, 8, 0, 0, 0, ZoneOffset.UTC));
+        ProfileSnapshot dayEvening = at(OffsetDateTime.of(2026, 7, 10, 20, 0, 0, 0, ZoneOffset.UTC));
+        ProfileSnapshot nextDay = at(OffsetDateTime.of(2026, 7, 11, 8, 0, 0, 0, ZoneOffset.UTC));
+        ProfileSnapshot monthStart = at(OffsetDateTime.of(2026, 1, 2, 8, 0, 0, 0, ZoneOffset.UTC));
+        ProfileSnapshot monthEnd = at(OffsetDateTime.of(2026, 1, 28, 8, 0, 0, 0, ZoneOffset.UTC));
+
+        Set<UUID> drop = ProfileSnapshotService.selectForDrop(
+                List.of(monthStart, monthEnd, dayMorning, dayEvening, nextDay, recent, recentSameDay), NOW, 30, 180);
+
+        assertEquals(Set.of(monthStart.getId(), dayMorning.getId()), drop);
+    }
+
+    private static ProfileSnapshot full(UUID userId, JsonNode data) {
+        return new ProfileSnapshot(UUID.randomUUID(), userId, NOW, data, SnapshotKind.FULL,
+                ProfileSnapshotService.contentHash(data), null, 0, null);
+    }
+
+    private static ProfileSnapshot at(OffsetDateTime date) {
+        ProfileSnapshot snapshot = new ProfileSnapshot();
+        snapshot.setId(UUID.randomUUID());
+        snapshot.setSnapshotDate(date);
+        return snapshot;
+    }
+
+    private static JsonNode json(String text) throws Exception {
+        return MAPPER.readTree(text);
+    }
+}
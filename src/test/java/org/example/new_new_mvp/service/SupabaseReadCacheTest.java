@@ -0,0 +1,43 @@
+package org.example.new_new_mvp.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SupabaseReadCacheTest {
+
+    private final SupabaseReadCache cache = new SupabaseReadCache(new String[]{"users"}, 60, 1_000_000);
+
+    @Test
+    void servesRepeatedReadsFromCacheUntilInvalidated() {
+        AtomicInteger requests = new AtomicInteger();
+        Mono<String> loader = Mono.fromSupplier(() -> "[" + requests.incrementAndGet() + "]");
+        Map<String, String> filters = Map.of("email", "eq.a@example.com");
+
+        assertEquals("[1]", cache.get("users", filters, loader).block());
+        assertEquals("[1]", cache.get("users", filters, loader).block());
+
+        cache.invalidate("users");
+        assertEquals("[2]", cache.get("users", filters, loader).block());
+
+        Map<String, Object> stats = cache.stats().get("users");
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(2L, stats.get("misses"));
+        assertEquals(1L, stats.get("invalidations"));
+    }
+
+    @Test
+    void passesThroughTablesThatAreNotCached() {
+        AtomicInteger requests = new AtomicInteger();
+        Mono<String> loader = Mono.fromSupplier(() -> "[" + requests.incrementAndGet() + "]");
+
+        cache.get("profiles", Map.of(), loader).block();
+        cache.get("profiles", Map.of(), loader).block();
+
+        assertEquals(2, requests.get());
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.new_new_mvp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.new_new_mvp.dto.SupabaseUserDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SupabaseServiceTest {
+
+    @Test
+    void parsesTotalFromContentRange() {
+        assertEquals(3573L, SupabaseService.parseContentRangeTotal("0-24/3573"));
+        assertEquals(0L, SupabaseService.parseContentRangeTotal("*/0"));
+        assertEquals(42L, SupabaseService.parseContentRangeTotal("*/42"));
+    }
+
+    @Test
+    void rejectsMissingOrUnknownTotal() {
+        assertThrows(RuntimeException.class, () -> SupabaseService.parseContentRangeTotal(null));
+        assertThrows(RuntimeException.class, () -> SupabaseService.parseContentRangeTotal("0-24/*"));
+    }
+
+    @Test
+    void decodesRowsAcrossChunkBoundaries() {
+        SupabaseService service = new SupabaseService();
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        String json = "[{\"id\":1,\"email\":\"a@example.com\",\"Skills\":{\"java\":5}},"
+                + "{\"id\":2,\"email\":\"b@example.com\",\"unknown\":[1,2]}]";
+        // режем ответ по 7 байт - границы чанков попадают внутрь строк и токенов
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        Flux<DataBuffer> body = Flux.range(0, (bytes.length + 6) / 7)
+                .map(i -> DefaultDataBufferFactory.sharedInstance.wrap(
+                        Arrays.copyOfRange(bytes, i * 7, Math.min(bytes.length, i * 7 + 7))));
+
+        List<SupabaseUserDto> users = service.decodeRows(body, SupabaseUserDto.class).collectList().block();
+
+        assertEquals(2, users.size());
+        assertEquals(1L, users.get(0).getId());
+        assertEquals("b@example.com", users.get(1).getEmail());
+    }
+
+    @Test
+    void buildsHalfOpenRangeInUtc() {
+        OffsetDateTime from = OffsetDateTime.parse("2025-10-01T03:00:00+03:00");
+        OffsetDateTime to = OffsetDateTime.parse("2025-11-01T00:00:00Z");
+
+        assertEquals(List.of("gte.2025-10-01T00:00Z", "lt.2025-11-01T00:00Z"),
+                SupabaseService.rangeConditions(from, to));
+        assertEquals(List.of("lt.2025-11-01T00:00Z"), SupabaseService.rangeConditions(null, to));
+        assertEquals(List.of(), SupabaseService.rangeConditions(null, null));
+    }
+}
@@ -0,0 +1,80 @@
+package org.example.new_new_mvp.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SupabaseSingleFlightTest {
+
+    private final SupabaseSingleFlight singleFlight = new SupabaseSingleFlight(true);
+    private final AtomicInteger requests = new AtomicInteger();
+    private final Map<String, String> filters = Map.of("email", "eq.a@example.com");
+
+    @Test
+    void concurrentIdenticalReadsShareOneCall() {
+        Sinks.One<String> response = Sinks.one();
+        Mono<String> loader = pending(response);
+
+        CompletableFuture<String> first = singleFlight.execute("users", filters, loader).toFuture();
+        CompletableFuture<String> second = singleFlight.execute("users", Map.of("email", "eq.a@example.com"), loader).toFuture();
+        CompletableFuture<String> other = singleFlight.execute("users", Map.of("email", "eq.b@example.com"),
+                Mono.just("[other]")).toFuture();
+        response.tryEmitValue("[1]");
+
+        assertEquals("[1]", first.join());
+        assertEquals("[1]", second.join());
+        assertEquals("[other]", other.join());
+        assertEquals(1, requests.get());
+        assertEquals(1L, singleFlight.stats().get("coalesced"));
+        assertEquals(0, singleFlight.stats().get("inFlight"));
+    }
+
+    @Test
+    void completedCallIsNotReused() {
+        Mono<String> loader = Mono.fromSupplier(() -> "[" + requests.incrementAndGet() + "]");
+
+        assertEquals("[1]", singleFlight.execute("users", filters, loader).block());
+        assertEquals("[2]", singleFlight.execute("users", filters, loader).block());
+    }
+
+    @Test
+    void readAfterWriteStartsFreshCall() {
+        Sinks.One<String> before = Sinks.one();
+        CompletableFuture<String> stale = singleFlight.execute("users", filters, pending(before)).toFuture();
+
+        singleFlight.forget("users");
+        CompletableFuture<String> fresh = singleFlight.execute("users", filters,
+                Mono.fromSupplier(() -> "[after write]")).toFuture();
+        before.tryEmitValue("[before write]");
+
+        assertEquals("[before write]", stale.join());
+        assertEquals("[after write]", fresh.join());
+    }
+
+    @Test
+    void errorReachesEveryWaiterAndIsNotKept() {
+        Sinks.One<String> response = Sinks.one();
+        CompletableFuture<String> first = singleFlight.execute("users", filters, pending(response)).toFuture();
+        CompletableFuture<String> second = singleFlight.execute("users", filters, pending(response)).toFuture();
+        response.tryEmitError(new RuntimeException("Supabase unavailable"));
+
+        assertThrows(CompletionException.class, first::join);
+        assertThrows(CompletionException.class, second::join);
+        assertEquals("[ok]", singleFlight.execute("users", filters, Mono.just("[ok]")).block());
+    }
+
+    private Mono<String> pending(Sinks.One<String> response) {
+        return Mono.defer(() -> {
+            requests.incrementAndGet();
+            return response.asMono();
+        });
+    }
+}
@@ -0,0 +1,117 @@
+package org.example.new_new_mvp.service;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.example.new_new_mvp.service.TextExtractor.Extraction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextExtractorTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void extractsPdfPageByPage() throws Exception {
+        Path pdf = pdf("Java developer", "Spring Boot", "PostgreSQL");
+
+        Extraction extraction = new TextExtractor(10_000, 5_000).extract(pdf, TextExtractor.PDF);
+
+        assertEquals(3, extraction.units());
+        assertEquals("Java developer\nSpring Boot\nPostgreSQL", extraction.text().replace("\r", ""));
+        assertFalse(extraction.truncated());
+        assertFalse(extraction.timedOut());
+    }
+
+    @Test
+    void stopsAtCharacterLimit() throws Exception {
+        Path pdf = pdf("Java developer", "Spring Boot", "PostgreSQL");
+
+        Extraction extraction = new TextExtractor(10, 5_000).extract(pdf, TextExtractor.PDF);
+
+        assertEquals("Java devel", extraction.text());
+        assertTrue(extraction.truncated());
+        assertEquals(0, extraction.units());
+    }
+
+    @Test
+    void extractsDocxParagraphs() throws Exception {
+        Path docx = docx("""
+                <w:document xmlns:w="http://schemas.openxmlformats.org/wordprocessingml/2006/main"><w:body>
+                <w:p><w:pPr><w:tabs><w:tab w:val="left" w:pos="720"/></w:tabs></w:pPr>
+                <w:r><w:t>Иван</w:t></w:r><w:r><w:tab/><w:t xml:space="preserve">Петров</w:t></w:r></w:p>
+                <w:p><w:r><w:t>Java, </w:t><w:br/><w:t>Kotlin</w:t></w:r></w:p>
+                </w:body></w:document>""");
+
+        Extraction extraction = new TextExtractor(10_000, 5_000).extract(docx, TextExtractor.DOCX);
+
+        assertEquals(2, extraction.units());
+        assertEquals("Иван\tПетров\nJava, \nKotlin", extraction.text());
+    }
+
+    @Test
+    void reportsTimeoutWithPartialText() throws Exception {
+        Path pdf = pdf("Java developer", "Spring Boot");
+
+        Extraction extraction = new TextExtractor(10_000, 0).extract(pdf, TextExtractor.PDF);
+
+        assertTrue(extraction.timedOut());
+        assertEquals("", extraction.text());
+    }
+
+    @Test
+    void rejectsZipWithoutDocument() throws Exception {
+        Path zip = dir.resolve("fake.docx");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip))) {
+            out.putNextEntry(new ZipEntry("readme.txt"));
+            out.write("not a docx".getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertThrows(IOException.class, () -> new TextExtractor(10_000, 5_000).extract(zip, TextExtractor.DOCX));
+    }
+
+    private Path pdf(String... pages) throws IOException {
+        Path file = dir.resolve("cv.pdf");
+        try (PDDocument document = new PDDocument()) {
+            PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+            for (String text : pages) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(font, 12);
+                    content.newLineAtOffset(72, 700);
+                    content.showText(text);
+                    content.endText();
+                }
+            }
+            document.save(file.toFile());
+        }
+        return file;
+    }
+
+    private Path docx(String documentXml) throws IOException {
+        Path file = dir.resolve("cv.docx");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(file))) {
+            out.putNextEntry(new ZipEntry("word/document.xml"));
+            out.write(documentXml.getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+        return file;
+    }
+}
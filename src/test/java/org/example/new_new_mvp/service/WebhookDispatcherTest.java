@@ -0,0 +1,55 @@
+package org.example.new_new_mvp.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WebhookDispatcherTest {
+
+    private static final Duration BASE = Duration.ofSeconds(5);
+    private static final Duration MAX = Duration.ofMinutes(10);
+
+    @Test
+    void backoffDoublesPerAttemptUpToMax() {
+        assertEquals(Duration.ofSeconds(5), WebhookDispatcher.backoff(1, BASE, MAX, 1.0));
+        assertEquals(Duration.ofSeconds(20), WebhookDispatcher.backoff(3, BASE, MAX, 1.0));
+        assertEquals(Duration.ofSeconds(10), WebhookDispatcher.backoff(3, BASE, MAX, 0.0));
+        assertEquals(MAX, WebhookDispatcher.backoff(20, BASE, MAX, 1.0));
+        assertEquals(MAX, WebhookDispatcher.backoff(100, BASE, MAX, 1.0));
+    }
+
+    @Test
+    void retriesServerErrorsAndThrottlingButNotClientErrors() {
+        assertTrue(WebhookDispatcher.isRetryable(response(HttpStatus.BAD_GATEWAY)));
+        assertTrue(WebhookDispatcher.isRetryable(response(HttpStatus.TOO_MANY_REQUESTS)));
+        assertTrue(WebhookDispatcher.isRetryable(new ConnectException("Connection refused")));
+        assertFalse(WebhookDispatcher.isRetryable(response(HttpStatus.NOT_FOUND)));
+    }
+
+    @Test
+    void wrappedPayloadErrorsAreNotRetried() {
+        // так ошибку записи тела отдаёт WebhookService.postStreaming, а WebClient заворачивает ещё раз
+        RuntimeException missingFile = new RuntimeException("Request failed", new RuntimeException(
+                "Failed to stream webhook payload", new NoSuchFileException("/uploads/outbox/1/cv.pdf")));
+        assertFalse(WebhookDispatcher.isRetryable(missingFile));
+        assertFalse(WebhookDispatcher.isRetryable(new RuntimeException(
+                "Failed to stream webhook payload", new JsonParseException(null, "Unexpected character"))));
+        assertTrue(WebhookDispatcher.isRetryable(new RuntimeException(
+                "Failed to stream webhook payload", new IOException("Broken pipe"))));
+        assertTrue(WebhookDispatcher.isRetryable(new RuntimeException("Request failed", response(HttpStatus.BAD_GATEWAY))));
+    }
+
+    private static WebClientResponseException response(HttpStatus status) {
+        return WebClientResponseException.create(status.value(), status.getReasonPhrase(), null, null, null);
+    }
+}
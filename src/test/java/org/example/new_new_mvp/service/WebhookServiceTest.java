@@ -0,0 +1,75 @@
+package org.example.new_new_mvp.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class WebhookServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void streamsFilesAsBase64IntoPayload() throws Exception {
+        WebhookService webhookService = new WebhookService();
+        ReflectionTestUtils.setField(webhookService, "objectMapper", objectMapper);
+
+        byte[] content = new byte[100_003];
+        new Random(7).nextBytes(content);
+        String payload = webhookService.buildCompetencyAnalysisPayload(UUID.randomUUID(), "user@example.com",
+                "User", "{\"currentSkills\":\"Java\"}", "Acme");
+        WebhookService.StreamedFile file = new WebhookService.StreamedFile("resume.pdf", content.length,
+                "application/pdf", () -> new ByteArrayInputStream(content));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        webhookService.writeFilesPayload(out, payload, List.of(file));
+
+        JsonNode json = objectMapper.readTree(out.toByteArray());
+        assertEquals("analyze_competencies", json.get("action").asText());
+        assertEquals("Java", json.get("profileData").get("currentSkills").asText());
+        JsonNode streamed = json.get("files").get(0);
+        assertEquals("resume.pdf", streamed.get("originalFileName").asText());
+        assertEquals(content.length, streamed.get("size").asLong());
+        assertEquals(Base64.getEncoder().encodeToString(content), streamed.get("content").asText());
+    }
+
+    @Test
+    void sendsExtractedTextInsteadOfBase64() throws Exception {
+        WebhookService webhookService = new WebhookService();
+        ReflectionTestUtils.setField(webhookService, "objectMapper", objectMapper);
+
+        byte[] content = "%PDF-1.7 ...".getBytes(StandardCharsets.US_ASCII);
+        String payload = webhookService.buildCompetencyAnalysisPayload(UUID.randomUUID(), "user@example.com",
+                "User", "{}", "Acme");
+        WebhookService.StreamedFile extracted = new WebhookService.StreamedFile("cv.pdf", content.length,
+                TextExtractor.PDF, () -> new ByteArrayInputStream(content),
+                () -> new TextExtractor.Extraction("Java developer", 1, false, false));
+        WebhookService.StreamedFile broken = new WebhookService.StreamedFile("scan.pdf", content.length,
+                TextExtractor.PDF, () -> new ByteArrayInputStream(content),
+                () -> {
+                    throw new IOException("Missing root object");
+                });
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        webhookService.writeFilesPayload(out, payload, List.of(extracted, broken));
+
+        JsonNode files = objectMapper.readTree(out.toByteArray()).get("files");
+        assertEquals("Java developer", files.get(0).get("text").asText());
+        assertFalse(files.get(0).get("textTruncated").asBoolean());
+        assertFalse(files.get(0).has("content"));
+        assertFalse(files.get(1).has("text"));
+        assertEquals(Base64.getEncoder().encodeToString(content), files.get(1).get("content").asText());
+    }
+}
@@ -0,0 +1,24 @@
+-- ============================================
+-- file_upload_texts: текст, извлечённый из PDF/DOCX
+-- ============================================
+
+-- FileAnalysisService извлекает текст при первом анализе файла (TextExtractor) и сохраняет его здесь;
+-- повторный анализ берёт готовый текст. Строка удаляется вместе с file_uploads.
+-- units - страниц PDF или абзацев DOCX, truncated - текст обрезан по app.analysis.extract.max-chars
+CREATE TABLE IF NOT EXISTS public.file_upload_texts (
+    file_upload_id uuid PRIMARY KEY REFERENCES public.file_uploads(id) ON DELETE CASCADE,
+    text text NOT NULL,
+    units integer NOT NULL,
+    truncated boolean NOT NULL,
+    extracted_at timestamp NOT NULL
+);
+
+-- ============================================
+-- Проверка
+-- ============================================
+
+SELECT column_name, data_type
+FROM information_schema.columns
+WHERE table_schema = 'public'
+    AND table_name = 'file_upload_texts'
+ORDER BY ordinal_position;
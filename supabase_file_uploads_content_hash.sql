@@ -0,0 +1,24 @@
+-- ============================================
+-- file_uploads: хранилище по содержимому
+-- ============================================
+
+-- FileUploadService кладёт содержимое в uploads/blobs/ab/cd/<sha256>, строка ссылается на blob через
+-- content_hash; число строк с одним content_hash - счётчик ссылок, blob удаляется с последней строкой.
+-- Старые строки (content_hash IS NULL) продолжают указывать на свои файлы в uploads/<userId>/
+ALTER TABLE public.file_uploads
+    ADD COLUMN IF NOT EXISTS content_hash varchar(64);
+
+CREATE INDEX IF NOT EXISTS idx_file_uploads_content_hash ON public.file_uploads(content_hash);
+
+-- Проверка "такой размер уже встречался" перед загрузкой: при совпадении файл сначала только хэшируется
+CREATE INDEX IF NOT EXISTS idx_file_uploads_file_size ON public.file_uploads(file_size);
+
+-- ============================================
+-- Проверка
+-- ============================================
+
+SELECT column_name, data_type
+FROM information_schema.columns
+WHERE table_schema = 'public'
+    AND table_name = 'file_uploads'
+ORDER BY ordinal_position;
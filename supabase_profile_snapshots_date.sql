@@ -0,0 +1,21 @@
+-- ============================================
+-- profile_snapshots: индексы по snapshot_date
+-- ============================================
+
+-- SupabaseProfileSnapshotRepository.findSnapshotsBetweenDates передаёт окно в PostgREST
+-- (snapshot_date=gte.<from>&snapshot_date=lt.<to>&order=snapshot_date.asc)
+-- вместо выгрузки всех снимков и фильтрации в JVM - запрос читает только окно по индексу.
+CREATE INDEX IF NOT EXISTS idx_snapshots_date ON public.profile_snapshots(snapshot_date);
+
+-- История одного пользователя: findLatestSnapshotsByUserId (order=snapshot_date.desc)
+-- и findByUserIdBetweenDates
+CREATE INDEX IF NOT EXISTS idx_snapshots_user_id_date ON public.profile_snapshots(user_id, snapshot_date);
+
+-- ============================================
+-- Проверка
+-- ============================================
+
+SELECT indexname, indexdef
+FROM pg_indexes
+WHERE schemaname = 'public'
+    AND tablename = 'profile_snapshots';
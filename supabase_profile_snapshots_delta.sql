@@ -0,0 +1,32 @@
+-- ============================================
+-- profile_snapshots: дедупликация и дельты
+-- ============================================
+
+-- ProfileSnapshotService пишет снимок только при изменении profile_data (content_hash),
+-- изменения - JSON Patch (patch) от ключевого кадра base_id; profile_data заполнен только у FULL.
+-- Старые строки (kind IS NULL) читаются как FULL.
+ALTER TABLE public.profile_snapshots
+    ADD COLUMN IF NOT EXISTS kind text CHECK (kind IN ('FULL', 'DELTA')),
+    ADD COLUMN IF NOT EXISTS content_hash text,
+    ADD COLUMN IF NOT EXISTS base_id uuid REFERENCES public.profile_snapshots(id) DEFERRABLE INITIALLY DEFERRED,
+    ADD COLUMN IF NOT EXISTS seq integer,
+    ADD COLUMN IF NOT EXISTS patch jsonb;
+
+-- Ключ проверяется при COMMIT: в SQL-выгрузке (ExportService.streamExport) строки идут по id, и дельта
+-- может оказаться раньше своего кадра. Для баз, где колонка уже была добавлена без DEFERRABLE:
+ALTER TABLE public.profile_snapshots
+    ALTER CONSTRAINT profile_snapshots_base_id_fkey DEFERRABLE INITIALLY DEFERRED;
+
+-- DELTA без кадра восстановить нельзя: внешний ключ не даёт удалить кадр с живыми дельтами,
+-- компактор сначала перестраивает цепочку, потом удаляет дельты и только затем кадры
+CREATE INDEX IF NOT EXISTS idx_snapshots_base_id ON public.profile_snapshots(base_id);
+
+-- ============================================
+-- Проверка
+-- ============================================
+
+SELECT column_name, data_type
+FROM information_schema.columns
+WHERE table_schema = 'public'
+    AND table_name = 'profile_snapshots'
+ORDER BY ordinal_position;
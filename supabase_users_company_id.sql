@@ -0,0 +1,25 @@
+-- ============================================
+-- users.company_id: привязка пользователя к компании
+-- ============================================
+
+-- SupabaseUserRepository.findByCompanyId / findByCompanyIdAndRole / countByCompanyId
+-- фильтруют по company_id на стороне PostgREST (company_id=eq.<uuid>),
+-- вместо выгрузки всей таблицы users и фильтрации в JVM.
+ALTER TABLE public.users
+    ADD COLUMN IF NOT EXISTS company_id uuid REFERENCES public.companies(id) ON DELETE SET NULL;
+
+CREATE INDEX IF NOT EXISTS idx_users_company_id ON public.users(company_id);
+
+-- findByRole транслирует роль в фильтр по status (status.ilike.company, status.ilike.active)
+-- Составной индекс покрывает запросы "пользователи компании с ролью"
+CREATE INDEX IF NOT EXISTS idx_users_company_id_status ON public.users(company_id, status);
+
+-- ============================================
+-- Проверка
+-- ============================================
+
+SELECT column_name, data_type
+FROM information_schema.columns
+WHERE table_schema = 'public'
+    AND table_name = 'users'
+    AND column_name = 'company_id';
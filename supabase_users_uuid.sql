@@ -0,0 +1,27 @@
+-- ============================================
+-- users.user_uuid: синтетический UUID пользователя как хранимая колонка
+-- ============================================
+
+-- В приложении User.id - это UUID.nameUUIDFromBytes(String.valueOf(users.id)),
+-- т.е. MD5 от текстового bigint id с выставленными битами версии (3) и варианта.
+-- Обратно из UUID bigint не получить, поэтому считаем тот же UUID в БД
+-- и фильтруем по нему: user_uuid=in.(...) / user_uuid=eq.<uuid>.
+ALTER TABLE public.users
+    ADD COLUMN IF NOT EXISTS user_uuid uuid GENERATED ALWAYS AS ((
+        substr(md5(id::text), 1, 12)
+        || '3'
+        || substr(md5(id::text), 14, 3)
+        || substr('89ab', (('x' || substr(md5(id::text), 17, 1))::bit(4)::int & 3) + 1, 1)
+        || substr(md5(id::text), 18)
+    )::uuid) STORED;
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_users_user_uuid ON public.users(user_uuid);
+
+-- ============================================
+-- Проверка: для id = 1 в Java получается c4ca4238-a0b9-3382-8dcc-509a6f75849b
+-- ============================================
+
+SELECT id, user_uuid
+FROM public.users
+ORDER BY id
+LIMIT 5;
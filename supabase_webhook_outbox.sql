@@ -0,0 +1,46 @@
+-- ============================================
+-- webhook_outbox: очередь исходящих webhook'ов в n8n
+-- ============================================
+
+-- API кладёт задание в outbox и сразу отвечает 202 с id задания,
+-- WebhookDispatcher забирает задания пачками и отправляет в n8n с повторами.
+-- Статусы: PENDING -> IN_PROGRESS -> SENT, после исчерпания попыток - DEAD.
+CREATE TABLE IF NOT EXISTS public.webhook_outbox (
+    id uuid PRIMARY KEY DEFAULT gen_random_uuid(),
+    idempotency_key text NOT NULL,
+    webhook_type text NOT NULL,
+    -- пользователь, поставивший задание: только он (и ADMIN) видит статус и ответ n8n
+    owner_id uuid,
+    payload text NOT NULL,
+    -- файлы, сохранённые на диск до отправки: [{path, originalFileName, size, contentType}]
+    attachments jsonb,
+    status text NOT NULL DEFAULT 'PENDING',
+    attempts integer NOT NULL DEFAULT 0,
+    next_attempt_at timestamptz NOT NULL DEFAULT now(),
+    locked_until timestamptz,
+    last_error text,
+    response text,
+    created_at timestamptz NOT NULL DEFAULT now(),
+    updated_at timestamptz NOT NULL DEFAULT now()
+);
+
+-- Повторный клик/запрос с тем же ключом, пока задание не отправлено, не создаёт второе задание
+CREATE UNIQUE INDEX IF NOT EXISTS idx_webhook_outbox_active_key
+    ON public.webhook_outbox(idempotency_key)
+    WHERE status IN ('PENDING', 'IN_PROGRESS');
+
+-- Таблица, созданная до появления owner_id: старые задания без владельца видит только ADMIN
+ALTER TABLE public.webhook_outbox
+    ADD COLUMN IF NOT EXISTS owner_id uuid;
+
+-- Выборка заданий к отправке: status + next_attempt_at / locked_until
+CREATE INDEX IF NOT EXISTS idx_webhook_outbox_due
+    ON public.webhook_outbox(status, next_attempt_at);
+
+-- ============================================
+-- Проверка
+-- ============================================
+
+SELECT status, count(*)
+FROM public.webhook_outbox
+GROUP BY status;